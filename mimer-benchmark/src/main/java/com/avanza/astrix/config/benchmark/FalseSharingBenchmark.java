@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.avanza.astrix.config.PaddedIntProperty;
+
+/**
+ * Measures read throughput of an int value on three cores while a fourth core keeps updating another int
+ * value. As a baseline the two values are adjacent fields of one object, hence they always share a cache
+ * line, which is compared with two {@link PaddedIntProperty}'s, whose values occupy cache lines of their
+ * own. Requires at least four cores to be meaningful.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FalseSharingBenchmark {
+
+	@State(Scope.Group)
+	public static class AdjacentValues {
+		volatile int read = 1;
+		volatile int written;
+		int counter;
+	}
+
+	@State(Scope.Group)
+	public static class PaddedProperties {
+		final PaddedIntProperty read = new PaddedIntProperty(1);
+		final PaddedIntProperty written = new PaddedIntProperty();
+		int counter;
+	}
+
+	@Benchmark
+	@Group("unpadded")
+	@GroupThreads(3)
+	public int readUnpadded(AdjacentValues values) {
+		return values.read;
+	}
+
+	@Benchmark
+	@Group("unpadded")
+	@GroupThreads(1)
+	public void writeUnpadded(AdjacentValues values) {
+		values.written = values.counter++;
+	}
+
+	@Benchmark
+	@Group("padded")
+	@GroupThreads(3)
+	public int readPadded(PaddedProperties properties) {
+		return properties.read.get();
+	}
+
+	@Benchmark
+	@Group("padded")
+	@GroupThreads(1)
+	public void writePadded(PaddedProperties properties) {
+		properties.written.set(properties.counter++);
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.avanza.astrix.config.ConfigChangeJournal;
+import com.avanza.astrix.config.ConfigChangeReplayer;
+import com.avanza.astrix.config.DynamicConfig;
+import com.avanza.astrix.config.MapConfigSource;
+
+/**
+ * Measures the cost of applying recorded config changes, including notifying all property listeners. <p>
+ *
+ * Set the journal parameter to a journal recorded in production, for instance with
+ * {@code -p journal=/path/to/config.journal}. By default a synthetic journal of random int values is
+ * generated. Each property in the journal is bound as a string property with a single listener. Each
+ * invocation applies the next {@link ConfigChangeJournal.Kind#SOURCE} record, starting over when all
+ * records are applied.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalReplayBenchmark {
+
+	private static final int SYNTHETIC_PROPERTIES = 1000;
+	private static final int SYNTHETIC_CHANGES = 100_000;
+
+	@Param("")
+	public String journal;
+
+	private final MapConfigSource source = new MapConfigSource();
+	private ConfigChangeReplayer replayer;
+	private int[] sourceRecords;
+	private int next;
+	private long sum;
+
+	@Setup
+	public void setup() throws IOException {
+		Path path = journal.isEmpty() ? writeSyntheticJournal() : Paths.get(journal);
+		replayer = ConfigChangeReplayer.load(path);
+		sourceRecords = new int[replayer.size()];
+		int count = 0;
+		for (int i = 0; i < replayer.size(); i++) {
+			if (replayer.kind(i) == ConfigChangeJournal.Kind.SOURCE) {
+				sourceRecords[count++] = i;
+			}
+		}
+		if (count == 0) {
+			throw new IllegalArgumentException("No source records in " + path);
+		}
+		sourceRecords = Arrays.copyOf(sourceRecords, count);
+		Set<String> names = new LinkedHashSet<>();
+		for (int i = 0; i < replayer.size(); i++) {
+			names.add(replayer.name(i));
+		}
+		DynamicConfig config = DynamicConfig.create(source);
+		for (String name : names) {
+			config.getStringProperty(name, null).addListener(newValue -> sum++);
+		}
+	}
+
+	private static Path writeSyntheticJournal() throws IOException {
+		Path path = Files.createTempFile("synthetic", ".journal");
+		path.toFile().deleteOnExit();
+		Random random = new Random(0);
+		try (ConfigChangeJournal journal = ConfigChangeJournal.create(path)) {
+			for (int i = 0; i < SYNTHETIC_CHANGES; i++) {
+				journal.append(ConfigChangeJournal.Kind.SOURCE, "property." + random.nextInt(SYNTHETIC_PROPERTIES), Integer.toString(random.nextInt()));
+			}
+		}
+		return path;
+	}
+
+	@Benchmark
+	public long applyNextChange() {
+		replayer.apply(sourceRecords[next], source);
+		next = next + 1 == sourceRecords.length ? 0 : next + 1;
+		return sum;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.avanza.astrix.config.DynamicConfig;
+import com.avanza.astrix.config.DynamicIntProperty;
+import com.avanza.astrix.config.MapConfigSource;
+
+/**
+ * Measures updating an int property with values outside of the Integer cache, notifying either a
+ * {@link com.avanza.astrix.config.DynamicPropertyListener} or an {@link com.avanza.astrix.config.IntPropertyListener}.
+ * Run with {@code -prof gc} to see the allocation rate of each path. The source benchmarks include parsing the
+ * value and resolving it through the property chain.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListenerDispatchBenchmark {
+
+	private static final String[] VALUES = { "1000", "2000" };
+
+	private final DynamicIntProperty boxedListenerProperty = new DynamicIntProperty();
+	private final DynamicIntProperty primitiveListenerProperty = new DynamicIntProperty();
+	private final MapConfigSource source = new MapConfigSource();
+	private DynamicIntProperty boundProperty;
+	private int sum;
+	private int counter;
+
+	@Setup
+	public void setup() {
+		boxedListenerProperty.addListener(newValue -> sum += newValue);
+		primitiveListenerProperty.addIntListener(newValue -> sum += newValue);
+		boundProperty = DynamicConfig.create(source).getIntProperty("limit", 0);
+		boundProperty.addIntListener(newValue -> sum += newValue);
+	}
+
+	@Benchmark
+	public int boxedListener() {
+		boxedListenerProperty.set(1000 + (counter++ & 1));
+		return sum;
+	}
+
+	@Benchmark
+	public int primitiveListener() {
+		primitiveListenerProperty.set(1000 + (counter++ & 1));
+		return sum;
+	}
+
+	@Benchmark
+	public int sourceUpdate() {
+		source.set("limit", VALUES[counter++ & 1]);
+		return sum;
+	}
+
+}
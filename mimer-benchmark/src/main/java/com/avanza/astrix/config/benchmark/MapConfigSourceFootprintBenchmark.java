@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.avanza.astrix.config.DynamicConfig;
+import com.avanza.astrix.config.MapConfigSource;
+
+/**
+ * Measures the heap retained per property by a {@link MapConfigSource} in each storage mode, excluding the key
+ * and value strings themselves. Each invocation fills a new source with the given number of properties, and
+ * listens to the given number of additional properties that are never set. The retained heap is reported by
+ * the bytesPerProperty counter, measured as the heap delta after a full gc. JMH sums counters over the
+ * measurement iterations, hence only a single iteration is measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseSerialGC")
+@State(Scope.Benchmark)
+public class MapConfigSourceFootprintBenchmark {
+
+	@Param({ "default", "compact" })
+	public String mode;
+
+	@Param("200000")
+	public int properties;
+
+	@Param("0")
+	public int absentListenedProperties;
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	private String[] keys;
+	private String[] values;
+	private String[] absentKeys;
+	private MapConfigSource retained;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		public double bytesPerProperty;
+	}
+
+	@Setup
+	public void setup() {
+		keys = new String[properties];
+		values = new String[properties];
+		for (int i = 0; i < properties; i++) {
+			keys[i] = "instrument." + i + ".limit";
+			values[i] = Integer.toString(i);
+		}
+		absentKeys = new String[absentListenedProperties];
+		for (int i = 0; i < absentListenedProperties; i++) {
+			absentKeys[i] = "absent." + i;
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void clear() {
+		retained = null;
+	}
+
+	@Benchmark
+	public MapConfigSource fill(Footprint footprint) {
+		long before = usedHeapAfterGc();
+		MapConfigSource source = "compact".equals(mode) ? MapConfigSource.compact() : new MapConfigSource();
+		for (int i = 0; i < keys.length; i++) {
+			source.set(keys[i], values[i]);
+		}
+		DynamicConfig config = DynamicConfig.create(source);
+		for (String absentKey : absentKeys) {
+			config.getStringProperty(absentKey, null);
+		}
+		retained = source;
+		long after = usedHeapAfterGc();
+		footprint.bytesPerProperty = (double) (after - before) / (keys.length + absentKeys.length);
+		return source;
+	}
+
+	private long usedHeapAfterGc() {
+		System.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.avanza.astrix.config.PropertiesFileConfigSource;
+
+/**
+ * Compares loading a properties file with {@link PropertiesFileConfigSource} against {@link Properties#load(InputStream)}. <p>
+ *
+ * Set the file parameter to a real properties file, for instance with {@code -p file=/path/to/generated.properties}.
+ * By default a synthetic file with 100 000 properties, a few megabytes in size, is generated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertiesFileBenchmark {
+
+	private static final int SYNTHETIC_PROPERTIES = 100_000;
+
+	@Param("")
+	public String file;
+
+	private Path path;
+
+	@Setup
+	public void setup() throws IOException {
+		path = file.isEmpty() ? writeSyntheticFile() : Paths.get(file);
+	}
+
+	private static Path writeSyntheticFile() throws IOException {
+		Path path = Files.createTempFile("synthetic", ".properties");
+		path.toFile().deleteOnExit();
+		try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < SYNTHETIC_PROPERTIES; i++) {
+				if (i % 100 == 0) {
+					writer.write("# instruments " + i + "\n");
+				}
+				writer.write("instrument." + i + ".limit.description = Maximum order value for instrument " + i + "\n");
+			}
+		}
+		return path;
+	}
+
+	@Benchmark
+	public Object propertiesFileConfigSource() {
+		return PropertiesFileConfigSource.load(path);
+	}
+
+	@Benchmark
+	public Object propertiesLoad() {
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(path)) {
+			properties.load(in);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return properties;
+	}
+
+}
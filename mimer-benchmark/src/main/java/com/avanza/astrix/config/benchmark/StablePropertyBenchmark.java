@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.avanza.astrix.config.DynamicBooleanProperty;
+import com.avanza.astrix.config.StableBooleanProperty;
+
+/**
+ * Compares reading a feature flag held in a {@link DynamicBooleanProperty} with reading one held in a
+ * {@link StableBooleanProperty}, either through {@link StableBooleanProperty#get()} or through its invoker
+ * held in a static final field. <p>
+ *
+ * The flag is read in each iteration of a loop. A volatile read can not be hoisted out of the loop, while
+ * a constant lets the JIT remove the disabled branch and vectorize the loop. A static final boolean is the
+ * lower bound.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StablePropertyBenchmark {
+
+	private static final boolean CONSTANT_FLAG = false;
+	private static final DynamicBooleanProperty DYNAMIC_FLAG = new DynamicBooleanProperty(false);
+	private static final StableBooleanProperty STABLE_FLAG = new StableBooleanProperty(false);
+	private static final MethodHandle STABLE_FLAG_INVOKER = STABLE_FLAG.invoker();
+
+	private final int[] values = new int[1024];
+
+	@Benchmark
+	public int constantFlag() {
+		int sum = 0;
+		for (int value : values) {
+			sum += CONSTANT_FLAG ? value * 31 : value;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int dynamicBooleanProperty() {
+		int sum = 0;
+		for (int value : values) {
+			sum += DYNAMIC_FLAG.get() ? value * 31 : value;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int stableBooleanProperty() {
+		int sum = 0;
+		for (int value : values) {
+			sum += STABLE_FLAG.get() ? value * 31 : value;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int stableBooleanPropertyInvoker() throws Throwable {
+		int sum = 0;
+		for (int value : values) {
+			sum += (boolean) STABLE_FLAG_INVOKER.invokeExact() ? value * 31 : value;
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import com.avanza.astrix.config.ConfigInterface;
+import com.avanza.astrix.config.Key;
+
+/**
+ * Generates an implementation of each interface annotated with {@link ConfigInterface}. <p>
+ *
+ * The generated class, <code>Mimer_&lt;InterfaceName&gt;</code>, declares a typed {@link com.avanza.astrix.config.Setting}
+ * constant for each property of the interface, and binds all of them in the calling thread with a single call to
+ * {@link com.avanza.astrix.config.DynamicConfig#bindAllInCallingThread(java.util.Collection)} when it is constructed. Each getter
+ * then returns the property bound to its setting. Hence startup does not rely on reflection and the result needs no
+ * reflection configuration to run as a native image. <p>
+ *
+ * Default values are parsed at compile time, so an invalid default value is reported as a compilation error.
+ *
+ */
+@SupportedAnnotationTypes("com.avanza.astrix.config.ConfigInterface")
+public final class ConfigInterfaceProcessor extends AbstractProcessor {
+
+	static final String GENERATED_CLASS_PREFIX = "Mimer_";
+
+	private static final String PROPERTY_PACKAGE = "com.avanza.astrix.config.";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getElementsAnnotatedWith(ConfigInterface.class)) {
+			if (element.getKind() != ElementKind.INTERFACE) {
+				error(element, "@ConfigInterface can only be used on interfaces");
+				continue;
+			}
+			if (element.getModifiers().contains(Modifier.PRIVATE)) {
+				error(element, "@ConfigInterface can not be used on private interfaces");
+				continue;
+			}
+			TypeElement configInterface = (TypeElement) element;
+			List<BoundProperty> properties = bindProperties(configInterface);
+			if (properties != null) {
+				write(configInterface, properties);
+			}
+		}
+		return true;
+	}
+
+	private List<BoundProperty> bindProperties(TypeElement configInterface) {
+		List<BoundProperty> properties = new ArrayList<>();
+		Set<String> settingNames = new HashSet<>();
+		boolean valid = true;
+		for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(configInterface))) {
+			if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+				continue;
+			}
+			BoundProperty property = bindProperty(method);
+			if (property == null) {
+				valid = false;
+			} else {
+				// Distinct methods, for instance fooBar() and foo_bar(), may map to the same constant name
+				String settingName = property.settingName;
+				for (int i = 2; !settingNames.add(settingName); i++) {
+					settingName = property.settingName + "_" + i;
+				}
+				property.settingName = settingName;
+				properties.add(property);
+			}
+		}
+		return valid ? properties : null;
+	}
+
+	private BoundProperty bindProperty(ExecutableElement method) {
+		Key key = method.getAnnotation(Key.class);
+		if (key == null) {
+			error(method, "Methods in a @ConfigInterface must be annotated with @Key");
+			return null;
+		}
+		if (!method.getParameters().isEmpty()) {
+			error(method, "Methods in a @ConfigInterface can not take any parameters");
+			return null;
+		}
+		TypeMirror returnType = method.getReturnType();
+		if (returnType.getKind() != TypeKind.DECLARED) {
+			error(method, "Unsupported property type: " + returnType);
+			return null;
+		}
+		String defaultValue = Key.NO_DEFAULT_VALUE.equals(key.defaultValue()) ? null : key.defaultValue();
+		String name = stringLiteral(key.value());
+		String propertyType = ((TypeElement) ((DeclaredType) returnType).asElement()).getQualifiedName().toString();
+		try {
+			switch (propertyType) {
+			case PROPERTY_PACKAGE + "DynamicStringProperty":
+				return new BoundProperty(method, "StringSetting", name + ", " + stringLiteral(defaultValue));
+			case PROPERTY_PACKAGE + "DynamicBooleanProperty":
+				return new BoundProperty(method, "BooleanSetting", name + ", " + booleanLiteral(defaultValue));
+			case PROPERTY_PACKAGE + "DynamicIntProperty":
+				return new BoundProperty(method, "IntSetting", name + ", " + (defaultValue == null ? 0 : Integer.parseInt(defaultValue)));
+			case PROPERTY_PACKAGE + "DynamicLongProperty":
+				return new BoundProperty(method, "LongSetting", name + ", " + (defaultValue == null ? 0 : Long.parseLong(defaultValue)) + "L");
+			case PROPERTY_PACKAGE + "DynamicEnumProperty":
+				return bindEnumProperty(method, name, (DeclaredType) returnType, defaultValue);
+			default:
+				error(method, "Unsupported property type: " + returnType);
+				return null;
+			}
+		} catch (IllegalArgumentException e) {
+			error(method, "Invalid default value for " + returnType + ": \"" + defaultValue + "\"");
+			return null;
+		}
+	}
+
+	private BoundProperty bindEnumProperty(ExecutableElement method, String name, DeclaredType returnType, String defaultValue) {
+		List<? extends TypeMirror> typeArguments = returnType.getTypeArguments();
+		if (typeArguments.size() != 1 || typeArguments.get(0).getKind() != TypeKind.DECLARED) {
+			error(method, "Unsupported property type: " + returnType);
+			return null;
+		}
+		TypeElement enumType = (TypeElement) ((DeclaredType) typeArguments.get(0)).asElement();
+		String enumName = enumType.getQualifiedName().toString();
+		String defaultConstant = "null";
+		if (defaultValue != null) {
+			// Enum values are matched ignoring case when read from a config source, hence the same applies here
+			defaultConstant = enumType.getEnclosedElements().stream()
+					.filter(element -> element.getKind() == ElementKind.ENUM_CONSTANT)
+					.map(element -> element.getSimpleName().toString())
+					.filter(constant -> constant.equalsIgnoreCase(defaultValue))
+					.findFirst()
+					.map(constant -> enumName + "." + constant)
+					.orElseThrow(IllegalArgumentException::new);
+		}
+		return new BoundProperty(method, "EnumSetting<" + enumName + ">", name + ", " + enumName + ".class, " + defaultConstant);
+	}
+
+	private void write(TypeElement configInterface, List<BoundProperty> properties) {
+		String packageName = processingEnv.getElementUtils().getPackageOf(configInterface).getQualifiedName().toString();
+		String className = generatedClassName(configInterface);
+		String qualifiedClassName = packageName.isEmpty() ? className : packageName + "." + className;
+		try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedClassName, configInterface).openWriter()) {
+			StringBuilder source = new StringBuilder();
+			if (!packageName.isEmpty()) {
+				source.append("package ").append(packageName).append(";\n\n");
+			}
+			source.append("/**\n")
+				  .append(" * Binds {@link ").append(configInterface.getQualifiedName()).append("} to a DynamicConfig.\n")
+				  .append(" * Generated by ").append(getClass().getName()).append(", do not edit.\n")
+				  .append(" */\n");
+			if (configInterface.getModifiers().contains(Modifier.PUBLIC)) {
+				source.append("public ");
+			}
+			source.append("final class ").append(className).append(" implements ").append(configInterface.getQualifiedName()).append(" {\n");
+			for (BoundProperty property : properties) {
+				String settingType = PROPERTY_PACKAGE + property.settingType;
+				source.append("\n\tprivate static final ").append(settingType).append(' ').append(property.settingName)
+					  .append(" = ").append(settingType.replaceFirst("<.*", "")).append(".create(").append(property.settingArguments).append(");");
+			}
+			source.append("\n\tprivate static final java.util.List<").append(PROPERTY_PACKAGE).append("Setting<?>> SETTINGS = java.util.Arrays.asList(");
+			for (int i = 0; i < properties.size(); i++) {
+				source.append(i == 0 ? "" : ", ").append(properties.get(i).settingName);
+			}
+			source.append(");\n");
+			for (BoundProperty property : properties) {
+				source.append("\n\tprivate final ").append(property.type).append(' ').append(property.name).append(';');
+			}
+			source.append("\n\n\tpublic ").append(className).append("(com.avanza.astrix.config.DynamicConfig config) {\n")
+				  .append("\t\tconfig.bindAllInCallingThread(SETTINGS);\n");
+			for (BoundProperty property : properties) {
+				source.append("\t\tthis.").append(property.name).append(" = ").append(property.settingName).append(".getFrom(config);\n");
+			}
+			source.append("\t}\n");
+			for (BoundProperty property : properties) {
+				source.append("\n\t@Override\n")
+					  .append("\tpublic ").append(property.type).append(' ').append(property.name).append("() {\n")
+					  .append("\t\treturn ").append(property.name).append(";\n")
+					  .append("\t}\n");
+			}
+			source.append("\n}\n");
+			writer.write(source.toString());
+		} catch (IOException e) {
+			error(configInterface, "Failed to write " + qualifiedClassName + ": " + e.getMessage());
+		}
+	}
+
+	static String generatedClassName(TypeElement configInterface) {
+		StringBuilder name = new StringBuilder(configInterface.getSimpleName());
+		for (Element enclosing = configInterface.getEnclosingElement(); enclosing.getKind() != ElementKind.PACKAGE; enclosing = enclosing.getEnclosingElement()) {
+			name.insert(0, '_').insert(0, enclosing.getSimpleName());
+		}
+		return name.insert(0, GENERATED_CLASS_PREFIX).toString();
+	}
+
+	private static String booleanLiteral(String value) {
+		if (value == null || "false".equalsIgnoreCase(value)) {
+			return "false";
+		}
+		if ("true".equalsIgnoreCase(value)) {
+			return "true";
+		}
+		throw new IllegalArgumentException(value);
+	}
+
+	private static String stringLiteral(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder literal = new StringBuilder("\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"': literal.append("\\\""); break;
+			case '\\': literal.append("\\\\"); break;
+			case '\n': literal.append("\\n"); break;
+			case '\r': literal.append("\\r"); break;
+			case '\t': literal.append("\\t"); break;
+			default:
+				if (c < 0x20 || c > 0x7e) {
+					literal.append(String.format("\\u%04x", (int) c));
+				} else {
+					literal.append(c);
+				}
+			}
+		}
+		return literal.append('"').toString();
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	private static String constantName(String methodName) {
+		StringBuilder constant = new StringBuilder();
+		for (int i = 0; i < methodName.length(); i++) {
+			char c = methodName.charAt(i);
+			if (Character.isUpperCase(c) && i > 0) {
+				constant.append('_');
+			}
+			constant.append(Character.toUpperCase(c));
+		}
+		return constant.toString();
+	}
+
+	private static final class BoundProperty {
+		private final String name;
+		private final String type;
+		private String settingName;
+		private final String settingType;
+		private final String settingArguments;
+
+		BoundProperty(ExecutableElement method, String settingType, String settingArguments) {
+			this.name = method.getSimpleName().toString();
+			this.type = method.getReturnType().toString();
+			// Suffixed, since a constant derived from a method name could otherwise clash with SETTINGS
+			this.settingName = constantName(name) + "_SETTING";
+			this.settingType = settingType;
+			this.settingArguments = settingArguments;
+		}
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config.processor;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.avanza.astrix.config.ConfigInterface;
+import com.avanza.astrix.config.DynamicBooleanProperty;
+import com.avanza.astrix.config.DynamicConfig;
+import com.avanza.astrix.config.DynamicEnumProperty;
+import com.avanza.astrix.config.DynamicIntProperty;
+import com.avanza.astrix.config.DynamicLongProperty;
+import com.avanza.astrix.config.DynamicStringProperty;
+import com.avanza.astrix.config.Key;
+import com.avanza.astrix.config.MapConfigSource;
+
+class ConfigInterfaceProcessorTest {
+
+	@TempDir
+	Path tempDir;
+
+	enum Mode {
+		FAST, SAFE
+	}
+
+	@ConfigInterface
+	interface RoutingConfig {
+
+		@Key(value = "routing.timeout", defaultValue = "100")
+		DynamicIntProperty timeout();
+
+		@Key(value = "routing.maxBytes", defaultValue = "10000000000")
+		DynamicLongProperty maxBytes();
+
+		@Key(value = "routing.enabled", defaultValue = "TRUE")
+		DynamicBooleanProperty enabled();
+
+		@Key(value = "routing.target", defaultValue = "\"primary\"")
+		DynamicStringProperty target();
+
+		@Key(value = "routing.mode", defaultValue = "safe")
+		DynamicEnumProperty<Mode> mode();
+
+		@Key("routing.fallback")
+		DynamicStringProperty fallback();
+
+		default int timeoutMillis() {
+			return timeout().get();
+		}
+	}
+
+	@Test
+	void generatedImplementationBindsPropertiesWithDefaultValues() {
+		RoutingConfig routingConfig = new Mimer_ConfigInterfaceProcessorTest_RoutingConfig(DynamicConfig.create(new MapConfigSource()));
+
+		assertEquals(100, routingConfig.timeoutMillis());
+		assertEquals(10_000_000_000L, routingConfig.maxBytes().get());
+		assertTrue(routingConfig.enabled().get());
+		assertEquals("\"primary\"", routingConfig.target().get());
+		assertEquals(Mode.SAFE, routingConfig.mode().get());
+		assertNull(routingConfig.fallback().get());
+	}
+
+	@Test
+	void generatedImplementationReturnsDynamicPropertiesOfConfig() {
+		MapConfigSource configSource = MapConfigSource.of("routing.timeout", "200");
+		DynamicConfig config = DynamicConfig.create(configSource);
+		RoutingConfig routingConfig = new Mimer_ConfigInterfaceProcessorTest_RoutingConfig(config);
+
+		assertEquals(200, routingConfig.timeout().get());
+		assertSame(config.getIntProperty("routing.timeout", 100), routingConfig.timeout());
+
+		configSource.set("routing.enabled", "false");
+		configSource.set("routing.mode", "FAST");
+		assertFalse(routingConfig.enabled().get());
+		assertEquals(Mode.FAST, routingConfig.mode().get());
+	}
+
+	@Test
+	void reportsInvalidConfigInterfaces() {
+		List<String> errors = compile(
+				"import com.avanza.astrix.config.*;\n"
+				+ "@ConfigInterface\n"
+				+ "interface InvalidConfig {\n"
+				+ "  @Key(value = \"a\", defaultValue = \"ten\") DynamicIntProperty invalidDefault();\n"
+				+ "  DynamicIntProperty missingKey();\n"
+				+ "  @Key(\"c\") DynamicIntProperty withParameter(int value);\n"
+				+ "  @Key(\"d\") DynamicProperty<Object> unsupportedType();\n"
+				+ "}\n");
+
+		assertEquals(4, errors.size());
+		assertThat(errors, hasItem(containsString("Invalid default value")));
+		assertThat(errors, hasItem(containsString("must be annotated with @Key")));
+		assertThat(errors, hasItem(containsString("can not take any parameters")));
+		assertThat(errors, hasItem(containsString("Unsupported property type")));
+	}
+
+	@Test
+	void reportsConfigInterfaceOnClass() {
+		List<String> errors = compile(
+				"@com.avanza.astrix.config.ConfigInterface\n"
+				+ "class InvalidConfig {\n"
+				+ "}\n");
+
+		assertEquals(singletonList("@ConfigInterface can only be used on interfaces"), errors);
+	}
+
+	@Test
+	void generatesDistinctSettingsForMethodsWithSameConstantName() throws Exception {
+		List<String> errors = compile(
+				"import com.avanza.astrix.config.*;\n"
+				+ "@ConfigInterface\n"
+				+ "interface InvalidConfig {\n"
+				+ "  @Key(\"a\") DynamicIntProperty fooBar();\n"
+				+ "  @Key(\"b\") DynamicIntProperty foo_bar();\n"
+				+ "}\n", "-d", Files.createDirectories(tempDir.resolve("classes")).toString());
+
+		assertEquals(emptyList(), errors);
+	}
+
+	private List<String> compile(String source) {
+		return compile(source, "-proc:only");
+	}
+
+	private List<String> compile(String source, String... compilerOptions) {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///InvalidConfig.java"), JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+		List<String> options = new ArrayList<>(asList(compilerOptions));
+		options.addAll(asList("-s", tempDir.toString(), "-classpath", System.getProperty("java.class.path")));
+		JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null, singletonList(sourceFile));
+		task.setProcessors(singletonList(new ConfigInterfaceProcessor()));
+		task.call();
+		return diagnostics.getDiagnostics().stream()
+				.filter(diagnostic -> diagnostic.getKind() == javax.tools.Diagnostic.Kind.ERROR)
+				.map(diagnostic -> diagnostic.getMessage(null))
+				.collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Reports the time spent binding properties in {@link DynamicConfig#bindAll(java.util.Collection)}. <p>
+ *
+ * The time spent in each source is summed over all threads binding properties, hence the sum of the source
+ * times might exceed the total (wall clock) time.
+ *
+ */
+public final class BindReport {
+
+	private final int boundProperties;
+	private final Duration totalTime;
+	private final Map<ConfigSource, Duration> sourceTimes;
+
+	BindReport(int boundProperties, Duration totalTime, Map<ConfigSource, Duration> sourceTimes) {
+		this.boundProperties = boundProperties;
+		this.totalTime = totalTime;
+		this.sourceTimes = Collections.unmodifiableMap(sourceTimes);
+	}
+
+	/**
+	 * The number of settings bound.
+	 */
+	public int getBoundProperties() {
+		return boundProperties;
+	}
+
+	/**
+	 * The wall clock time spent binding all settings.
+	 */
+	public Duration getTotalTime() {
+		return totalTime;
+	}
+
+	/**
+	 * The time spent reading and parsing values from each source, in order of precedence. A group of
+	 * adjacent {@link StaticConfigSource}'s is reported as a single source. Properties referenced by a
+	 * placeholder are included in the time of each source they are read from. A source that reads other
+	 * properties while being read is only timed once, including those nested reads.
+	 */
+	public Map<ConfigSource, Duration> getSourceTimes() {
+		return sourceTimes;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("Bound ").append(boundProperties).append(" properties in ")
+				.append(totalTime.toMillis()).append(" ms");
+		sourceTimes.forEach((source, time) -> result.append(", ").append(source).append(": ").append(time.toMillis()).append(" ms"));
+		return result.toString();
+	}
+
+}
@@ -28,6 +28,7 @@ public class BooleanSetting implements Setting<Boolean> {
 	
 	private final String name;
 	private final boolean defaultValue;
+	private final int slot = DynamicConfig.allocateSettingSlot();
 	
 	private BooleanSetting(String name, boolean defaultValue) {
 		this.name = requireNonNull(name);
@@ -40,7 +41,7 @@ public class BooleanSetting implements Setting<Boolean> {
 
 	@Override
 	public DynamicBooleanProperty getFrom(DynamicConfig config) {
-		return config.getBooleanProperty(this.name, this.defaultValue);
+		return config.getSettingProperty(slot, this, (setting, c) -> c.getBooleanProperty(setting.name, setting.defaultValue));
 	}
 	
 	@Override
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+/**
+ * Pads the start of the padded properties, see {@link PaddedIntProperty}. HotSpot lays out the fields
+ * of a superclass before the fields of its subclasses, hence these fields keeps the value declared by
+ * a subclass at least a cache line away from the preceding object in memory. Bytes are used since
+ * HotSpot fills alignment gaps in a superclass with fields from subclasses.
+ */
+abstract class CacheLinePadding {
+
+	byte p000, p001, p002, p003, p004, p005, p006, p007;
+	byte p008, p009, p010, p011, p012, p013, p014, p015;
+	byte p016, p017, p018, p019, p020, p021, p022, p023;
+	byte p024, p025, p026, p027, p028, p029, p030, p031;
+	byte p032, p033, p034, p035, p036, p037, p038, p039;
+	byte p040, p041, p042, p043, p044, p045, p046, p047;
+	byte p048, p049, p050, p051, p052, p053, p054, p055;
+	byte p056, p057, p058, p059, p060, p061, p062, p063;
+
+}
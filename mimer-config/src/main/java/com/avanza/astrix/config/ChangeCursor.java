@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.Set;
+
+/**
+ * A pull based alternative to listeners, for threads that can not take callbacks on a foreign thread, see
+ * {@link DynamicConfig#changeCursor()}. <p>
+ *
+ * A cursor remembers a version of the config. {@link #hasChanges()} only compares that version with the
+ * current one, so it is cheap enough to check on each iteration of a hot loop, and {@link #poll()} returns
+ * the properties that changed so only those have to be read again:
+ * <pre>
+ * while (running) {
+ *     if (cursor.hasChanges()) {
+ *         for (DynamicProperty&lt;?&gt; changed : cursor.poll()) {
+ *             ...
+ *         }
+ *     }
+ *     ...
+ * }
+ * </pre>
+ * A cursor is intended to be used by a single thread.
+ */
+public final class ChangeCursor {
+
+	private final ConfigSnapshotSupport snapshotSupport;
+	private long position;
+
+	ChangeCursor(ConfigSnapshotSupport snapshotSupport) {
+		this.snapshotSupport = snapshotSupport;
+		this.position = snapshotSupport.current().getVersion();
+	}
+
+	/**
+	 * Whether any property read from the config has been bound or changed since the previous poll.
+	 */
+	public boolean hasChanges() {
+		return snapshotSupport.current().getVersion() != position;
+	}
+
+	/**
+	 * Returns the properties bound or changed since the previous poll, and moves the cursor past them.
+	 * Properties read as {@link DynamicOptionalProperty}'s are returned as the property they delegate to.
+	 */
+	public Set<DynamicProperty<?>> poll() {
+		ConfigSnapshot snapshot = snapshotSupport.current();
+		Set<DynamicProperty<?>> changed = snapshotSupport.changedSince(position, snapshot);
+		position = snapshot.getVersion();
+		return changed;
+	}
+
+	/**
+	 * The version of the config this cursor is positioned at.
+	 */
+	public long position() {
+		return position;
+	}
+
+	@Override
+	public String toString() {
+		return "ChangeCursor[position=" + position + "]";
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+/**
+ * An open addressing hash table from property name to value, using linear probing over a
+ * single array of interleaved keys and values. <p>
+ *
+ * Reads are lock free, writes are serialized. Setting a property to null leaves its key
+ * in the table, such entries are dropped the next time the table is resized. <p>
+ */
+final class CompactPropertyTable {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private volatile AtomicReferenceArray<String> table = new AtomicReferenceArray<>(2 * MIN_CAPACITY);
+	private int usedSlots;
+
+	String get(String propertyName) {
+		AtomicReferenceArray<String> table = this.table;
+		int mask = (table.length() >>> 1) - 1;
+		for (int slot = spread(propertyName.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+			String key = table.get(2 * slot);
+			if (key == null) {
+				return null;
+			}
+			if (key.equals(propertyName)) {
+				return table.get(2 * slot + 1);
+			}
+		}
+	}
+
+	synchronized void put(String propertyName, String value) {
+		AtomicReferenceArray<String> table = this.table;
+		int slot = findSlot(table, propertyName);
+		if (table.get(2 * slot) != null) {
+			table.set(2 * slot + 1, value);
+			return;
+		}
+		if (value == null) {
+			return;
+		}
+		if (usedSlots + 1 > (table.length() >>> 1) * 3 / 4) {
+			table = resize(table);
+			slot = findSlot(table, propertyName);
+		}
+		// Value is published before key, hence a reader that finds the key also sees its value
+		table.set(2 * slot + 1, value);
+		table.set(2 * slot, propertyName);
+		usedSlots++;
+	}
+
+	void forEach(BiConsumer<String, String> action) {
+		AtomicReferenceArray<String> table = this.table;
+		for (int i = 0; i < table.length(); i += 2) {
+			String key = table.get(i);
+			if (key != null) {
+				action.accept(key, table.get(i + 1));
+			}
+		}
+	}
+
+	private AtomicReferenceArray<String> resize(AtomicReferenceArray<String> table) {
+		int liveEntries = 0;
+		for (int i = 0; i < table.length(); i += 2) {
+			if (table.get(i + 1) != null) {
+				liveEntries++;
+			}
+		}
+		int capacity = MIN_CAPACITY;
+		while (capacity / 2 < liveEntries + 1) {
+			capacity <<= 1;
+		}
+		AtomicReferenceArray<String> resized = new AtomicReferenceArray<>(2 * capacity);
+		for (int i = 0; i < table.length(); i += 2) {
+			String key = table.get(i);
+			String value = table.get(i + 1);
+			if (key != null && value != null) {
+				int slot = findSlot(resized, key);
+				resized.set(2 * slot, key);
+				resized.set(2 * slot + 1, value);
+			}
+		}
+		this.usedSlots = liveEntries;
+		this.table = resized;
+		return resized;
+	}
+
+	private static int findSlot(AtomicReferenceArray<String> table, String propertyName) {
+		int mask = (table.length() >>> 1) - 1;
+		int slot = spread(propertyName.hashCode()) & mask;
+		while (true) {
+			String key = table.get(2 * slot);
+			if (key == null || key.equals(propertyName)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private static int spread(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.util.stream.Collectors.joining;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A single lookup table holding the content of a sequence of {@link StaticConfigSource}'s,
+ * resolving each property to the first source that contains it. <p>
+ */
+final class CompiledConfigSource implements StaticConfigSource {
+
+	private final List<StaticConfigSource> configSources;
+	private final Map<String, String> properties = new HashMap<>();
+	private final PropertyNameFilter propertyNameFilter;
+
+	CompiledConfigSource(List<StaticConfigSource> configSources) {
+		this.configSources = new ArrayList<>(configSources);
+		for (StaticConfigSource configSource : configSources) {
+			if (configSource instanceof PropertiesFileConfigSource) {
+				((PropertiesFileConfigSource) configSource).forEach(properties::putIfAbsent);
+			} else {
+				configSource.getPropertiesWithPrefix("").forEach(properties::putIfAbsent);
+			}
+		}
+		this.propertyNameFilter = PropertyNameFilter.create(properties.keySet());
+	}
+
+	List<StaticConfigSource> getConfigSources() {
+		return configSources;
+	}
+
+	boolean mightContain(String propertyName) {
+		return propertyNameFilter.mightContain(propertyName);
+	}
+
+	@Override
+	public String get(String propertyName) {
+		return mightContain(propertyName) ? properties.get(propertyName) : null;
+	}
+
+	@Override
+	public SortedMap<String, String> getPropertiesWithPrefix(String prefix) {
+		SortedMap<String, String> result = new TreeMap<>();
+		properties.forEach((propertyName, value) -> {
+			if (propertyName.startsWith(prefix)) {
+				result.put(propertyName, value);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return configSources.stream().map(String::valueOf).collect(joining(", "));
+	}
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * An append-only journal of config changes, intended for replaying the changes of a production day in a
+ * test environment using a {@link ConfigChangeReplayer}. <p>
+ *
+ * A journal records raw values set in a {@link MapConfigSource}, see {@link #attachTo(MapConfigSource)}, and
+ * resolved values of the properties read from a {@link DynamicConfig}, see {@link #attachTo(DynamicConfig)}.
+ * Records are appended to a memory mapped file, which is remapped with twice the size when full. <p>
+ *
+ * Journal layout (all integers big endian):
+ * <pre>
+ * header (32 bytes): int magic, int formatVersion, long startEpochMillis
+ * records: int recordLength, long nanosSinceStart, byte kind, int keyLength, byte[] utf8Key, int valueLength, byte[] utf8Value
+ * </pre>
+ * A null value has length -1. The records end with a zero record length, or at the end of the file.
+ */
+public final class ConfigChangeJournal implements Closeable {
+
+	/**
+	 * What a journal record holds.
+	 */
+	public enum Kind {
+		/**
+		 * A raw value set in a {@link MapConfigSource}.
+		 */
+		SOURCE,
+		/**
+		 * The resolved value of a property read from a {@link DynamicConfig}, recorded both when the
+		 * property is created and when it changes.
+		 */
+		RESOLVED
+	}
+
+	static final int MAGIC = 0x4D494D4A;
+	static final int FORMAT_VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final int NULL_VALUE = -1;
+	private static final int DEFAULT_CAPACITY = 1 << 20;
+	static final int RECORD_HEADER_SIZE = 4 + 8 + 1 + 4 + 4;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final long startNanos;
+	// All state below is guarded by this
+	private MappedByteBuffer buffer;
+	private int position = HEADER_SIZE;
+	private int recordCount;
+	private boolean closed;
+	private final List<Runnable> detachments = new ArrayList<>();
+
+	private ConfigChangeJournal(Path path, FileChannel channel, MappedByteBuffer buffer) {
+		this.path = path;
+		this.channel = channel;
+		this.buffer = buffer;
+		this.startNanos = System.nanoTime();
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, FORMAT_VERSION);
+		buffer.putLong(8, System.currentTimeMillis());
+	}
+
+	/**
+	 * Creates a new journal, replacing any existing file at the given path.
+	 */
+	public static ConfigChangeJournal create(Path path) {
+		return create(path, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new journal that initially maps the given number of bytes.
+	 */
+	public static ConfigChangeJournal create(Path path, int initialCapacity) {
+		if (initialCapacity < HEADER_SIZE) {
+			throw new IllegalArgumentException("initialCapacity: " + initialCapacity);
+		}
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			return new ConfigChangeJournal(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, initialCapacity));
+		} catch (IOException e) {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException closeFailure) {
+					e.addSuppressed(closeFailure);
+				}
+			}
+			throw new UncheckedIOException("Failed to create config change journal: " + path, e);
+		}
+	}
+
+	/**
+	 * Records each value set in the given source as a {@link Kind#SOURCE} record.
+	 */
+	public ConfigChangeJournal attachTo(MapConfigSource source) {
+		DynamicConfigListener listener = new DynamicConfigListener() {
+			@Override
+			public void propertyChanged(String propertyName, Object newValue) {
+				appendIfOpen(Kind.SOURCE, propertyName, (String) newValue);
+			}
+		};
+		source.addListener(listener);
+		detachOnClose(() -> source.removeListener(listener));
+		return this;
+	}
+
+	/**
+	 * Records the resolved value of each property read from the given config as a {@link Kind#RESOLVED}
+	 * record. Collections are recorded as comma separated lists, so a replayed value parses to the
+	 * same value again.
+	 */
+	public ConfigChangeJournal attachTo(DynamicConfig config) {
+		DynamicConfigListener listener = new DynamicConfigListener() {
+			@Override
+			public void propertyCreated(String propertyName, Object initialValue) {
+				appendIfOpen(Kind.RESOLVED, propertyName, format(initialValue));
+			}
+
+			@Override
+			public void propertyChanged(String propertyName, Object newValue) {
+				appendIfOpen(Kind.RESOLVED, propertyName, format(newValue));
+			}
+		};
+		config.addListener(listener);
+		detachOnClose(() -> config.removeListener(listener));
+		return this;
+	}
+
+	private synchronized void detachOnClose(Runnable detachment) {
+		if (closed) {
+			detachment.run();
+		} else {
+			detachments.add(detachment);
+		}
+	}
+
+	private static String format(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Collection) {
+			return ((Collection<?>) value).stream().map(ConfigChangeJournal::format).collect(Collectors.joining(","));
+		}
+		if (value instanceof Enum) {
+			return ((Enum<?>) value).name();
+		}
+		return value.toString();
+	}
+
+	/**
+	 * Appends a record stamped with the time since this journal was created.
+	 *
+	 * @throws IllegalStateException if the journal is closed
+	 */
+	public synchronized void append(Kind kind, String propertyName, String value) {
+		if (closed) {
+			throw new IllegalStateException("Config change journal is closed: " + path);
+		}
+		appendIfOpen(kind, propertyName, value);
+	}
+
+	private synchronized void appendIfOpen(Kind kind, String propertyName, String value) {
+		if (closed) {
+			return;
+		}
+		long nanosSinceStart = System.nanoTime() - startNanos;
+		byte[] key = propertyName.getBytes(UTF_8);
+		byte[] encodedValue = value == null ? null : value.getBytes(UTF_8);
+		long recordLength = (long) RECORD_HEADER_SIZE + key.length + (encodedValue == null ? 0 : encodedValue.length);
+		ensureCapacity(recordLength + 4);
+		buffer.position(position);
+		buffer.putInt((int) recordLength);
+		buffer.putLong(nanosSinceStart);
+		buffer.put((byte) kind.ordinal());
+		buffer.putInt(key.length);
+		buffer.put(key);
+		buffer.putInt(encodedValue == null ? NULL_VALUE : encodedValue.length);
+		if (encodedValue != null) {
+			buffer.put(encodedValue);
+		}
+		position = buffer.position();
+		recordCount++;
+	}
+
+	private void ensureCapacity(long required) {
+		if (position + required <= buffer.capacity()) {
+			return;
+		}
+		long capacity = Math.max(2L * buffer.capacity(), position + required);
+		if (capacity > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Config change journal is full: " + path);
+		}
+		try {
+			// The previous mapping is released when garbage collected
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to grow config change journal: " + path, e);
+		}
+	}
+
+	/**
+	 * The number of records appended to this journal.
+	 */
+	public synchronized int size() {
+		return recordCount;
+	}
+
+	/**
+	 * Removes the attached listeners and flushes the journal to disk.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		detachments.forEach(Runnable::run);
+		detachments.clear();
+		try {
+			buffer.force();
+			channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to close config change journal: " + path, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ConfigChangeJournal: " + path;
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.avanza.astrix.config.ConfigChangeJournal.Kind;
+
+/**
+ * Feeds the records of a {@link ConfigChangeJournal} back into a {@link MapConfigSource}. <p>
+ *
+ * All records are decoded when the journal is loaded, so replaying does no I/O. {@link #replay(MapConfigSource, Kind, double)}
+ * keeps the original spacing between changes, optionally accelerated, while {@link #apply(int, MapConfigSource)}
+ * applies a single record, which makes a loaded journal usable as a workload in a benchmark.
+ */
+public final class ConfigChangeReplayer {
+
+	private static final Logger log = LoggerFactory.getLogger(ConfigChangeReplayer.class);
+	private static final Kind[] KINDS = Kind.values();
+
+	private final long startEpochMillis;
+	private final long[] timestamps;
+	private final Kind[] kinds;
+	private final String[] names;
+	private final String[] values;
+
+	private ConfigChangeReplayer(long startEpochMillis, long[] timestamps, Kind[] kinds, String[] names, String[] values) {
+		this.startEpochMillis = startEpochMillis;
+		this.timestamps = timestamps;
+		this.kinds = kinds;
+		this.names = names;
+		this.values = values;
+	}
+
+	/**
+	 * Loads all records of a journal. A journal written by a process that died while appending may end
+	 * with an incomplete record, hence loading stops at the first incomplete or corrupt record.
+	 */
+	public static ConfigChangeReplayer load(Path journal) {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Config change journal too large: " + journal);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to open config change journal: " + journal, e);
+		}
+		if (buffer.limit() < ConfigChangeJournal.HEADER_SIZE || buffer.getInt(0) != ConfigChangeJournal.MAGIC) {
+			throw new IllegalArgumentException("Not a config change journal: " + journal);
+		}
+		if (buffer.getInt(4) != ConfigChangeJournal.FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unsupported config change journal format version " + buffer.getInt(4) + ": " + journal);
+		}
+		List<Long> timestamps = new ArrayList<>();
+		List<Kind> kinds = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		List<String> values = new ArrayList<>();
+		buffer.position(ConfigChangeJournal.HEADER_SIZE);
+		while (buffer.remaining() >= 4) {
+			int recordStart = buffer.position();
+			int recordLength = buffer.getInt();
+			if (recordLength == 0) {
+				break;
+			}
+			if (!isComplete(buffer, recordStart, recordLength)) {
+				log.info("Discarding incomplete record at {} in config change journal: {}", recordStart, journal);
+				break;
+			}
+			timestamps.add(buffer.getLong());
+			kinds.add(KINDS[buffer.get()]);
+			names.add(decode(buffer, buffer.getInt()));
+			int valueLength = buffer.getInt();
+			values.add(valueLength == ConfigChangeJournal.NULL_VALUE ? null : decode(buffer, valueLength));
+		}
+		long[] timestampArray = new long[timestamps.size()];
+		for (int i = 0; i < timestampArray.length; i++) {
+			timestampArray[i] = timestamps.get(i);
+		}
+		return new ConfigChangeReplayer(buffer.getLong(8), timestampArray, kinds.toArray(new Kind[0]), names.toArray(new String[0]), values.toArray(new String[0]));
+	}
+
+	private static boolean isComplete(ByteBuffer buffer, int recordStart, int recordLength) {
+		if (recordLength < ConfigChangeJournal.RECORD_HEADER_SIZE || recordLength > buffer.limit() - recordStart) {
+			return false;
+		}
+		int kind = buffer.get(recordStart + 12);
+		int keyLength = buffer.getInt(recordStart + 13);
+		int maxKeyLength = recordLength - ConfigChangeJournal.RECORD_HEADER_SIZE;
+		if (kind < 0 || kind >= KINDS.length || keyLength < 0 || keyLength > maxKeyLength) {
+			return false;
+		}
+		int valueLength = buffer.getInt(recordStart + 17 + keyLength);
+		return valueLength == maxKeyLength - keyLength || (valueLength == ConfigChangeJournal.NULL_VALUE && keyLength == maxKeyLength);
+	}
+
+	private static String decode(ByteBuffer buffer, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	/**
+	 * The number of records in the journal.
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	public Kind kind(int index) {
+		return kinds[index];
+	}
+
+	public String name(int index) {
+		return names[index];
+	}
+
+	public String value(int index) {
+		return values[index];
+	}
+
+	/**
+	 * The time of the given record, in nanoseconds since the journal was created.
+	 */
+	public long timestampNanos(int index) {
+		return timestamps[index];
+	}
+
+	/**
+	 * The wall clock time when the journal was created.
+	 */
+	public long startEpochMillis() {
+		return startEpochMillis;
+	}
+
+	/**
+	 * Sets the property of the given record in the given source.
+	 */
+	public void apply(int index, MapConfigSource target) {
+		target.set(names[index], values[index]);
+	}
+
+	/**
+	 * Replays all records of the given kind into the given source on the calling thread. The first record is
+	 * applied immediately, and each following record after the original time since the first one divided by
+	 * the given speed. A speed of {@link Double#POSITIVE_INFINITY} replays all records without waiting. Stops
+	 * early if the calling thread is interrupted.
+	 *
+	 * @return the number of replayed records
+	 */
+	public int replay(MapConfigSource target, Kind kind, double speed) {
+		if (!(speed > 0)) {
+			throw new IllegalArgumentException("speed: " + speed);
+		}
+		long replayStart = System.nanoTime();
+		long firstTimestamp = -1;
+		int replayed = 0;
+		for (int i = 0; i < names.length; i++) {
+			if (kinds[i] != kind) {
+				continue;
+			}
+			if (firstTimestamp < 0) {
+				firstTimestamp = timestamps[i];
+			}
+			long due = replayStart + (long) ((timestamps[i] - firstTimestamp) / speed);
+			long remaining;
+			while ((remaining = due - System.nanoTime()) > 0) {
+				if (Thread.currentThread().isInterrupted()) {
+					return replayed;
+				}
+				LockSupport.parkNanos(remaining);
+			}
+			apply(i, target);
+			replayed++;
+		}
+		return replayed;
+	}
+
+	@Override
+	public String toString() {
+		return "ConfigChangeReplayer(size=" + size() + ")";
+	}
+
+}
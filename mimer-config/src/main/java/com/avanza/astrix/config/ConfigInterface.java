@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface whose methods each return a property bound to a {@link Key}. <p>
+ *
+ * The mimer-config-processor annotation processor generates an implementation named
+ * <code>Mimer_&lt;InterfaceName&gt;</code> in the same package. It declares a {@link Setting} constant
+ * for each property, and binds all of them in the calling thread of its constructor with a single call to
+ * {@link DynamicConfig#bindAllInCallingThread(java.util.Collection)}, hence no reflection is involved at runtime:
+ *
+ * <pre>
+ * &#64;ConfigInterface
+ * interface RoutingConfig {
+ *     &#64;Key(value = "routing.timeout", defaultValue = "100")
+ *     DynamicIntProperty timeout();
+ * }
+ *
+ * RoutingConfig routingConfig = new Mimer_RoutingConfig(dynamicConfig);
+ * </pre>
+ *
+ * Supported return types are {@link DynamicStringProperty}, {@link DynamicBooleanProperty},
+ * {@link DynamicIntProperty}, {@link DynamicLongProperty} and {@link DynamicEnumProperty}.
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface ConfigInterface {
+
+}
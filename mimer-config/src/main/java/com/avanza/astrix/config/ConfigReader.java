@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the properties an object is built from in {@link DynamicConfig#getObjectProperty(java.util.function.Function, String...)}. <p>
+ *
+ * Only the keys declared when the object property was created can be read. Values are parsed the
+ * same way as values of the corresponding {@link DynamicProperty} types, and a value that can not be
+ * parsed results in an {@link IllegalArgumentException}.
+ *
+ */
+public final class ConfigReader {
+
+	private final Map<String, BoundKey> keys = new LinkedHashMap<>();
+
+	ConfigReader(Collection<String> keys) {
+		for (String key : keys) {
+			this.keys.put(key, new BoundKey());
+		}
+	}
+
+	/**
+	 * Binds the resolved value of each key using the given binder, see {@link DynamicConfig#bindValue}. The
+	 * given action runs each time a key changes after it is bound.
+	 */
+	void bind(BiConsumer<String, DynamicPropertyChainListener<String>> binder, Runnable onChange) {
+		keys.forEach((key, boundKey) -> {
+			binder.accept(key, boundKey);
+			boundKey.onChange = onChange;
+		});
+	}
+
+	/**
+	 * Returns the raw value of the given key, or null if no source holds a value for it.
+	 */
+	public String getString(String key) {
+		BoundKey boundKey = keys.get(key);
+		if (boundKey == null) {
+			throw new IllegalArgumentException("Key is not declared by object property: " + key);
+		}
+		return boundKey.value;
+	}
+
+	public String getString(String key, String defaultValue) {
+		String value = getString(key);
+		return value != null ? value : defaultValue;
+	}
+
+	public int getInt(String key, int defaultValue) {
+		String value = getString(key);
+		return value != null ? PropertyParser.INT_PARSER.parse(value) : defaultValue;
+	}
+
+	public long getLong(String key, long defaultValue) {
+		String value = getString(key);
+		return value != null ? PropertyParser.LONG_PARSER.parse(value) : defaultValue;
+	}
+
+	public boolean getBoolean(String key, boolean defaultValue) {
+		String value = getString(key);
+		return value != null ? PropertyParser.BOOLEAN_PARSER.parse(value) : defaultValue;
+	}
+
+	public <T extends Enum<T>> T getEnum(String key, Class<T> enumClass, T defaultValue) {
+		String value = getString(key);
+		return value != null ? PropertyParser.enumParser(enumClass).parse(value) : defaultValue;
+	}
+
+	private static final class BoundKey implements DynamicPropertyChainListener<String> {
+		private volatile String value;
+		// Set once the key is bound, hence the initial value does not trigger a rebuild
+		private volatile Runnable onChange;
+
+		@Override
+		public void propertyChanged(String newValue) {
+			this.value = newValue;
+			Runnable onChange = this.onChange;
+			if (onChange != null) {
+				onChange.run();
+			}
+		}
+	}
+
+}
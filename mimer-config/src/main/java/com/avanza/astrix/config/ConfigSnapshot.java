@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable view of the values of all properties bound in a {@link DynamicConfig} as of one instant,
+ * see {@link DynamicConfig#snapshot()}. <p>
+ *
+ * Each change to a property publishes a new snapshot that shares all unchanged values with the previous
+ * one, hence taking a snapshot is a single volatile read. The version of a snapshot increases each time
+ * a property is bound or changes value, so two snapshots with the same version hold the same values.
+ * Changes applied as one batch, by {@link MapConfigSource#setAll(java.util.Map)} or
+ * {@link JsonConfigSource#reload(String)}, are published as a single version once the whole batch is
+ * applied, hence a snapshot never holds a partially applied batch.
+ *
+ */
+public final class ConfigSnapshot {
+
+	private static final int CHUNK_SHIFT = 6;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private final long version;
+	private final Object[][] chunks;
+	private final int size;
+	private final Map<DynamicProperty<?>, Integer> slots;
+
+	ConfigSnapshot(Map<DynamicProperty<?>, Integer> slots) {
+		this(0, new Object[0][], 0, slots);
+	}
+
+	private ConfigSnapshot(long version, Object[][] chunks, int size, Map<DynamicProperty<?>, Integer> slots) {
+		this.version = version;
+		this.chunks = chunks;
+		this.size = size;
+		this.slots = slots;
+	}
+
+	/**
+	 * The version of the config when this snapshot was taken.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * The number of properties in this snapshot.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the value the given property had when this snapshot was taken.
+	 *
+	 * @throws IllegalArgumentException if the property was not read from the {@link DynamicConfig} this
+	 * 		   snapshot was taken from, or if it was read after the snapshot was taken
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(DynamicProperty<T> property) {
+		DynamicProperty<T> boundProperty = property instanceof DynamicOptionalProperty ? ((DynamicOptionalProperty<T>) property).getDelegate() : property;
+		Integer slot = slots.get(boundProperty);
+		if (slot == null || slot >= size) {
+			throw new IllegalArgumentException("Property is not part of snapshot: " + property);
+		}
+		return (T) chunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+	}
+
+	/**
+	 * Returns a new snapshot with the given value at the given slot, sharing all chunks but the
+	 * one holding the slot with this snapshot. A slot equal to the size of this snapshot appends
+	 * a new value.
+	 */
+	ConfigSnapshot withValue(int slot, Object value) {
+		int chunk = slot >>> CHUNK_SHIFT;
+		Object[][] newChunks = chunk < chunks.length ? chunks.clone() : Arrays.copyOf(chunks, chunk + 1);
+		Object[] newChunk = newChunks[chunk] == null ? new Object[CHUNK_SIZE] : newChunks[chunk].clone();
+		newChunk[slot & CHUNK_MASK] = value;
+		newChunks[chunk] = newChunk;
+		return new ConfigSnapshot(version + 1, newChunks, Math.max(size, slot + 1), slots);
+	}
+
+	/**
+	 * Returns a new snapshot, with a single new version, holding the given values at the given slots. All
+	 * slots must be less than the size of this snapshot.
+	 */
+	ConfigSnapshot withValues(int[] changedSlots, Object[] values, int count) {
+		Object[][] newChunks = chunks.clone();
+		for (int i = 0; i < count; i++) {
+			int chunk = changedSlots[i] >>> CHUNK_SHIFT;
+			if (newChunks[chunk] == chunks[chunk]) {
+				newChunks[chunk] = chunks[chunk].clone();
+			}
+			newChunks[chunk][changedSlots[i] & CHUNK_MASK] = values[i];
+		}
+		return new ConfigSnapshot(version + 1, newChunks, size, slots);
+	}
+
+	Object getValue(int slot) {
+		return chunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+	}
+
+	@Override
+	public String toString() {
+		return "ConfigSnapshot[version=" + version + ", size=" + size + "]";
+	}
+
+}
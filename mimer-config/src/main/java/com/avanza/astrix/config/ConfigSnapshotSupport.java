@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Publishes a new {@link ConfigSnapshot} each time a property is bound or changes value. Changes made while
+ * the current thread applies an {@link UpdateBatch} are published as a single version once the batch is
+ * applied. <p>
+ *
+ * Writers are serialized, while readers only read the latest published snapshot. <p>
+ *
+ * Each published version is also recorded in a change log, a ring holding the slots that changed, in order,
+ * along with a ring holding where the entries of each of the latest versions end in the change log, and the
+ * version at which each slot last changed. This lets a {@link ChangeCursor} find the properties that changed
+ * since a given version without comparing values.
+ */
+final class ConfigSnapshotSupport {
+
+	private static final int CHUNK_SHIFT = 6;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final int CHANGE_LOG_SIZE = 1 << 12;
+
+	private final ConcurrentMap<DynamicProperty<?>, Integer> slots = new ConcurrentHashMap<>();
+	private final AtomicIntegerArray changeLog = new AtomicIntegerArray(CHANGE_LOG_SIZE);
+	// The end of the change log entries of each version, indexed by version
+	private final AtomicLongArray changeLogEnds = new AtomicLongArray(CHANGE_LOG_SIZE);
+	// The properties changed by the batch the current thread applies, if any
+	private final ThreadLocal<Set<DynamicProperty<?>>> batchedChanges = new ThreadLocal<>();
+	private volatile ConfigSnapshot current = new ConfigSnapshot(slots);
+	// The latest version whose change log entries are written, possibly not yet published
+	private volatile long loggedVersion;
+	// The number of change log entries written, including overwritten ones
+	private volatile long loggedChanges;
+	// Elements are written before the snapshot holding the slot is published
+	private volatile DynamicProperty<?>[][] propertyChunks = new DynamicProperty<?>[0][];
+	private volatile AtomicLongArray[] versionChunks = new AtomicLongArray[0];
+
+	ConfigSnapshot current() {
+		return current;
+	}
+
+	synchronized void propertyBound(DynamicProperty<?> property) {
+		int slot = slots.size();
+		int chunk = slot >>> CHUNK_SHIFT;
+		if (chunk == propertyChunks.length) {
+			DynamicProperty<?>[][] newPropertyChunks = Arrays.copyOf(propertyChunks, chunk + 1);
+			newPropertyChunks[chunk] = new DynamicProperty<?>[CHUNK_SIZE];
+			AtomicLongArray[] newVersionChunks = Arrays.copyOf(versionChunks, chunk + 1);
+			newVersionChunks[chunk] = new AtomicLongArray(CHUNK_SIZE);
+			propertyChunks = newPropertyChunks;
+			versionChunks = newVersionChunks;
+		}
+		propertyChunks[chunk][slot & CHUNK_MASK] = property;
+		ConfigSnapshot next = current.withValue(slot, property.getCurrentValue());
+		logChange(slot, next.getVersion());
+		current = next;
+		slots.put(property, slot);
+	}
+
+	void propertyChanged(DynamicProperty<?> property) {
+		if (!UpdateBatch.isApplying()) {
+			publishChange(property);
+			return;
+		}
+		Set<DynamicProperty<?>> batch = batchedChanges.get();
+		if (batch == null) {
+			Set<DynamicProperty<?>> newBatch = new LinkedHashSet<>();
+			batchedChanges.set(newBatch);
+			UpdateBatch.schedule(() -> {
+				batchedChanges.remove();
+				publishChanges(newBatch);
+			});
+			batch = newBatch;
+		}
+		batch.add(property);
+	}
+
+	private synchronized void publishChange(DynamicProperty<?> property) {
+		Integer slot = slots.get(property);
+		if (slot == null) {
+			return;
+		}
+		// Read the current value rather than the one in the event, since events might be dispatched out of order
+		Object value = property.getCurrentValue();
+		if (!Objects.equals(value, current.getValue(slot))) {
+			ConfigSnapshot next = current.withValue(slot, value);
+			logChange(slot, next.getVersion());
+			current = next;
+		}
+	}
+
+	private synchronized void publishChanges(Collection<DynamicProperty<?>> properties) {
+		int[] changedSlots = new int[properties.size()];
+		Object[] values = new Object[properties.size()];
+		int count = 0;
+		for (DynamicProperty<?> property : properties) {
+			Integer slot = slots.get(property);
+			if (slot == null) {
+				continue;
+			}
+			Object value = property.getCurrentValue();
+			if (!Objects.equals(value, current.getValue(slot))) {
+				changedSlots[count] = slot;
+				values[count] = value;
+				count++;
+			}
+		}
+		if (count == 0) {
+			return;
+		}
+		ConfigSnapshot next = current.withValues(changedSlots, values, count);
+		logChanges(changedSlots, count, next.getVersion());
+		current = next;
+	}
+
+	private void logChange(int slot, long version) {
+		long entry = loggedChanges;
+		loggedVersion = version;
+		loggedChanges = entry + 1;
+		changeLog.set((int) entry & (CHANGE_LOG_SIZE - 1), slot);
+		versionChunks[slot >>> CHUNK_SHIFT].set(slot & CHUNK_MASK, version);
+		changeLogEnds.set((int) version & (CHANGE_LOG_SIZE - 1), entry + 1);
+	}
+
+	private void logChanges(int[] changedSlots, int count, long version) {
+		long entry = loggedChanges;
+		loggedVersion = version;
+		loggedChanges = entry + count;
+		for (int i = 0; i < count; i++) {
+			int slot = changedSlots[i];
+			changeLog.set((int) (entry + i) & (CHANGE_LOG_SIZE - 1), slot);
+			versionChunks[slot >>> CHUNK_SHIFT].set(slot & CHUNK_MASK, version);
+		}
+		changeLogEnds.set((int) version & (CHANGE_LOG_SIZE - 1), entry + count);
+	}
+
+	/**
+	 * The version at which the given property was bound or last changed value.
+	 *
+	 * @throws IllegalArgumentException if the property is not bound
+	 */
+	long versionOf(DynamicProperty<?> property) {
+		DynamicProperty<?> boundProperty = property instanceof DynamicOptionalProperty ? ((DynamicOptionalProperty<?>) property).getDelegate() : property;
+		Integer slot = slots.get(boundProperty);
+		if (slot == null) {
+			throw new IllegalArgumentException("Property is not bound: " + property);
+		}
+		return versionChunks[slot >>> CHUNK_SHIFT].get(slot & CHUNK_MASK);
+	}
+
+	/**
+	 * Returns the properties bound or changed after the given version, up to and including the version of
+	 * the given snapshot, in the order they changed. Falls back to scanning all slots when the versions are
+	 * no longer in the change log, in which case properties changed after the snapshot might be included.
+	 */
+	Set<DynamicProperty<?>> changedSince(long version, ConfigSnapshot snapshot) {
+		if (snapshot.getVersion() <= version) {
+			return Collections.emptySet();
+		}
+		Set<DynamicProperty<?>> changed = new LinkedHashSet<>();
+		DynamicProperty<?>[][] propertyChunks = this.propertyChunks;
+		if (snapshot.getVersion() - version < CHANGE_LOG_SIZE) {
+			long from = changeLogEnds.get((int) version & (CHANGE_LOG_SIZE - 1));
+			long to = changeLogEnds.get((int) snapshot.getVersion() & (CHANGE_LOG_SIZE - 1));
+			for (long entry = from; entry < to && entry - from < CHANGE_LOG_SIZE; entry++) {
+				int slot = changeLog.get((int) entry & (CHANGE_LOG_SIZE - 1));
+				changed.add(propertyChunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK]);
+			}
+			// The end of version is overwritten once version + CHANGE_LOG_SIZE is logged, and the entry
+			// at from once the entry at from + CHANGE_LOG_SIZE is logged
+			if (to - from <= CHANGE_LOG_SIZE && loggedVersion - version < CHANGE_LOG_SIZE && loggedChanges - from <= CHANGE_LOG_SIZE) {
+				return changed;
+			}
+			changed.clear();
+		}
+		AtomicLongArray[] versionChunks = this.versionChunks;
+		for (int slot = 0; slot < snapshot.size(); slot++) {
+			if (versionChunks[slot >>> CHUNK_SHIFT].get(slot & CHUNK_MASK) > version) {
+				changed.add(propertyChunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK]);
+			}
+		}
+		return changed;
+	}
+
+}
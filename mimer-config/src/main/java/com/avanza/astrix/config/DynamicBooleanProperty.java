@@ -26,6 +26,7 @@ import java.util.function.BooleanSupplier;
 public final class DynamicBooleanProperty implements DynamicProperty<Boolean>, BooleanSupplier {
 	
 	private final ListenerSupport<DynamicPropertyListener<Boolean>> listenerSupport = new ListenerSupport<>();
+	private final ListenerSupport<BooleanPropertyListener> primitiveListenerSupport = new ListenerSupport<>();
 	private volatile boolean value;
 	
 	public DynamicBooleanProperty() {
@@ -51,7 +52,11 @@ public final class DynamicBooleanProperty implements DynamicProperty<Boolean>, B
 	
 	public void set(boolean value) {
 		this.value = value;
-		this.listenerSupport.dispatchEvent(l -> l.propertyChanged(value));
+		this.primitiveListenerSupport.dispatchEvent(BooleanPropertyListener::propertyChanged, value);
+		if (!this.listenerSupport.isEmpty()) {
+			Boolean boxed = value;
+			this.listenerSupport.dispatchEvent(DynamicPropertyListener::propertyChanged, boxed);
+		}
 	}
 	
 	@Override
@@ -73,4 +78,15 @@ public final class DynamicBooleanProperty implements DynamicProperty<Boolean>, B
 	public void removeListener(DynamicPropertyListener<Boolean> listener) {
 		listenerSupport.removeListener(listener);
 	}
+
+	/**
+	 * Adds a listener that is notified without boxing the new value.
+	 */
+	public void addBooleanListener(BooleanPropertyListener listener) {
+		primitiveListenerSupport.addListener(listener);
+	}
+
+	public void removeBooleanListener(BooleanPropertyListener listener) {
+		primitiveListenerSupport.removeListener(listener);
+	}
 }
@@ -15,19 +15,44 @@
  */
 package com.avanza.astrix.config;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.toList;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This is an abstraction for a hierarchical set of configuration sources. Each property is resolved
@@ -35,25 +60,211 @@ import java.util.concurrent.ConcurrentMap;
  * 
  * Each {@link DynamicProperty} read is cached in the {@link DynamicConfig} instance. The first time a property
  * with a given name is read, an instance of the given {@link DynamicProperty} type is created, and its value is
- * bound to the underlying configuration sources.
+ * bound to the underlying configuration sources. <p>
+ * 
+ * Values may reference other properties using <code>${name}</code> or <code>${name:default}</code> placeholders,
+ * e.g. <code>service.url=http://${service.host}:${service.port}</code>. A value is resolved again each time a
+ * property it references changes.
  * 
  * @author Elias Lindholm (elilin)
  *
  */
 public final class DynamicConfig {
 
-	private final ConcurrentMap<CacheKey<? extends DynamicProperty<?>>, DynamicProperty<?>> configCache = new ConcurrentHashMap<>();
-	private final List<DynamicConfigSource> configSources;
-	private final ListenerSupport<DynamicConfigListener> dynamicConfigListenerSupport = new ListenerSupport<>();
+	private static final int BIND_BATCH_SIZE = 64;
+	private static final AtomicInteger settingSlots = new AtomicInteger();
+
+	private final ConcurrentMap<CacheKey<? extends DynamicProperty<?>>, PropertyBinding> configCache;
+	private final Map<ObjectPropertyKey, DynamicObjectProperty<?>> objectProperties;
+	private final ConfigSources configSources;
+	private final ListenerSupport<DynamicConfigListener> dynamicConfigListenerSupport;
+	private final ConfigSnapshotSupport snapshotSupport;
+	private final InterpolationGraph interpolationGraph;
+	private final String scope;
+	// Setting names are relative to the scope, hence each view has its own setting properties and lock
+	private final Object settingPropertiesLock = new Object();
+	private volatile AtomicReferenceArray<DynamicProperty<?>> settingProperties = new AtomicReferenceArray<>(settingSlots.get());
 
 	public DynamicConfig(ConfigSource configSource) {
 		this(singletonList(configSource));
 	}
 
 	public DynamicConfig(List<? extends ConfigSource> configSources) {
-		this.configSources = configSources.stream()
-				.map(configSource -> configSource instanceof DynamicConfigSource ? (DynamicConfigSource) configSource : new DynamicConfigSourceAdapter(configSource))
-				.collect(toList());
+		this.configCache = new ConcurrentHashMap<>();
+		this.objectProperties = new HashMap<>();
+		this.configSources = new ConfigSources(configSources);
+		this.dynamicConfigListenerSupport = new ListenerSupport<>();
+		this.snapshotSupport = new ConfigSnapshotSupport();
+		this.interpolationGraph = new InterpolationGraph((name, listener) -> bindValue(name, null, PropertyParser.STRING_PARSER, listener));
+		this.scope = "";
+	}
+
+	private DynamicConfig(DynamicConfig parent, String scope) {
+		this.configCache = parent.configCache;
+		this.objectProperties = parent.objectProperties;
+		this.configSources = parent.configSources;
+		this.dynamicConfigListenerSupport = parent.dynamicConfigListenerSupport;
+		this.snapshotSupport = parent.snapshotSupport;
+		this.interpolationGraph = parent.interpolationGraph;
+		this.scope = scope;
+	}
+
+	/**
+	 * Adapts each source to a {@link DynamicConfigSource}. Adjacent {@link StaticConfigSource}'s are
+	 * collapsed into a single {@link CompiledConfigSource}. Adapters in the given list of previously
+	 * adapted sources are reused for sources that are adapted the same way.
+	 */
+	private static List<DynamicConfigSource> toDynamicConfigSources(List<? extends ConfigSource> configSources, List<DynamicConfigSource> previous) {
+		List<DynamicConfigSource> result = new ArrayList<>(configSources.size());
+		List<StaticConfigSource> adjacentStaticSources = new ArrayList<>();
+		for (ConfigSource configSource : configSources) {
+			if (configSource instanceof StaticConfigSource) {
+				adjacentStaticSources.add((StaticConfigSource) configSource);
+				continue;
+			}
+			addCompiledConfigSource(result, adjacentStaticSources, previous);
+			if (configSource instanceof DynamicConfigSource) {
+				result.add((DynamicConfigSource) configSource);
+			} else {
+				DynamicConfigSourceAdapter adapter = findAdapter(previous, configSource);
+				result.add(adapter != null ? adapter : new DynamicConfigSourceAdapter(configSource));
+			}
+		}
+		addCompiledConfigSource(result, adjacentStaticSources, previous);
+		return result;
+	}
+
+	private static void addCompiledConfigSource(List<DynamicConfigSource> result, List<StaticConfigSource> staticSources, List<DynamicConfigSource> previous) {
+		if (!staticSources.isEmpty()) {
+			DynamicConfigSourceAdapter adapter = findAdapter(previous, staticSources);
+			result.add(adapter != null ? adapter : new DynamicConfigSourceAdapter(new CompiledConfigSource(staticSources)));
+			staticSources.clear();
+		}
+	}
+
+	private static DynamicConfigSourceAdapter findAdapter(List<DynamicConfigSource> previous, Object adaptedSources) {
+		for (DynamicConfigSource configSource : previous) {
+			if (configSource instanceof DynamicConfigSourceAdapter && ((DynamicConfigSourceAdapter) configSource).adapts(adaptedSources)) {
+				return (DynamicConfigSourceAdapter) configSource;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The sources of a DynamicConfig, shared with all its {@link #scoped(String)} views. <p>
+	 *
+	 * Binding a property holds the read lock, while changing the sources holds the write lock, hence
+	 * each property is either bound to the new sources or relinked when the sources change.
+	 */
+	private static final class ConfigSources {
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+		private final Queue<BoundChain<?>> boundChains = new ConcurrentLinkedQueue<>();
+		private volatile List<ConfigSource> declaredSources;
+		private volatile List<DynamicConfigSource> dynamicSources;
+
+		ConfigSources(List<? extends ConfigSource> configSources) {
+			this.declaredSources = unmodifiableList(new ArrayList<>(configSources));
+			this.dynamicSources = toDynamicConfigSources(configSources, emptyList());
+		}
+
+		@Override
+		public String toString() {
+			return dynamicSources.toString();
+		}
+	}
+
+	/**
+	 * Returns the sources of this instance, in order of precedence.
+	 */
+	public List<ConfigSource> getSources() {
+		return configSources.declaredSources;
+	}
+
+	/**
+	 * Inserts the given source at the given position among the sources of this instance, see {@link #setSources(List)}.
+	 */
+	public void addSource(int index, ConfigSource configSource) {
+		configSources.lock.writeLock().lock();
+		try {
+			List<ConfigSource> sources = new ArrayList<>(configSources.declaredSources);
+			sources.add(index, requireNonNull(configSource));
+			relinkSources(sources);
+		} finally {
+			configSources.lock.writeLock().unlock();
+		}
+		notifyRelinkedChains();
+	}
+
+	/**
+	 * Removes the given source from this instance, see {@link #setSources(List)}.
+	 *
+	 * @return true if the source was removed, false if it is not a source of this instance
+	 */
+	public boolean removeSource(ConfigSource configSource) {
+		configSources.lock.writeLock().lock();
+		try {
+			List<ConfigSource> sources = new ArrayList<>(configSources.declaredSources);
+			if (!sources.remove(configSource)) {
+				return false;
+			}
+			relinkSources(sources);
+		} finally {
+			configSources.lock.writeLock().unlock();
+		}
+		notifyRelinkedChains();
+		return true;
+	}
+
+	/**
+	 * Replaces the sources of this instance, and all of its {@link #scoped(String)} views. <p>
+	 *
+	 * Properties already read are relinked rather than recreated: each property only queries the
+	 * sources that are new to it, and the values already read from the other sources are kept.
+	 * Properties are unsubscribed from the sources they no longer resolve through. Listeners are only
+	 * notified for properties whose resolved value changes, after all properties are relinked and
+	 * without holding any lock.
+	 */
+	public void setSources(List<? extends ConfigSource> sources) {
+		configSources.lock.writeLock().lock();
+		try {
+			relinkSources(sources);
+		} finally {
+			configSources.lock.writeLock().unlock();
+		}
+		notifyRelinkedChains();
+	}
+
+	private void relinkSources(List<? extends ConfigSource> sources) {
+		List<DynamicConfigSource> dynamicSources = toDynamicConfigSources(sources, configSources.dynamicSources);
+		configSources.declaredSources = unmodifiableList(new ArrayList<>(sources));
+		configSources.dynamicSources = dynamicSources;
+		for (BoundChain<?> chain : configSources.boundChains) {
+			chain.relink(dynamicSources);
+		}
+	}
+
+	private void notifyRelinkedChains() {
+		for (BoundChain<?> chain : configSources.boundChains) {
+			chain.chain.initializeAndNotify();
+		}
+	}
+
+	/**
+	 * A chain bound to the sources, relinked each time the sources change.
+	 */
+	private final class BoundChain<T> {
+		private final DynamicPropertyChain<T> chain;
+		private final String name;
+
+		BoundChain(DynamicPropertyChain<T> chain, String name) {
+			this.chain = chain;
+			this.name = name;
+		}
+
+		void relink(List<DynamicConfigSource> sources) {
+			chain.relink(sources, configSource -> createLink(chain, name, configSource));
+		}
 	}
 
 	/**
@@ -71,16 +282,67 @@ public final class DynamicConfig {
 		return new DynamicConfig(sources);
 	}
 
-	private static class DynamicConfigSourceAdapter extends AbstractDynamicConfigSource {
+	/**
+	 * Returns a view of this DynamicConfig where all property names are resolved relative to the given
+	 * prefix, i.e. {@code config.scoped("service.routing.").getIntProperty("timeout", 100)} returns the
+	 * same {@link DynamicIntProperty} instance as {@code config.getIntProperty("service.routing.timeout", 100)}. <p>
+	 *
+	 * The view shares the property cache, configuration sources and {@link DynamicConfigListener}'s
+	 * with this instance. Creating a view is cheap and does not bind any properties.
+	 */
+	public DynamicConfig scoped(String prefix) {
+		return new DynamicConfig(this, scope + requireNonNull(prefix));
+	}
+
+	/**
+	 * Returns the names of all properties starting with the given prefix that are present in any
+	 * of the {@link EnumerableConfigSource}'s of this instance. Configuration sources that does not
+	 * support enumeration are ignored. <p>
+	 *
+	 * For a {@link #scoped(String)} view, both the prefix and the returned names are relative to the
+	 * scope of the view.
+	 */
+	public SortedSet<String> getPropertyNames(String prefix) {
+		String qualifiedPrefix = scope + prefix;
+		SortedSet<String> result = new TreeSet<>();
+		for (DynamicConfigSource configSource : configSources.dynamicSources) {
+			if (configSource instanceof EnumerableConfigSource) {
+				for (String propertyName : ((EnumerableConfigSource) configSource).getPropertiesWithPrefix(qualifiedPrefix).keySet()) {
+					result.add(propertyName.substring(scope.length()));
+				}
+			}
+		}
+		return result;
+	}
+
+	private static class DynamicConfigSourceAdapter extends AbstractDynamicConfigSource implements EnumerableConfigSource {
 		private final ConfigSource configSource;
 		public DynamicConfigSourceAdapter(ConfigSource configSource) {
 			this.configSource = configSource;
 		}
+
+		/**
+		 * Returns true if this adapts the given source, or the given list of compiled static sources.
+		 */
+		boolean adapts(Object adaptedSources) {
+			if (configSource instanceof CompiledConfigSource) {
+				return ((CompiledConfigSource) configSource).getConfigSources().equals(adaptedSources);
+			}
+			return configSource == adaptedSources;
+		}
 		@Override
 		public String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
 			return configSource.get(propertyName);
 		}
 
+		@Override
+		public SortedMap<String, String> getPropertiesWithPrefix(String prefix) {
+			if (configSource instanceof EnumerableConfigSource) {
+				return ((EnumerableConfigSource) configSource).getPropertiesWithPrefix(prefix);
+			}
+			return new TreeMap<>();
+		}
+
 		@Override
 		public String toString() {
 			return this.configSource.toString();
@@ -92,7 +354,7 @@ public final class DynamicConfig {
 	 * Reads a property of String type.
 	 */
 	public DynamicStringProperty getStringProperty(String name, String defaultValue) {
-		return getProperty(name, DynamicStringProperty.class, defaultValue, PropertyParser.STRING_PARSER);
+		return getProperty(name, DynamicStringProperty.class, DynamicStringProperty::new, defaultValue, PropertyParser.STRING_PARSER);
 	}
 
 	public DynamicOptionalProperty<String> getOptionalStringProperty(String name) {
@@ -100,32 +362,77 @@ public final class DynamicConfig {
 	}
 
 	public DynamicBooleanProperty getBooleanProperty(String name, boolean defaultValue) {
-		return getProperty(name, DynamicBooleanProperty.class, defaultValue, PropertyParser.BOOLEAN_PARSER);
+		return getProperty(name, DynamicBooleanProperty.class, DynamicBooleanProperty::new, defaultValue, PropertyParser.BOOLEAN_PARSER);
 	}
 
 	public DynamicOptionalProperty<Boolean> getOptionalBooleanProperty(String name) {
-		return new DynamicOptionalProperty<>(getProperty(name, DynamicNullableBooleanProperty.class, null, PropertyParser.BOOLEAN_PARSER));
+		return new DynamicOptionalProperty<>(getProperty(name, DynamicNullableBooleanProperty.class, DynamicNullableBooleanProperty::new, null, PropertyParser.BOOLEAN_PARSER));
 	}
 
 	public DynamicLongProperty getLongProperty(String name, long defaultValue) {
-		return getProperty(name, DynamicLongProperty.class, defaultValue, PropertyParser.LONG_PARSER);
+		return getProperty(name, DynamicLongProperty.class, DynamicLongProperty::new, defaultValue, PropertyParser.LONG_PARSER);
 	}
 
 	public DynamicOptionalProperty<Long> getOptionalLongProperty(String name) {
-		return new DynamicOptionalProperty<>(getProperty(name, DynamicNullableLongProperty.class, null, PropertyParser.LONG_PARSER));
+		return new DynamicOptionalProperty<>(getProperty(name, DynamicNullableLongProperty.class, DynamicNullableLongProperty::new, null, PropertyParser.LONG_PARSER));
 	}
 
 	public DynamicIntProperty getIntProperty(String name, int defaultValue) {
-		return getProperty(name, DynamicIntProperty.class, defaultValue, PropertyParser.INT_PARSER);
+		return getProperty(name, DynamicIntProperty.class, DynamicIntProperty::new, defaultValue, PropertyParser.INT_PARSER);
+	}
+
+	/**
+	 * Reads an int property whose value occupies a cache line of its own, intended for hot
+	 * properties read on many cores. See {@link PaddedIntProperty}.
+	 */
+	public PaddedIntProperty getPaddedIntProperty(String name, int defaultValue) {
+		return getProperty(name, PaddedIntProperty.class, PaddedIntProperty::new, defaultValue, PropertyParser.INT_PARSER);
+	}
+
+	/**
+	 * Reads a long property whose value occupies a cache line of its own, see {@link PaddedLongProperty}.
+	 */
+	public PaddedLongProperty getPaddedLongProperty(String name, long defaultValue) {
+		return getProperty(name, PaddedLongProperty.class, PaddedLongProperty::new, defaultValue, PropertyParser.LONG_PARSER);
+	}
+
+	/**
+	 * Reads a boolean property whose value occupies a cache line of its own, see {@link PaddedBooleanProperty}.
+	 */
+	public PaddedBooleanProperty getPaddedBooleanProperty(String name, boolean defaultValue) {
+		return getProperty(name, PaddedBooleanProperty.class, PaddedBooleanProperty::new, defaultValue, PropertyParser.BOOLEAN_PARSER);
+	}
+
+	/**
+	 * Reads a boolean property whose reads are compiled as a constant, intended for values that rarely
+	 * changes such as feature flags. See {@link StableBooleanProperty}.
+	 */
+	public StableBooleanProperty getStableBooleanProperty(String name, boolean defaultValue) {
+		return getProperty(name, StableBooleanProperty.class, StableBooleanProperty::new, defaultValue, PropertyParser.BOOLEAN_PARSER);
+	}
+
+	/**
+	 * Reads an int property whose reads are compiled as a constant, intended for values that rarely
+	 * changes. See {@link StableIntProperty}.
+	 */
+	public StableIntProperty getStableIntProperty(String name, int defaultValue) {
+		return getProperty(name, StableIntProperty.class, StableIntProperty::new, defaultValue, PropertyParser.INT_PARSER);
+	}
+
+	/**
+	 * Reads a property holding a percentage rollout rule, see {@link Rollout}.
+	 */
+	public DynamicRolloutProperty getRolloutProperty(String name, Rollout defaultValue) {
+		return getProperty(name, DynamicRolloutProperty.class, DynamicRolloutProperty::new, defaultValue, PropertyParser.ROLLOUT_PARSER);
 	}
 
 	public DynamicOptionalProperty<Integer> getOptionalIntegerProperty(String name) {
-		return new DynamicOptionalProperty<>(getProperty(name, DynamicNullableIntegerProperty.class, null, PropertyParser.INT_PARSER));
+		return new DynamicOptionalProperty<>(getProperty(name, DynamicNullableIntegerProperty.class, DynamicNullableIntegerProperty::new, null, PropertyParser.INT_PARSER));
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T extends Enum<T>> DynamicEnumProperty<T> getEnumProperty(String name, Class<T> enumClass, T defaultValue) {
-		return getProperty(name, DynamicEnumProperty.class, defaultValue, PropertyParser.enumParser(enumClass));
+		return getProperty(name, DynamicEnumProperty.class, DynamicEnumProperty::new, defaultValue, PropertyParser.enumParser(enumClass));
 	}
 
 	public <T extends Enum<T>> DynamicOptionalProperty<T> getOptionalEnumProperty(String name, Class<T> enumClass) {
@@ -134,47 +441,191 @@ public final class DynamicConfig {
 
 	@SuppressWarnings("unchecked")
 	public DynamicListProperty<String> getStringListProperty(String name, List<String> defaultValue) {
-		return getProperty(name, DynamicListProperty.class, defaultValue, PropertyParser.STRING_LIST_PARSER);
+		return getProperty(name, DynamicListProperty.class, DynamicListProperty::new, defaultValue, PropertyParser.STRING_LIST_PARSER);
 	}
 
 	@SuppressWarnings("unchecked")
 	public DynamicListProperty<Integer> getIntListProperty(String name, List<Integer> defaultValue) {
-		return getProperty(name, DynamicListProperty.class, defaultValue, PropertyParser.INT_LIST_PARSER);
+		return getProperty(name, DynamicListProperty.class, DynamicListProperty::new, defaultValue, PropertyParser.INT_LIST_PARSER);
 	}
 
 	@SuppressWarnings("unchecked")
 	public DynamicListProperty<Long> getLongListProperty(String name, List<Long> defaultValue) {
-		return getProperty(name, DynamicListProperty.class, defaultValue, PropertyParser.LONG_LIST_PARSER);
+		return getProperty(name, DynamicListProperty.class, DynamicListProperty::new, defaultValue, PropertyParser.LONG_LIST_PARSER);
 	}
 
 	@SuppressWarnings("unchecked")
 	public DynamicListProperty<Boolean> getBooleanListProperty(String name, List<Boolean> defaultValue) {
-		return getProperty(name, DynamicListProperty.class, defaultValue, PropertyParser.BOOLEAN_LIST_PARSER);
+		return getProperty(name, DynamicListProperty.class, DynamicListProperty::new, defaultValue, PropertyParser.BOOLEAN_LIST_PARSER);
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T extends Enum<T>> DynamicListProperty<T> getEnumListProperty(String name, Class<T> enumClass, List<T> defaultValue) {
-		return getProperty(name, DynamicListProperty.class, defaultValue, PropertyParser.enumListParser(enumClass));
+		return getProperty(name, DynamicListProperty.class, DynamicListProperty::new, defaultValue, PropertyParser.enumListParser(enumClass));
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T extends Enum<T>> DynamicSetProperty<T> getEnumSetProperty(String name, Class<T> enumClass, Set<T> defaultValue) {
-		return getProperty(name, DynamicSetProperty.class, defaultValue, PropertyParser.enumSetParser(enumClass));
+		return getProperty(name, DynamicSetProperty.class, DynamicSetProperty::new, defaultValue, PropertyParser.enumSetParser(enumClass));
+	}
+
+	/**
+	 * Reads a property holding an object built from the properties with the given names. The
+	 * factory reads the properties from the given {@link ConfigReader}, and is invoked once when the
+	 * property is created and once each time any of the properties change, see {@link DynamicObjectProperty}
+	 * for which changes results in a single invocation. <p>
+	 *
+	 * Like other properties, the property is cached, but the factory is compared by identity: reading it
+	 * again with the same factory instance and names returns the same property. A factory created on each
+	 * call, for instance a lambda capturing a local variable or a method reference bound to an instance,
+	 * creates a new property on each call, which subscribes to the sources for as long as this instance
+	 * lives. Hence the factory must be a constant, such as a static field or a lambda that does not capture
+	 * any variables. The properties are bound without being cached as {@link DynamicStringProperty}'s,
+	 * so they do not affect the default values of properties read with the same names.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> DynamicObjectProperty<T> getObjectProperty(Function<ConfigReader, T> factory, String... names) {
+		List<String> qualifiedNames = new ArrayList<>(names.length);
+		for (String name : names) {
+			qualifiedNames.add(scope + name);
+		}
+		ObjectPropertyKey key = new ObjectPropertyKey(factory, qualifiedNames);
+		// Object properties are few and created at startup, hence they are created under a single lock
+		synchronized (objectProperties) {
+			DynamicObjectProperty<?> property = objectProperties.get(key);
+			if (property == null) {
+				property = DynamicObjectProperty.create(factory, Arrays.asList(names),
+						(name, listener) -> bindValue(name, null, PropertyParser.STRING_PARSER, listener));
+				objectProperties.put(key, property);
+			}
+			return (DynamicObjectProperty<T>) property;
+		}
 	}
 
-	private <T, P extends DynamicProperty<T>> P getProperty(String name, Class<P> propertyType, T defaultValue, PropertyParser<T> propertyParser) {
+	private <T, P extends DynamicProperty<T>> P getProperty(String relativeName, Class<P> propertyType, Supplier<P> propertyFactory, T defaultValue, PropertyParser<T> propertyParser) {
+		String name = scope + relativeName;
 		return getOrCreate(propertyType, name, () ->
-				bindPropertyToConfigurationSources(name, propertyType.getDeclaredConstructor().newInstance(), defaultValue, propertyParser));
+				bindPropertyToConfigurationSources(name, propertyFactory.get(), defaultValue, propertyParser));
 	}
 
 	private <T, P extends DynamicProperty<T>> P bindPropertyToConfigurationSources(String name, P property, T defaultValue, PropertyParser<T> propertyParser) {
-		DynamicPropertyChain<T> chain = createPropertyChain(name, defaultValue, propertyParser);
-		chain.bindTo(property::setValue);
-		notifyPropertyCreated(name, property.getCurrentValue());
-		property.addListener(newValue -> notifyPropertyChanged(name, newValue));
+		bindChain(name, defaultValue, propertyParser, chain -> bindProperty(chain, property));
+		// Primitive properties are updated, and notify DynamicConfigListener's, without boxing unless necessary
+		if (property instanceof DynamicIntProperty) {
+			((DynamicIntProperty) property).addIntListener(newValue -> {
+				snapshotSupport.propertyChanged(property);
+				if (!dynamicConfigListenerSupport.isEmpty()) {
+					notifyPropertyChanged(name, newValue);
+				}
+			});
+		} else if (property instanceof DynamicLongProperty) {
+			((DynamicLongProperty) property).addLongListener(newValue -> {
+				snapshotSupport.propertyChanged(property);
+				if (!dynamicConfigListenerSupport.isEmpty()) {
+					notifyPropertyChanged(name, newValue);
+				}
+			});
+		} else if (property instanceof DynamicBooleanProperty) {
+			((DynamicBooleanProperty) property).addBooleanListener(newValue -> {
+				snapshotSupport.propertyChanged(property);
+				if (!dynamicConfigListenerSupport.isEmpty()) {
+					notifyPropertyChanged(name, newValue);
+				}
+			});
+		} else if (property instanceof PaddedIntProperty) {
+			((PaddedIntProperty) property).addIntListener(newValue -> {
+				snapshotSupport.propertyChanged(property);
+				if (!dynamicConfigListenerSupport.isEmpty()) {
+					notifyPropertyChanged(name, newValue);
+				}
+			});
+		} else if (property instanceof PaddedLongProperty) {
+			((PaddedLongProperty) property).addLongListener(newValue -> {
+				snapshotSupport.propertyChanged(property);
+				if (!dynamicConfigListenerSupport.isEmpty()) {
+					notifyPropertyChanged(name, newValue);
+				}
+			});
+		} else if (property instanceof PaddedBooleanProperty) {
+			((PaddedBooleanProperty) property).addBooleanListener(newValue -> {
+				snapshotSupport.propertyChanged(property);
+				if (!dynamicConfigListenerSupport.isEmpty()) {
+					notifyPropertyChanged(name, newValue);
+				}
+			});
+		} else {
+			property.addListener(newValue -> {
+				snapshotSupport.propertyChanged(property);
+				notifyPropertyChanged(name, newValue);
+			});
+		}
+		// Bound after the listener is added, hence a change in between is either ignored as unbound or part of the bound value
+		snapshotSupport.propertyBound(property);
 		return property;
 	}
 
+	private static <T> void bindProperty(DynamicPropertyChain<T> chain, DynamicProperty<T> property) {
+		if (property instanceof DynamicIntProperty) {
+			DynamicIntProperty intProperty = (DynamicIntProperty) property;
+			chain.bindPrimitiveTo(value -> intProperty.set((int) value));
+		} else if (property instanceof DynamicLongProperty) {
+			DynamicLongProperty longProperty = (DynamicLongProperty) property;
+			chain.bindPrimitiveTo(longProperty::set);
+		} else if (property instanceof DynamicBooleanProperty) {
+			DynamicBooleanProperty booleanProperty = (DynamicBooleanProperty) property;
+			chain.bindPrimitiveTo(value -> booleanProperty.set(value != 0));
+		} else if (property instanceof PaddedIntProperty) {
+			PaddedIntProperty intProperty = (PaddedIntProperty) property;
+			chain.bindPrimitiveTo(value -> intProperty.set((int) value));
+		} else if (property instanceof PaddedLongProperty) {
+			PaddedLongProperty longProperty = (PaddedLongProperty) property;
+			chain.bindPrimitiveTo(longProperty::set);
+		} else if (property instanceof PaddedBooleanProperty) {
+			PaddedBooleanProperty booleanProperty = (PaddedBooleanProperty) property;
+			chain.bindPrimitiveTo(value -> booleanProperty.set(value != 0));
+		} else {
+			chain.bindTo(property::setValue);
+		}
+	}
+
+	/**
+	 * Binds the resolved value of a property directly to a listener, without creating a {@link DynamicProperty}.
+	 * The listener is notified synchronously with the current value. Values bound this way are not part of
+	 * snapshots and are not reported to {@link DynamicConfigListener}'s, see {@link FlagRegistry}.
+	 */
+	<T> void bindValue(String relativeName, T defaultValue, PropertyParser<T> propertyParser, DynamicPropertyChainListener<T> listener) {
+		bindChain(scope + relativeName, defaultValue, propertyParser, chain -> chain.bindTo(listener));
+	}
+
+	/**
+	 * Links a new chain to the sources while holding the read lock, but resolves placeholders in its values, see
+	 * {@link InterpolationGraph}, and notifies the binder after releasing it. If binding fails, the links already
+	 * subscribed to the sources are detached before the failure is rethrown.
+	 */
+	private <T> void bindChain(String name, T defaultValue, PropertyParser<T> propertyParser, Consumer<DynamicPropertyChain<T>> binder) {
+		BoundChain<T> boundChain = new BoundChain<>(DynamicPropertyChain.createWithDefaultValue(defaultValue, propertyParser), name);
+		configSources.lock.readLock().lock();
+		try {
+			boundChain.relink(configSources.dynamicSources);
+			configSources.boundChains.add(boundChain);
+		} finally {
+			configSources.lock.readLock().unlock();
+		}
+		try {
+			boundChain.chain.initializeAndNotify();
+			binder.accept(boundChain.chain);
+		} catch (RuntimeException | Error e) {
+			configSources.lock.readLock().lock();
+			try {
+				configSources.boundChains.remove(boundChain);
+				boundChain.chain.detach();
+			} finally {
+				configSources.lock.readLock().unlock();
+			}
+			throw e;
+		}
+	}
+
 	private <T> void notifyPropertyCreated(String propertyName, T initialValue) {
 		dynamicConfigListenerSupport.dispatchEvent(listener -> listener.propertyCreated(propertyName, initialValue));
 	}
@@ -183,27 +634,252 @@ public final class DynamicConfig {
 		dynamicConfigListenerSupport.dispatchEvent(listener -> listener.propertyChanged(propertyNAme, newValue));
 	}
 
-	private <T> DynamicPropertyChain<T> createPropertyChain(String name, T defaultValue, PropertyParser<T> propertyParser) {
-		DynamicPropertyChain<T> chain = DynamicPropertyChain.createWithDefaultValue(defaultValue, propertyParser);
-		for (DynamicConfigSource configSource : configSources) {
-			DynamicConfigProperty<T> newValueInChain = chain.appendValue();
-			// bind newValueInChain to configuration property in source
-			String propertyValue = configSource.get(name, newValueInChain);
-			newValueInChain.set(propertyValue);
+	private <T> DynamicConfigProperty<T> createLink(DynamicPropertyChain<T> chain, String name, DynamicConfigSource configSource) {
+		BindTimer bindTimer = BindTimer.CURRENT.get();
+		if (bindTimer == null || bindTimer.timing) {
+			// Links created by a source that reads config while being read are included in the time of the outermost link
+			return createUntimedLink(chain, name, configSource);
+		}
+		bindTimer.timing = true;
+		long start = System.nanoTime();
+		try {
+			return createUntimedLink(chain, name, configSource);
+		} finally {
+			bindTimer.record(configSource, System.nanoTime() - start);
+			bindTimer.timing = false;
+		}
+	}
+
+	private <T> DynamicConfigProperty<T> createUntimedLink(DynamicPropertyChain<T> chain, String name, DynamicConfigSource configSource) {
+		if (configSource instanceof DynamicConfigSourceAdapter) {
+			// A non-dynamic source never notifies changes, so it only needs a place in the chain when it holds a value
+			String propertyValue = configSource.get(name);
+			if (propertyValue == null) {
+				return null;
+			}
+			DynamicConfigProperty<T> valueInChain = chain.newValue();
+			valueInChain.interpolateWith(name, interpolationGraph);
+			valueInChain.setInitialValue(propertyValue);
+			return valueInChain;
+		}
+		DynamicConfigProperty<T> newValueInChain = chain.newValue();
+		newValueInChain.interpolateWith(name, interpolationGraph);
+		// bind newValueInChain to configuration property in source
+		String propertyValue = configSource.get(name, newValueInChain);
+		newValueInChain.unsubscribeOnDetach(() -> configSource.removeListener(name, newValueInChain));
+		newValueInChain.setInitialValue(propertyValue);
+		return newValueInChain;
+	}
+
+	/**
+	 * Binds all given settings in parallel using the common {@link ForkJoinPool}, see {@link #bindAll(Collection, ForkJoinPool)}.
+	 */
+	public BindReport bindAll(Collection<? extends Setting<?>> settings) {
+		return bindAll(settings, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Binds all given settings in parallel using the given pool. The settings are split into tasks of at
+	 * most 64 settings, and each task binds its settings against all sources in order of precedence, since
+	 * a property is bound to every source at once. Hence the work is not grouped by source, and a slow
+	 * source is read from all threads in parallel. This is intended for startup, when a large number of
+	 * settings are read for the first time. {@link DynamicConfigListener}'s are notified from the threads
+	 * in the pool. <p>
+	 *
+	 * The returned report holds the total time spent binding the settings, and the time spent in each source.
+	 */
+	public BindReport bindAll(Collection<? extends Setting<?>> settings, ForkJoinPool pool) {
+		return bindAll(settings, (settingList, sourceNanos) -> pool.invoke(new BindTask(settingList, 0, settingList.size(), BIND_BATCH_SIZE, sourceNanos)));
+	}
+
+	/**
+	 * Binds all given settings in the calling thread, see {@link #bindAll(Collection, ForkJoinPool)}. This
+	 * is intended for small groups of settings, such as the settings of a {@link ConfigInterface}, where
+	 * handing the work to a pool costs more than binding the settings.
+	 */
+	public BindReport bindAllInCallingThread(Collection<? extends Setting<?>> settings) {
+		return bindAll(settings, (settingList, sourceNanos) -> new BindTask(settingList, 0, settingList.size(), Integer.MAX_VALUE, sourceNanos).compute());
+	}
+
+	private BindReport bindAll(Collection<? extends Setting<?>> settings, BiConsumer<List<Setting<?>>, Map<DynamicConfigSource, LongAdder>> binder) {
+		List<Setting<?>> settingList = new ArrayList<>(settings);
+		Map<DynamicConfigSource, LongAdder> sourceNanos = new ConcurrentHashMap<>();
+		long start = System.nanoTime();
+		binder.accept(settingList, sourceNanos);
+		Duration totalTime = Duration.ofNanos(System.nanoTime() - start);
+		Map<ConfigSource, Duration> sourceTimes = new LinkedHashMap<>();
+		for (DynamicConfigSource configSource : configSources.dynamicSources) {
+			LongAdder nanos = sourceNanos.get(configSource);
+			ConfigSource reportedSource = configSource instanceof DynamicConfigSourceAdapter ? ((DynamicConfigSourceAdapter) configSource).configSource : configSource;
+			sourceTimes.put(reportedSource, Duration.ofNanos(nanos == null ? 0 : nanos.sum()));
+		}
+		return new BindReport(settingList.size(), totalTime, sourceTimes);
+	}
+
+	private final class BindTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final List<Setting<?>> settings;
+		private final int from;
+		private final int to;
+		private final int batchSize;
+		private final Map<DynamicConfigSource, LongAdder> sourceNanos;
+
+		BindTask(List<Setting<?>> settings, int from, int to, int batchSize, Map<DynamicConfigSource, LongAdder> sourceNanos) {
+			this.settings = settings;
+			this.from = from;
+			this.to = to;
+			this.batchSize = batchSize;
+			this.sourceNanos = sourceNanos;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > batchSize) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new BindTask(settings, from, middle, batchSize, sourceNanos), new BindTask(settings, middle, to, batchSize, sourceNanos));
+				return;
+			}
+			BindTimer bindTimer = new BindTimer();
+			BindTimer.CURRENT.set(bindTimer);
+			try {
+				for (Setting<?> setting : settings.subList(from, to)) {
+					setting.getFrom(DynamicConfig.this);
+				}
+			} finally {
+				BindTimer.CURRENT.remove();
+				bindTimer.nanosBySource.forEach((configSource, nanos) -> sourceNanos.computeIfAbsent(configSource, key -> new LongAdder()).add(nanos));
+			}
+		}
+	}
+
+	/**
+	 * Sums the time spent creating links to each source in the current thread, while it binds a batch in {@link #bindAll(Collection)}.
+	 */
+	private static final class BindTimer {
+		private static final ThreadLocal<BindTimer> CURRENT = new ThreadLocal<>();
+		private final Map<DynamicConfigSource, Long> nanosBySource = new IdentityHashMap<>();
+		private boolean timing;
+
+		void record(DynamicConfigSource configSource, long nanos) {
+			nanosBySource.merge(configSource, nanos, Long::sum);
 		}
-		return chain;
 	}
 
 	public static DynamicConfig merged(DynamicConfig dynamicConfigA, DynamicConfig dynamicConfigB) {
-		List<ConfigSource> merged = new ArrayList<>(dynamicConfigA.configSources.size() + dynamicConfigB.configSources.size());
-		merged.addAll(dynamicConfigA.configSources);
-		merged.addAll(dynamicConfigB.configSources);
+		List<ConfigSource> merged = new ArrayList<>(dynamicConfigA.getSources());
+		merged.addAll(dynamicConfigB.getSources());
 		return new DynamicConfig(merged);
 	}
 
+	/**
+	 * Allocates a process wide slot for a {@link Setting}. Each DynamicConfig keeps the property
+	 * bound to a setting at its slot, hence resolving a setting that has been read before is an
+	 * array read rather than a cache lookup. <p>
+	 *
+	 * Slots are never reclaimed, and the array of each DynamicConfig grows to cover every slot
+	 * allocated so far once a new setting is read from it, hence settings must be static constants,
+	 * see {@link Setting}.
+	 */
+	static int allocateSettingSlot() {
+		return settingSlots.getAndIncrement();
+	}
+
+	/**
+	 * Returns the property bound to the setting with the given slot, binding it using the
+	 * given binder the first time the setting is read from this instance.
+	 */
+	@SuppressWarnings("unchecked")
+	<S extends Setting<?>, P extends DynamicProperty<?>> P getSettingProperty(int slot, S setting, BiFunction<S, DynamicConfig, P> binder) {
+		AtomicReferenceArray<DynamicProperty<?>> settingProperties = this.settingProperties;
+		if (slot < settingProperties.length()) {
+			DynamicProperty<?> property = settingProperties.get(slot);
+			if (property != null) {
+				return (P) property;
+			}
+		}
+		P property = binder.apply(setting, this);
+		setSettingProperty(slot, property);
+		return property;
+	}
+
+	private void setSettingProperty(int slot, DynamicProperty<?> property) {
+		synchronized (settingPropertiesLock) {
+			AtomicReferenceArray<DynamicProperty<?>> settingProperties = this.settingProperties;
+			if (slot >= settingProperties.length()) {
+				AtomicReferenceArray<DynamicProperty<?>> grown = new AtomicReferenceArray<>(Math.max(settingSlots.get(), 2 * settingProperties.length()));
+				for (int i = 0; i < settingProperties.length(); i++) {
+					grown.set(i, settingProperties.get(i));
+				}
+				grown.set(slot, property);
+				this.settingProperties = grown;
+			} else {
+				settingProperties.set(slot, property);
+			}
+		}
+	}
+
+	/**
+	 * Returns the current value of each property read from this instance, as read from the
+	 * source it resolves to, with placeholders resolved. Properties that resolve to their default
+	 * value are omitted, hence the result only holds values that came from a source.
+	 */
+	Map<String, String> getResolvedValues() {
+		Map<String, String> result = new HashMap<>();
+		for (BoundChain<?> boundChain : configSources.boundChains) {
+			String value = boundChain.chain.getSourceValue();
+			if (value != null) {
+				result.putIfAbsent(boundChain.name, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns an immutable view of the values of all properties read from this instance, and
+	 * its {@link #scoped(String)} views, as of one instant. <p>
+	 *
+	 * Taking a snapshot is cheap enough to do on each request, and snapshots with the same
+	 * {@link ConfigSnapshot#getVersion() version} hold the same values, which allows reusing
+	 * state derived from a previous snapshot.
+	 */
+	public ConfigSnapshot snapshot() {
+		return snapshotSupport.current();
+	}
+
+	/**
+	 * The current version of this config, which increases each time a property read from this instance,
+	 * or its {@link #scoped(String)} views, is bound or changes value. Reading it is a single volatile read.
+	 */
+	public long version() {
+		return snapshotSupport.current().getVersion();
+	}
+
+	/**
+	 * The version at which the given property was read or last changed value, see {@link #version()}.
+	 *
+	 * @throws IllegalArgumentException if the property was not read from this config
+	 */
+	public long versionOf(DynamicProperty<?> property) {
+		return snapshotSupport.versionOf(property);
+	}
+
+	/**
+	 * Returns the properties read or changed after the given version, see {@link #version()}.
+	 */
+	public Set<DynamicProperty<?>> changedSince(long version) {
+		return snapshotSupport.changedSince(version, snapshotSupport.current());
+	}
+
+	/**
+	 * Creates a {@link ChangeCursor} positioned at the current version.
+	 */
+	public ChangeCursor changeCursor() {
+		return new ChangeCursor(snapshotSupport);
+	}
+
 	@Override
 	public String toString() {
-		return this.configSources.toString();
+		return scope.isEmpty() ? this.configSources.toString() : scope + "* " + this.configSources;
 	}
 
 	/**
@@ -216,22 +892,143 @@ public final class DynamicConfig {
 	 * The listener receives a "propertyCreated" each time a new property
 	 * is created in this {@link DynamicConfig} instance (i.e. the first time
 	 * a property with a given name is read).
+	 * 
+	 * Listeners are shared with all {@link #scoped(String)} views, and
+	 * always receive fully qualified property names.
 	 */
 	public void addListener(DynamicConfigListener l) {
 		this.dynamicConfigListenerSupport.addListener(l);
 	}
 
+	/**
+	 * Removes a listener added by {@link #addListener(DynamicConfigListener)}, either to this
+	 * instance or to any {@link #scoped(String)} view sharing its listeners.
+	 */
+	public void removeListener(DynamicConfigListener l) {
+		this.dynamicConfigListenerSupport.removeListener(l);
+	}
+
+	/**
+	 * Returns the cached property with the given type and name, creating it using the given factory
+	 * if it is not read before. <p>
+	 *
+	 * The cache only holds a placeholder while a property is created, so querying the sources and
+	 * notifying listeners never happens while holding a lock in the cache. Concurrent readers of the
+	 * same property wait for the thread creating it, while readers of other properties are unaffected.
+	 * If creating the property fails, the placeholder is removed, hence the next read tries again, and
+	 * the readers already waiting for it fail with the same cause.
+	 */
 	@SuppressWarnings("unchecked")
-	private <T extends DynamicProperty<?>> T getOrCreate(Class<T> type, String name, Callable<T> objectFactory) {
-		return (T) configCache.computeIfAbsent(new CacheKey<>(type, name), key -> {
-			try {
-				return objectFactory.call();
-			} catch (RuntimeException exception) {
-				throw exception;
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
+	private <T extends DynamicProperty<?>> T getOrCreate(Class<T> type, String name, Supplier<T> objectFactory) {
+		CacheKey<T> key = new CacheKey<>(type, name);
+		PropertyBinding binding = configCache.get(key);
+		if (binding == null) {
+			PropertyBinding newBinding = new PropertyBinding(key.name);
+			binding = configCache.putIfAbsent(key, newBinding);
+			if (binding == null) {
+				return bind(key, newBinding, objectFactory);
+			}
+		}
+		return (T) binding.await();
+	}
+
+	private <T extends DynamicProperty<?>> T bind(CacheKey<T> key, PropertyBinding binding, Supplier<T> objectFactory) {
+		T property;
+		try {
+			property = objectFactory.get();
+		} catch (RuntimeException | Error e) {
+			configCache.remove(key, binding);
+			binding.fail(e);
+			throw e;
+		}
+		binding.complete(property);
+		notifyPropertyCreated(key.name, property.getCurrentValue());
+		return property;
+	}
+
+	/**
+	 * Placeholder for a property in the cache, holding the property once it is bound.
+	 */
+	private static final class PropertyBinding {
+		private final String name;
+		private final CountDownLatch bound = new CountDownLatch(1);
+		private volatile Thread owner = Thread.currentThread();
+		private volatile DynamicProperty<?> property;
+		private volatile Throwable failure;
+
+		PropertyBinding(String name) {
+			this.name = name;
+		}
+
+		void complete(DynamicProperty<?> property) {
+			this.property = property;
+			this.owner = null;
+			this.bound.countDown();
+		}
+
+		void fail(Throwable failure) {
+			this.failure = failure;
+			this.owner = null;
+			this.bound.countDown();
+		}
+
+		/**
+		 * Waits for the property to be bound.
+		 *
+		 * @throws IllegalStateException if binding the property failed in the thread creating it
+		 */
+		DynamicProperty<?> await() {
+			DynamicProperty<?> result = this.property;
+			if (result != null) {
+				return result;
+			}
+			if (owner == Thread.currentThread()) {
+				throw new IllegalStateException("Property " + name + " is read while it is created, possibly by a ConfigSource or a DynamicConfigListener");
+			}
+			boolean interrupted = false;
+			while (true) {
+				try {
+					bound.await();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure != null) {
+				throw new IllegalStateException("Failed to create property " + name, failure);
+			}
+			return this.property;
+		}
+	}
+
+	private static final class ObjectPropertyKey {
+		private final Function<ConfigReader, ?> factory;
+		private final List<String> names;
+
+		ObjectPropertyKey(Function<ConfigReader, ?> factory, List<String> names) {
+			this.factory = requireNonNull(factory);
+			this.names = names;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
 			}
-		});
+			if (other == null || getClass() != other.getClass()) {
+				return false;
+			}
+			ObjectPropertyKey key = (ObjectPropertyKey) other;
+			return factory == key.factory && names.equals(key.names);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(factory) + names.hashCode();
+		}
 	}
 
 	private static final class CacheKey<T> {
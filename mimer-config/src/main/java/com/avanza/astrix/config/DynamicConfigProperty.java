@@ -29,34 +29,160 @@ final class DynamicConfigProperty<T> implements DynamicPropertyListener<String>
 	private final Logger logger = LoggerFactory.getLogger(DynamicConfigProperty.class);
 	private final DynamicPropertyListener<DynamicConfigProperty<T>> propertyChangeListener;
 	private final PropertyParser<T> parser;
+	// Values parsed by a PrimitiveParser are kept unboxed, with primitiveSet published after primitiveValue
+	private final PropertyParser.PrimitiveParser<T> primitiveParser;
 	private volatile T value = null;
+	private volatile long primitiveValue;
+	private volatile boolean primitiveSet = false;
+	private volatile boolean detached = false;
+	private volatile String rawValue = null;
+	private volatile String resolvedValue = null;
+	private volatile String name = null;
+	private volatile InterpolationGraph interpolationGraph = null;
+	private volatile boolean interpolated = false;
+	private volatile Runnable subscription = null;
+	private volatile String initialValue = null;
+	private volatile boolean initialValuePending = false;
+	private volatile boolean everSet = false;
 
+	@SuppressWarnings("unchecked")
 	private DynamicConfigProperty(DynamicPropertyListener<DynamicConfigProperty<T>> propertyChangeListener, PropertyParser<T> propertyParser) {
 		this.propertyChangeListener = propertyChangeListener;
 		this.parser = propertyParser;
+		this.primitiveParser = propertyParser instanceof PropertyParser.PrimitiveParser ? (PropertyParser.PrimitiveParser<T>) propertyParser : null;
 	}
 	
 	public T get() {
+		if (primitiveParser != null) {
+			return primitiveSet ? primitiveParser.box(primitiveValue) : null;
+		}
 		return this.value;
 	}
+
+	/**
+	 * The current value of a property with a primitive parser, only valid when {@link #isSet()}.
+	 */
+	long getLong() {
+		return this.primitiveValue;
+	}
 	
+	/**
+	 * The value last set in its string form, with placeholders resolved, only valid when {@link #isSet()}.
+	 */
+	String getResolvedValue() {
+		return this.resolvedValue;
+	}
+
 	boolean isSet() {
-		return this.value != null;
+		return primitiveParser != null ? this.primitiveSet : this.value != null;
 	}
 	
 	public void set(String value) {
+		this.initialValuePending = false;
+		this.everSet = true;
+		if (detached) {
+			return;
+		}
+		this.rawValue = value;
+		InterpolationGraph interpolationGraph = this.interpolationGraph;
+		String resolvedValue = interpolationGraph != null ? interpolationGraph.interpolate(name, value, this) : value;
 		try {
-			if (value != null) {
-				this.value = parser.parse(value);
+			if (primitiveParser != null) {
+				if (resolvedValue != null) {
+					this.primitiveValue = primitiveParser.parseLong(resolvedValue);
+					this.primitiveSet = true;
+				} else {
+					this.primitiveSet = false;
+				}
+			} else if (resolvedValue != null) {
+				this.value = parser.parse(resolvedValue);
 			} else {
 				this.value = null;
 			}
+			this.resolvedValue = resolvedValue;
 			propertyChangeListener.propertyChanged(this);
 		} catch (Exception e) {
-			logger.error("Failed to parse: {}", value, e);
+			logger.error("Failed to parse: {}", resolvedValue, e);
+		}
+	}
+
+	/**
+	 * Holds the given value, read from the source when this property was linked, until {@link #initialize()}.
+	 * This allows linking while holding the sources lock, and resolving placeholders and notifying listeners
+	 * after releasing it. A value set by the source in between takes precedence.
+	 */
+	void setInitialValue(String value) {
+		if (everSet) {
+			return;
 		}
+		this.initialValue = value;
+		this.initialValuePending = true;
+	}
+
+	/**
+	 * Sets the value held by {@link #setInitialValue(String)}, unless the source has set a value since.
+	 */
+	void initialize() {
+		if (initialValuePending) {
+			String value = this.initialValue;
+			this.initialValue = null;
+			set(value);
+		}
+	}
+
+	/**
+	 * Resolves placeholders in the values of this property, which is part of the chain of the property with the
+	 * given name, using the given graph. Must be invoked before the first value is set.
+	 */
+	void interpolateWith(String name, InterpolationGraph interpolationGraph) {
+		this.name = name;
+		this.interpolationGraph = interpolationGraph;
+	}
+
+	/**
+	 * Resolves the placeholders in the current value of this property again.
+	 */
+	void reevaluate() {
+		set(this.rawValue);
+	}
+
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * Whether the current value of this property references other properties, maintained by {@link InterpolationGraph}.
+	 */
+	boolean isInterpolated() {
+		return interpolated;
+	}
+
+	void setInterpolated(boolean interpolated) {
+		this.interpolated = interpolated;
 	}
 	
+	/**
+	 * Sets the action that stops the source of this property from notifying it, invoked when it is detached.
+	 */
+	void unsubscribeOnDetach(Runnable subscription) {
+		this.subscription = subscription;
+	}
+
+	/**
+	 * Removes this property from its chain and unsubscribes it from its source. A detached property
+	 * ignores all later changes, in case the source keeps notifying it.
+	 */
+	void detach() {
+		this.detached = true;
+		this.value = null;
+		this.primitiveSet = false;
+		Runnable subscription = this.subscription;
+		if (subscription != null) {
+			this.subscription = null;
+			subscription.run();
+		}
+	}
+
 	@Override
 	public void propertyChanged(String newValue) {
 		set(newValue);
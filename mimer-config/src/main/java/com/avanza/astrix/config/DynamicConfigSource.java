@@ -35,4 +35,14 @@ public interface DynamicConfigSource extends ConfigSource {
 	 */
 	String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener);
 
+	/**
+	 * Stops notifying the given listener, previously registered by {@link #get(String, DynamicPropertyListener)},
+	 * about changes to the given property. {@link DynamicConfig} invokes this when a source is removed, or a property
+	 * otherwise stops resolving through this source. <p>
+	 *
+	 * The default implementation keeps the listener, which then ignores all later notifications.
+	 */
+	default void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+	}
+
 }
@@ -26,6 +26,7 @@ import java.util.function.IntSupplier;
 public final class DynamicIntProperty implements DynamicProperty<Integer>, IntSupplier {
 
 	private final ListenerSupport<DynamicPropertyListener<Integer>> listenerSupport = new ListenerSupport<>();
+	private final ListenerSupport<IntPropertyListener> primitiveListenerSupport = new ListenerSupport<>();
 	private volatile int value;
 	
 	public DynamicIntProperty() {
@@ -51,7 +52,11 @@ public final class DynamicIntProperty implements DynamicProperty<Integer>, IntSu
 	
 	public void set(int value) {
 		this.value = value;
-		this.listenerSupport.dispatchEvent(l -> l.propertyChanged(value));
+		this.primitiveListenerSupport.dispatchIntEvent(IntPropertyListener::propertyChanged, value);
+		if (!this.listenerSupport.isEmpty()) {
+			Integer boxed = value;
+			this.listenerSupport.dispatchEvent(DynamicPropertyListener::propertyChanged, boxed);
+		}
 	}
 	
 	@Override
@@ -73,5 +78,16 @@ public final class DynamicIntProperty implements DynamicProperty<Integer>, IntSu
 	public void removeListener(DynamicPropertyListener<Integer> listener) {
 		listenerSupport.removeListener(listener);
 	}
+
+	/**
+	 * Adds a listener that is notified without boxing the new value.
+	 */
+	public void addIntListener(IntPropertyListener listener) {
+		primitiveListenerSupport.addListener(listener);
+	}
+
+	public void removeIntListener(IntPropertyListener listener) {
+		primitiveListenerSupport.removeListener(listener);
+	}
 	
 }
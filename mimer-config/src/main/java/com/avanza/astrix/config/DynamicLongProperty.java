@@ -26,6 +26,7 @@ import java.util.function.LongSupplier;
 public final class DynamicLongProperty implements DynamicProperty<Long>, LongSupplier {
 
 	private final ListenerSupport<DynamicPropertyListener<Long>> listenerSupport = new ListenerSupport<>();
+	private final ListenerSupport<LongPropertyListener> primitiveListenerSupport = new ListenerSupport<>();
 	private volatile long value;
 	
 	public DynamicLongProperty() {
@@ -51,7 +52,11 @@ public final class DynamicLongProperty implements DynamicProperty<Long>, LongSup
 	
 	public void set(long value) {
 		this.value = value;
-		this.listenerSupport.dispatchEvent(l -> l.propertyChanged(value));
+		this.primitiveListenerSupport.dispatchLongEvent(LongPropertyListener::propertyChanged, value);
+		if (!this.listenerSupport.isEmpty()) {
+			Long boxed = value;
+			this.listenerSupport.dispatchEvent(DynamicPropertyListener::propertyChanged, boxed);
+		}
 	}
 	
 	@Override
@@ -73,4 +78,15 @@ public final class DynamicLongProperty implements DynamicProperty<Long>, LongSup
 	public void removeListener(DynamicPropertyListener<Long> listener) {
 		listenerSupport.removeListener(listener);
 	}
+
+	/**
+	 * Adds a listener that is notified without boxing the new value.
+	 */
+	public void addLongListener(LongPropertyListener listener) {
+		primitiveListenerSupport.addListener(listener);
+	}
+
+	public void removeLongListener(LongPropertyListener listener) {
+		primitiveListenerSupport.removeListener(listener);
+	}
 }
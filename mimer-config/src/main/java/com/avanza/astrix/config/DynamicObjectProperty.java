@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * DynamicProperty holding an object built from several properties, see
+ * {@link DynamicConfig#getObjectProperty(Function, String...)}. <p>
+ *
+ * The object is rebuilt once each time any of its properties change. Only two sources apply changes
+ * as one batch: {@link MapConfigSource#setAll(java.util.Map)} and {@link JsonConfigSource#reload(String)}.
+ * A batch results in a single rebuild, once it is applied by the calling thread, hence the object never
+ * reflects a partially applied batch. All other sources, and changes made one at a time, update each
+ * property separately, so the object is rebuilt once for each changed property. If building the object
+ * fails, the property keeps its previous value.
+ *
+ */
+public final class DynamicObjectProperty<T> extends AbstractDynamicProperty<T> {
+
+	private static final Logger logger = LoggerFactory.getLogger(DynamicObjectProperty.class);
+
+	private final Function<ConfigReader, T> factory;
+	private final ConfigReader reader;
+	private final Runnable rebuild = this::rebuild;
+
+	private DynamicObjectProperty(Function<ConfigReader, T> factory, ConfigReader reader) {
+		this.factory = factory;
+		this.reader = reader;
+	}
+
+	/**
+	 * Creates an object property reading the given keys, bound using the given binder. The keys are bound
+	 * before the object is built the first time, hence no change in between is lost.
+	 */
+	static <T> DynamicObjectProperty<T> create(Function<ConfigReader, T> factory, Collection<String> keys,
+											   BiConsumer<String, DynamicPropertyChainListener<String>> binder) {
+		DynamicObjectProperty<T> objectProperty = new DynamicObjectProperty<>(factory, new ConfigReader(keys));
+		objectProperty.reader.bind(binder, () -> UpdateBatch.schedule(objectProperty.rebuild));
+		objectProperty.build();
+		return objectProperty;
+	}
+
+	private synchronized void build() {
+		setValue(factory.apply(reader));
+	}
+
+	private synchronized void rebuild() {
+		T newValue;
+		try {
+			newValue = factory.apply(reader);
+		} catch (RuntimeException e) {
+			logger.error("Failed to rebuild object property, keeping previous value: {}", getCurrentValue(), e);
+			return;
+		}
+		if (!Objects.equals(newValue, getCurrentValue())) {
+			setValue(newValue);
+		}
+	}
+
+}
@@ -52,6 +52,10 @@ public final class DynamicOptionalProperty<T> implements DynamicProperty<T>, Sup
 		return Optional.ofNullable(getCurrentValue());
 	}
 
+	DynamicProperty<T> getDelegate() {
+		return delegate;
+	}
+
 	@Override
 	public String toString() {
 		return delegate.toString();
@@ -15,9 +15,14 @@
  */
 package com.avanza.astrix.config;
 
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 
 /**
  * A DynamicPropertyChain is a hierarchical set of properties. A property
@@ -36,6 +41,7 @@ import java.util.Objects;
  *  the listener will be notified with the new value</li>
  *  <li>The current resolved property is cleared. In that case 
  *  the listener will be notified with the new (possibly default) resolved value</li>
+ *  <li>The chain is relinked to a new list of sources, and the resolved value changes</li>
  * </ul>
  * 
  * 
@@ -44,7 +50,8 @@ import java.util.Objects;
  */
 final class DynamicPropertyChain<T> implements DynamicPropertyListener<DynamicConfigProperty<T>> {
 
-	private final Deque<DynamicConfigProperty<T>> chain = new LinkedList<>();
+	private volatile List<Link<T>> chain = Collections.emptyList();
+	private List<?> linkedSources = Collections.emptyList();
 	private volatile PropertyChangeEventDispatcher propertyChainListener = null;
 	private final T defaultValue;
 	private final PropertyParser<T> parser;
@@ -60,7 +67,17 @@ final class DynamicPropertyChain<T> implements DynamicPropertyListener<DynamicCo
 	 * will later receive a notification each time the resolved value of this chain changes.
 	 */
 	void bindTo(DynamicPropertyChainListener<T> l) {
-		this.propertyChainListener = new PropertyChangeEventDispatcher(l);
+		this.propertyChainListener = new ObjectChangeEventDispatcher(l);
+		this.propertyChainListener.init();
+	}
+
+	/**
+	 * Binds the resolved value of this chain to a listener of unboxed values, see {@link #bindTo(DynamicPropertyChainListener)}.
+	 * Requires a chain created with a {@link PropertyParser.PrimitiveParser} and a non null default value.
+	 */
+	@SuppressWarnings("unchecked")
+	void bindPrimitiveTo(LongConsumer l) {
+		this.propertyChainListener = new PrimitiveChangeEventDispatcher(l, ((PropertyParser.PrimitiveParser<T>) parser).toLong(defaultValue));
 		this.propertyChainListener.init();
 	}
 
@@ -69,11 +86,34 @@ final class DynamicPropertyChain<T> implements DynamicPropertyListener<DynamicCo
 	}
 
 	private T get() {
-		return chain.stream()
-					.filter(DynamicConfigProperty::isSet)
-					.findFirst()
-					.map(DynamicConfigProperty::get)
-					.orElse(defaultValue);
+		for (Link<T> link : chain) {
+			if (link.property.isSet()) {
+				return link.property.get();
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * The value of the first property in this chain that has a value, in its string form as read
+	 * from its source, or null if the chain resolves to its default value.
+	 */
+	String getSourceValue() {
+		for (Link<T> link : chain) {
+			if (link.property.isSet()) {
+				return link.property.getResolvedValue();
+			}
+		}
+		return null;
+	}
+
+	private long getLong(long defaultValue) {
+		for (Link<T> link : chain) {
+			if (link.property.isSet()) {
+				return link.property.getLong();
+			}
+		}
+		return defaultValue;
 	}
 
 	@Override
@@ -84,25 +124,119 @@ final class DynamicPropertyChain<T> implements DynamicPropertyListener<DynamicCo
 		}
 	}
 
-	DynamicConfigProperty<T> appendValue() {
+	synchronized DynamicConfigProperty<T> appendValue() {
 		DynamicConfigProperty<T> property = DynamicConfigProperty.create(this, parser);
-		chain.addLast(property);
+		List<Link<T>> newChain = new ArrayList<>(chain);
+		newChain.add(new Link<>(null, property));
+		this.chain = newChain;
 		return property;
 	}
 
-	private class PropertyChangeEventDispatcher {
-		private final DynamicPropertyChainListener<T> listener;
-		private T lastNotifiedState;
+	DynamicConfigProperty<T> newValue() {
+		return DynamicConfigProperty.create(this, parser);
+	}
 
-		public PropertyChangeEventDispatcher(DynamicPropertyChainListener<T> listener) {
-			this.listener = listener;
+	/**
+	 * Links this chain to the given sources, in order. Links to sources that this chain is already linked to
+	 * are kept, and links to sources not in the given list are detached. The given factory creates the link
+	 * for each new source, using {@link #newValue()}, or returns null if the source does not need a place in
+	 * the chain. <p>
+	 *
+	 * Neither the values of the new links are set nor the bound listener notified, hence a caller holding a
+	 * lock can do that after releasing the lock using {@link #initializeAndNotify()}. If the factory fails,
+	 * the links it already created are detached and the chain is left unchanged.
+	 */
+	synchronized <S> void relink(List<S> sources, Function<S, DynamicConfigProperty<T>> linkFactory) {
+		Map<Object, Link<T>> currentLinks = new IdentityHashMap<>();
+		for (Link<T> link : chain) {
+			currentLinks.put(link.source, link);
+		}
+		Map<Object, Boolean> previousSources = new IdentityHashMap<>();
+		for (Object source : linkedSources) {
+			previousSources.put(source, Boolean.TRUE);
 		}
+		List<Link<T>> newChain = new ArrayList<>(sources.size());
+		List<DynamicConfigProperty<T>> createdLinks = new ArrayList<>();
+		try {
+			for (S source : sources) {
+				Link<T> link = currentLinks.remove(source);
+				if (link == null && !previousSources.containsKey(source)) {
+					DynamicConfigProperty<T> property = linkFactory.apply(source);
+					if (property != null) {
+						createdLinks.add(property);
+						link = new Link<>(source, property);
+					}
+				}
+				if (link != null) {
+					newChain.add(link);
+				}
+			}
+		} catch (RuntimeException | Error e) {
+			for (DynamicConfigProperty<T> created : createdLinks) {
+				created.detach();
+			}
+			throw e;
+		}
+		for (Link<T> removed : currentLinks.values()) {
+			removed.property.detach();
+		}
+		this.chain = newChain;
+		this.linkedSources = new ArrayList<>(sources);
+	}
 
-		private void init() {
+	/**
+	 * Detaches all links of this chain, see {@link DynamicConfigProperty#detach()}, hence the bound listener
+	 * is no longer notified about changes in the sources.
+	 */
+	synchronized void detach() {
+		for (Link<T> link : chain) {
+			link.property.detach();
+		}
+		this.chain = Collections.emptyList();
+		this.linkedSources = Collections.emptyList();
+	}
+
+	/**
+	 * Sets the initial value of each link created by {@link #relink(List, Function)}, see
+	 * {@link DynamicConfigProperty#setInitialValue(String)}, and notifies the bound listener if the
+	 * resolved value has changed since it was last notified.
+	 */
+	void initializeAndNotify() {
+		for (Link<T> link : chain) {
+			link.property.initialize();
+		}
+		propertyChanged(null);
+	}
+
+	private static final class Link<T> {
+		private final Object source;
+		private final DynamicConfigProperty<T> property;
+
+		Link(Object source, DynamicConfigProperty<T> property) {
+			this.source = source;
+			this.property = property;
+		}
+	}
+
+	private abstract class PropertyChangeEventDispatcher {
+
+		final void init() {
 			propertyChanged();
 		}
 
-		private void propertyChanged() {
+		abstract void propertyChanged();
+	}
+
+	private final class ObjectChangeEventDispatcher extends PropertyChangeEventDispatcher {
+		private final DynamicPropertyChainListener<T> listener;
+		private T lastNotifiedState;
+
+		ObjectChangeEventDispatcher(DynamicPropertyChainListener<T> listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		void propertyChanged() {
 			T currentResolvedValue = get();
 			if (!Objects.equals(currentResolvedValue, lastNotifiedState)) {
 				listener.propertyChanged(currentResolvedValue);
@@ -111,4 +245,26 @@ final class DynamicPropertyChain<T> implements DynamicPropertyListener<DynamicCo
 		}
 	}
 
+	private final class PrimitiveChangeEventDispatcher extends PropertyChangeEventDispatcher {
+		private final LongConsumer listener;
+		private final long defaultValue;
+		private boolean notified;
+		private long lastNotifiedState;
+
+		PrimitiveChangeEventDispatcher(LongConsumer listener, long defaultValue) {
+			this.listener = listener;
+			this.defaultValue = defaultValue;
+		}
+
+		@Override
+		void propertyChanged() {
+			long currentResolvedValue = getLong(defaultValue);
+			if (!notified || currentResolvedValue != lastNotifiedState) {
+				listener.accept(currentResolvedValue);
+				lastNotifiedState = currentResolvedValue;
+				notified = true;
+			}
+		}
+	}
+
 }
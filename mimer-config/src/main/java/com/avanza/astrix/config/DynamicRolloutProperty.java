@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+/**
+ * DynamicProperty holding a {@link Rollout}. The rule is compiled once each time the
+ * underlying property changes, so {@link #isEnabledFor(long)} does not allocate. <p>
+ */
+public final class DynamicRolloutProperty extends AbstractDynamicProperty<Rollout> {
+
+	public DynamicRolloutProperty() {
+		super(Rollout.DISABLED);
+	}
+
+	public boolean isEnabledFor(long userId) {
+		return getCurrentValue().isEnabledFor(userId);
+	}
+
+	/**
+	 * Sets the value of this property, null disables the rollout.
+	 */
+	@Override
+	public void setValue(Rollout value) {
+		super.setValue(value == null ? Rollout.DISABLED : value);
+	}
+
+}
@@ -25,6 +25,7 @@ public class EnumSetting<T extends Enum<T>> implements Setting<T> {
 	private final String name;
 	private final Class<T> enumType;
 	private final T defaultValue;
+	private final int slot = DynamicConfig.allocateSettingSlot();
 
 	public EnumSetting(String name, Class<T> enumType, T defaultValue) {
 		this.name = requireNonNull(name);
@@ -38,7 +39,7 @@ public class EnumSetting<T extends Enum<T>> implements Setting<T> {
 	
 	@Override
 	public DynamicEnumProperty<T> getFrom(DynamicConfig config) {
-		return config.getEnumProperty(name, enumType, defaultValue);
+		return config.getSettingProperty(slot, this, (setting, c) -> c.getEnumProperty(setting.name, setting.enumType, setting.defaultValue));
 	}
 
 	@Override
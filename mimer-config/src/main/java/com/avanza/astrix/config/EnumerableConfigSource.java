@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.SortedMap;
+
+/**
+ * A {@link ConfigSource} that supports enumerating its properties by name. <p>
+ *
+ * @see DynamicConfig#getPropertyNames(String)
+ */
+public interface EnumerableConfigSource extends ConfigSource {
+
+	/**
+	 * Returns all properties in this ConfigSource with a name starting with the given prefix.
+	 *
+	 * @param prefix - The name prefix, the empty string matches all properties
+	 * @return The matching properties sorted by name, never null
+	 */
+	SortedMap<String, String> getPropertiesWithPrefix(String prefix);
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A boolean feature flag stored as a single bit in a {@link FlagRegistry}. Reading a flag is one
+ * volatile array load and a mask. <p>
+ *
+ * Changes are published through the listeners of the registry, see {@link FlagListener}.
+ */
+public final class Flag implements BooleanSupplier {
+
+	private final String name;
+	private final AtomicLongArray words;
+	private final int word;
+	private final long mask;
+
+	Flag(String name, AtomicLongArray words, int word, long mask) {
+		this.name = name;
+		this.words = words;
+		this.word = word;
+		this.mask = mask;
+	}
+
+	public boolean get() {
+		return (words.get(word) & mask) != 0;
+	}
+
+	@Override
+	public boolean getAsBoolean() {
+		return get();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets the bit of this flag, returning true if the value changed.
+	 */
+	boolean set(boolean value) {
+		long previous = value ? words.getAndUpdate(word, bits -> bits | mask) : words.getAndUpdate(word, bits -> bits & ~mask);
+		return ((previous & mask) != 0) != value;
+	}
+
+	@Override
+	public String toString() {
+		return name + "=" + get();
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Holds a large number of boolean feature flags read from a {@link DynamicConfig}. <p>
+ *
+ * A {@link DynamicBooleanProperty} is a full object with a listener queue of its own. The flags in a
+ * registry are instead packed as bits in {@link AtomicLongArray}'s holding 4096 flags each, and share
+ * the listeners of the registry. Each flag is still resolved through the source chain of the
+ * DynamicConfig, hence flags follow source changes just like other properties. <p>
+ *
+ * Flags are not {@link DynamicProperty}'s, so they are not part of {@link ConfigSnapshot}'s and are not
+ * reported to {@link DynamicConfigListener}'s.
+ */
+public final class FlagRegistry {
+
+	private static final int WORDS_PER_CHUNK = 64;
+	private static final int FLAGS_PER_CHUNK = WORDS_PER_CHUNK * Long.SIZE;
+
+	private final DynamicConfig config;
+	private final ConcurrentMap<String, Flag> flags = new ConcurrentHashMap<>();
+	private final ListenerSupport<FlagListener> listenerSupport = new ListenerSupport<>();
+	// Guarded by this
+	private final List<AtomicLongArray> chunks = new ArrayList<>();
+	private int flagCount;
+
+	private FlagRegistry(DynamicConfig config) {
+		this.config = config;
+	}
+
+	public static FlagRegistry create(DynamicConfig config) {
+		return new FlagRegistry(config);
+	}
+
+	/**
+	 * Returns the flag with the given name, binding it to the config the first time it is read.
+	 * The default value is only used when the flag is first read.
+	 */
+	public Flag getFlag(String name, boolean defaultValue) {
+		Flag flag = flags.get(name);
+		return flag != null ? flag : createFlag(name, defaultValue);
+	}
+
+	private synchronized Flag createFlag(String name, boolean defaultValue) {
+		Flag existing = flags.get(name);
+		if (existing != null) {
+			return existing;
+		}
+		int index = flagCount % FLAGS_PER_CHUNK;
+		if (index == 0) {
+			chunks.add(new AtomicLongArray(WORDS_PER_CHUNK));
+		}
+		Flag flag = new Flag(name, chunks.get(chunks.size() - 1), index / Long.SIZE, 1L << index);
+		config.bindValue(name, defaultValue, PropertyParser.BOOLEAN_PARSER, newValue -> {
+			// The initial value is set before the flag is published
+			if (flag.set(newValue) && flags.get(name) == flag) {
+				listenerSupport.dispatchEvent(l -> l.flagChanged(flag, newValue));
+			}
+		});
+		flags.put(name, flag);
+		flagCount++;
+		return flag;
+	}
+
+	/**
+	 * The number of flags read from this registry.
+	 */
+	public int size() {
+		return flags.size();
+	}
+
+	public void addListener(FlagListener listener) {
+		listenerSupport.addListener(listener);
+	}
+
+	public void removeListener(FlagListener listener) {
+		listenerSupport.removeListener(listener);
+	}
+
+	@Override
+	public String toString() {
+		return "FlagRegistry(size=" + size() + ")";
+	}
+
+}
@@ -15,11 +15,22 @@
  */
 package com.avanza.astrix.config;
 
+import static java.util.Objects.requireNonNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 /**
- * This is a jvm global registry for ConfigSources, mainly intended to support testing.
+ * This is a jvm global registry for ConfigSources, mainly intended to support testing. <p>
+ * 
+ * Sources are either registered by {@link #register(ConfigSource)}, which returns a string id, or by
+ * {@link #registerSource(ConfigSource)} and {@link #registerWeakly(ConfigSource)}, which return a
+ * {@link Registration} handle that resolves the source without any map lookup and that unregisters
+ * the source when closed. A weakly registered source does not prevent the source from being
+ * garbage collected, it is unregistered automatically once collected.
  * 
  * @author Elias Lindholm (elilin)
  *
@@ -27,19 +38,126 @@ import java.util.concurrent.atomic.AtomicLong;
 public final class GlobalConfigSourceRegistry {
 	
 	private final static AtomicLong idGen = new AtomicLong();
-	private final static Map<String, ConfigSource> configSourceById = new ConcurrentHashMap<>();
+	private final static Map<Long, Registration> registrationById = new ConcurrentHashMap<>();
+	private final static ReferenceQueue<ConfigSource> collectedSources = new ReferenceQueue<>();
 	
 	private GlobalConfigSourceRegistry() {
 	}
 	
 	public static ConfigSource getConfigSource(String configSourceId) {
-		return configSourceById.get(configSourceId);
+		expungeCollectedSources();
+		Registration registration;
+		try {
+			registration = registrationById.get(Long.parseLong(configSourceId));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		return registration == null ? null : registration.getConfigSource();
 	}
 
 	public static String register(ConfigSource configSource) {
-		String id = Long.toString(idGen.incrementAndGet());
-		configSourceById.put(id, configSource);
-		return id;
+		return registerSource(configSource).getId();
+	}
+
+	/**
+	 * Registers a ConfigSource that stays registered until the returned {@link Registration} is closed.
+	 */
+	public static Registration registerSource(ConfigSource configSource) {
+		return register(new Registration(idGen.incrementAndGet(), requireNonNull(configSource), null));
+	}
+
+	/**
+	 * Registers a ConfigSource that stays registered until the returned {@link Registration} is closed,
+	 * or until the ConfigSource is garbage collected.
+	 */
+	public static Registration registerWeakly(ConfigSource configSource) {
+		long id = idGen.incrementAndGet();
+		return register(new Registration(id, null, new CollectableSourceReference(id, requireNonNull(configSource))));
+	}
+
+	/**
+	 * Unregisters the ConfigSource with the given id, if any.
+	 */
+	public static void unregister(String configSourceId) {
+		try {
+			unregister(Long.parseLong(configSourceId));
+		} catch (NumberFormatException e) {
+			// Never registered
+		}
+	}
+
+	private static Registration register(Registration registration) {
+		expungeCollectedSources();
+		registrationById.put(registration.id, registration);
+		return registration;
+	}
+
+	private static void unregister(long id) {
+		Registration registration = registrationById.remove(id);
+		if (registration != null) {
+			registration.registered = false;
+		}
+	}
+
+	private static void expungeCollectedSources() {
+		Reference<? extends ConfigSource> collected;
+		while ((collected = collectedSources.poll()) != null) {
+			unregister(((CollectableSourceReference) collected).id);
+		}
+	}
+
+	/**
+	 * A handle to a ConfigSource registered in the {@link GlobalConfigSourceRegistry}. <p>
+	 */
+	public static final class Registration implements AutoCloseable {
+
+		private final long id;
+		private final ConfigSource configSource;
+		private final CollectableSourceReference collectableSource;
+		private volatile boolean registered = true;
+
+		private Registration(long id, ConfigSource configSource, CollectableSourceReference collectableSource) {
+			this.id = id;
+			this.configSource = configSource;
+			this.collectableSource = collectableSource;
+		}
+
+		/**
+		 * The id of the ConfigSource, which can be used with {@link GlobalConfigSourceRegistry#getConfigSource(String)}.
+		 */
+		public String getId() {
+			return Long.toString(id);
+		}
+
+		/**
+		 * Returns the registered ConfigSource, or null if it is no longer registered.
+		 */
+		public ConfigSource getConfigSource() {
+			if (!registered) {
+				return null;
+			}
+			return configSource != null ? configSource : collectableSource.get();
+		}
+
+		@Override
+		public void close() {
+			unregister(id);
+		}
+
+		@Override
+		public String toString() {
+			return "Registration(" + id + ")";
+		}
+	}
+
+	private static final class CollectableSourceReference extends WeakReference<ConfigSource> {
+
+		private final long id;
+
+		CollectableSourceReference(long id, ConfigSource configSource) {
+			super(configSource, collectedSources);
+			this.id = id;
+		}
 	}
 
 }
@@ -26,6 +26,7 @@ public class IntSetting implements Setting<Integer> {
 	
 	private final String name;
 	private final int defaultValue;
+	private final int slot = DynamicConfig.allocateSettingSlot();
 	
 	private IntSetting(String name, int defaultValue) {
 		this.name = requireNonNull(name);
@@ -38,7 +39,7 @@ public class IntSetting implements Setting<Integer> {
 
 	@Override
 	public DynamicIntProperty getFrom(DynamicConfig config) {
-		return config.getIntProperty(name, defaultValue);
+		return config.getSettingProperty(slot, this, (setting, c) -> c.getIntProperty(setting.name, setting.defaultValue));
 	}
 
 	@Override
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves <code>${name}</code> and <code>${name:default}</code> placeholders in property values, and
+ * keeps track of the dependencies between properties that they introduce. <p>
+ *
+ * A placeholder is resolved to the string value of the referenced property, or the default value in the
+ * placeholder if no source holds a value for it. Placeholders that can not be resolved are left as they are. <p>
+ *
+ * When a referenced property changes, only the values that depend on it, directly or transitively, are
+ * resolved again. Each of them is resolved once, in topological order, so no value is ever resolved using a
+ * stale value of another dependent property. A placeholder that would introduce a circular dependency is
+ * never resolved.
+ *
+ */
+final class InterpolationGraph {
+
+	private static final Logger logger = LoggerFactory.getLogger(InterpolationGraph.class);
+
+	private final BiConsumer<String, DynamicPropertyChainListener<String>> valueBinder;
+	private final ConcurrentMap<String, ReferencedValue> referencedValues = new ConcurrentHashMap<>();
+	private final ThreadLocal<Boolean> resolvingDependents = new ThreadLocal<>();
+
+	// All below guarded by this
+	private final Map<String, Set<DynamicConfigProperty<?>>> dependentValues = new HashMap<>();
+	private final Map<String, Set<DynamicConfigProperty<?>>> interpolatedValues = new HashMap<>();
+	private final Map<DynamicConfigProperty<?>, Set<String>> references = new IdentityHashMap<>();
+
+	/**
+	 * @param valueBinder binds the resolved value of the property with the given name to the given listener, without
+	 * 		creating a {@link DynamicProperty}, see {@link DynamicConfig#bindValue}. Hence resolving a placeholder does
+	 * 		neither cache a property nor fix its default value.
+	 */
+	InterpolationGraph(BiConsumer<String, DynamicPropertyChainListener<String>> valueBinder) {
+		this.valueBinder = valueBinder;
+	}
+
+	/**
+	 * Resolves all placeholders in the given value of the given property chain link, and registers the link as
+	 * dependent on the properties it references.
+	 */
+	String interpolate(String name, String value, DynamicConfigProperty<?> link) {
+		List<Placeholder> placeholders = Placeholder.parse(value);
+		if (placeholders.isEmpty()) {
+			if (link.isInterpolated()) {
+				synchronized (this) {
+					unregister(name, link);
+				}
+			}
+			return value;
+		}
+		Set<String> referencedNames = new LinkedHashSet<>();
+		synchronized (this) {
+			unregister(name, link);
+			for (Placeholder placeholder : placeholders) {
+				if (placeholder.name.equals(name) || dependsOn(placeholder.name, name)) {
+					logger.warn("Ignoring circular reference to {} in value of {}: {}", placeholder.name, name, value);
+				} else {
+					referencedNames.add(placeholder.name);
+				}
+			}
+			register(name, link, referencedNames);
+		}
+		StringBuilder result = new StringBuilder(value.length());
+		int position = 0;
+		for (Placeholder placeholder : placeholders) {
+			result.append(value, position, placeholder.start);
+			String resolvedValue = referencedNames.contains(placeholder.name) ? resolve(placeholder.name) : null;
+			if (resolvedValue == null) {
+				resolvedValue = placeholder.defaultValue;
+			}
+			result.append(resolvedValue != null ? resolvedValue : value.substring(placeholder.start, placeholder.end));
+			position = placeholder.end;
+		}
+		return result.append(value, position, value.length()).toString();
+	}
+
+	private String resolve(String name) {
+		ReferencedValue referencedValue = referencedValues.get(name);
+		if (referencedValue == null) {
+			ReferencedValue newValue = new ReferencedValue(name);
+			referencedValue = referencedValues.putIfAbsent(name, newValue);
+			if (referencedValue == null) {
+				newValue.bind();
+				return newValue.value;
+			}
+		}
+		return referencedValue.get();
+	}
+
+	/**
+	 * Resolves all values that depends on the given property again, in topological order. Changes to the
+	 * dependent properties are part of the same recomputation, hence they are ignored here. <p>
+	 *
+	 * The dependent values are collected while holding the monitor of this graph, but resolved after
+	 * releasing it, hence property listeners never run while holding it.
+	 */
+	void propertyChanged(String name) {
+		if (resolvingDependents.get() != null) {
+			return;
+		}
+		List<DynamicConfigProperty<?>> dependentValues = new ArrayList<>();
+		synchronized (this) {
+			for (String dependent : dependentsInTopologicalOrder(name)) {
+				dependentValues.addAll(interpolatedValues.getOrDefault(dependent, Collections.emptySet()));
+			}
+		}
+		if (dependentValues.isEmpty()) {
+			return;
+		}
+		resolvingDependents.set(Boolean.TRUE);
+		try {
+			for (DynamicConfigProperty<?> value : dependentValues) {
+				value.reevaluate();
+			}
+		} finally {
+			resolvingDependents.remove();
+		}
+	}
+
+	private List<String> dependentsInTopologicalOrder(String name) {
+		List<String> postOrder = new ArrayList<>();
+		visitDependents(name, new HashSet<>(), postOrder);
+		Collections.reverse(postOrder);
+		return postOrder.subList(1, postOrder.size());
+	}
+
+	private void visitDependents(String name, Set<String> visited, List<String> postOrder) {
+		for (DynamicConfigProperty<?> dependentValue : dependentValues.getOrDefault(name, Collections.emptySet())) {
+			if (visited.add(dependentValue.getName())) {
+				visitDependents(dependentValue.getName(), visited, postOrder);
+			}
+		}
+		postOrder.add(name);
+	}
+
+	/**
+	 * Returns true if any value of the property with the given name references the target property, directly
+	 * or transitively.
+	 */
+	private boolean dependsOn(String name, String target) {
+		Set<String> visited = new HashSet<>();
+		List<String> pending = new ArrayList<>();
+		pending.add(name);
+		while (!pending.isEmpty()) {
+			String current = pending.remove(pending.size() - 1);
+			for (DynamicConfigProperty<?> value : interpolatedValues.getOrDefault(current, Collections.emptySet())) {
+				for (String referencedName : references.get(value)) {
+					if (referencedName.equals(target)) {
+						return true;
+					}
+					if (visited.add(referencedName)) {
+						pending.add(referencedName);
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private void register(String name, DynamicConfigProperty<?> link, Set<String> referencedNames) {
+		references.put(link, referencedNames);
+		interpolatedValues.computeIfAbsent(name, key -> Collections.newSetFromMap(new IdentityHashMap<>())).add(link);
+		for (String referencedName : referencedNames) {
+			dependentValues.computeIfAbsent(referencedName, key -> Collections.newSetFromMap(new IdentityHashMap<>())).add(link);
+		}
+		link.setInterpolated(true);
+	}
+
+	private void unregister(String name, DynamicConfigProperty<?> link) {
+		Set<String> referencedNames = references.remove(link);
+		if (referencedNames == null) {
+			return;
+		}
+		interpolatedValues.get(name).remove(link);
+		for (String referencedName : referencedNames) {
+			dependentValues.get(referencedName).remove(link);
+		}
+		link.setInterpolated(false);
+	}
+
+	/**
+	 * The resolved value of a referenced property, bound once and shared by all values referencing it.
+	 */
+	private final class ReferencedValue implements DynamicPropertyChainListener<String> {
+		private final String name;
+		private final CountDownLatch bound = new CountDownLatch(1);
+		private volatile Thread binder;
+		private volatile String value;
+
+		ReferencedValue(String name) {
+			this.name = name;
+		}
+
+		void bind() {
+			binder = Thread.currentThread();
+			try {
+				valueBinder.accept(name, this);
+			} finally {
+				binder = null;
+				bound.countDown();
+			}
+		}
+
+		/**
+		 * Waits for another thread binding this value. The binding thread itself only reaches this for a
+		 * reference back to the value it is binding, which is resolved to its value so far.
+		 */
+		String get() {
+			if (bound.getCount() != 0 && binder != Thread.currentThread()) {
+				boolean interrupted = false;
+				while (true) {
+					try {
+						bound.await();
+						break;
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return value;
+		}
+
+		@Override
+		public void propertyChanged(String newValue) {
+			this.value = newValue;
+			// The initial value is notified while binding, before any value depends on it
+			if (bound.getCount() == 0) {
+				InterpolationGraph.this.propertyChanged(name);
+			}
+		}
+	}
+
+	private static final class Placeholder {
+		private final int start;
+		private final int end;
+		private final String name;
+		private final String defaultValue;
+
+		private Placeholder(int start, int end, String name, String defaultValue) {
+			this.start = start;
+			this.end = end;
+			this.name = name;
+			this.defaultValue = defaultValue;
+		}
+
+		static List<Placeholder> parse(String value) {
+			if (value == null || value.indexOf("${") < 0) {
+				return Collections.emptyList();
+			}
+			List<Placeholder> result = new ArrayList<>();
+			int start = value.indexOf("${");
+			while (start >= 0) {
+				int end = value.indexOf('}', start + 2);
+				if (end < 0) {
+					break;
+				}
+				String reference = value.substring(start + 2, end);
+				int separator = reference.indexOf(':');
+				String name = separator < 0 ? reference : reference.substring(0, separator);
+				String defaultValue = separator < 0 ? null : reference.substring(separator + 1);
+				if (!name.isEmpty()) {
+					result.add(new Placeholder(start, end + 1, name, defaultValue));
+				}
+				start = value.indexOf("${", end + 1);
+			}
+			return result;
+		}
+	}
+
+}
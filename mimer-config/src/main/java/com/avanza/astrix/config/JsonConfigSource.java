@@ -0,0 +1,564 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A {@link DynamicConfigSource} holding the content of a JSON document, flattened to dot separated
+ * property names. <p>
+ *
+ * The members of nested objects are named by joining the member names with a dot, and array elements
+ * are named by their index. For instance <code>{"db": {"pool": {"size": 10}}, "hosts": ["a", "b"]}</code>
+ * contains the properties db.pool.size=10, hosts.0=a and hosts.1=b. Strings, numbers and booleans are
+ * properties, null values and empty objects or arrays are not. <p>
+ *
+ * The document is parsed in a single pass into an index from property name to the location of its
+ * value in the document, without building a tree of the document. Values are decoded the first time
+ * they are read. <p>
+ *
+ * {@link #reload()} replaces the content of this source and notifies the listeners of each property
+ * whose value changed, as one batch, see {@link DynamicObjectProperty}.
+ *
+ */
+public final class JsonConfigSource extends AbstractDynamicConfigSource implements EnumerableConfigSource {
+
+	private static final int MAX_DEPTH = 512;
+
+	private final PropertySubscriptions subscriptions = new PropertySubscriptions();
+	private final Path file;
+	private final String description;
+	private volatile Index index;
+
+	private JsonConfigSource(Index index, Path file, String description) {
+		this.index = index;
+		this.file = file;
+		this.description = description;
+	}
+
+	/**
+	 * Loads the given JSON file.
+	 *
+	 * @throws UncheckedIOException if the file could not be read
+	 * @throws IllegalArgumentException if the file is not a JSON object
+	 */
+	public static JsonConfigSource open(Path file) {
+		return new JsonConfigSource(Index.parse(read(file)), file, file.toString());
+	}
+
+	/**
+	 * Creates a source holding the given JSON object.
+	 *
+	 * @throws IllegalArgumentException if the given string is not a JSON object
+	 */
+	public static JsonConfigSource of(String json) {
+		return new JsonConfigSource(Index.parse(json.getBytes(UTF_8)), null, "inline");
+	}
+
+	private static byte[] read(Path file) {
+		try {
+			return Files.readAllBytes(file);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read json config: " + file, e);
+		}
+	}
+
+	/**
+	 * Reads the file this source was opened from again, see {@link #reload(String)}.
+	 *
+	 * @throws IllegalStateException if this source was not opened from a file
+	 */
+	public void reload() {
+		if (file == null) {
+			throw new IllegalStateException("Not opened from a file: " + this);
+		}
+		reload(read(file));
+	}
+
+	/**
+	 * Replaces the content of this source with the given JSON object, and notifies the listeners of all
+	 * properties that were added, changed or removed. The content is left unchanged if the given
+	 * document is not a JSON object.
+	 *
+	 * @throws IllegalArgumentException if the given string is not a JSON object
+	 */
+	public void reload(String json) {
+		reload(json.getBytes(UTF_8));
+	}
+
+	private synchronized void reload(byte[] document) {
+		Index newIndex = Index.parse(document);
+		Index oldIndex = this.index;
+		this.index = newIndex;
+		UpdateBatch.run(() -> {
+			for (int slot = 0; slot < newIndex.keys.length; slot++) {
+				String propertyName = newIndex.keys[slot];
+				if (propertyName != null && subscriptions.hasSubscribers(propertyName)) {
+					int oldSlot = oldIndex.slotOf(propertyName);
+					if (oldSlot < 0 || !oldIndex.sameRawValue(oldSlot, newIndex, slot)) {
+						String newValue = newIndex.value(slot);
+						if (oldSlot < 0 || !newValue.equals(oldIndex.value(oldSlot))) {
+							subscriptions.propertyChanged(propertyName, newValue);
+						}
+					}
+				}
+			}
+			for (String propertyName : oldIndex.keys) {
+				if (propertyName != null && newIndex.slotOf(propertyName) < 0) {
+					subscriptions.propertyChanged(propertyName, null);
+				}
+			}
+		});
+	}
+
+	@Override
+	public String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+		subscriptions.subscribe(propertyName, propertyChangeListener);
+		return get(propertyName);
+	}
+
+	@Override
+	public void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+		subscriptions.unsubscribe(propertyName, propertyChangeListener);
+	}
+
+	@Override
+	public String get(String propertyName) {
+		Index index = this.index;
+		int slot = index.slotOf(propertyName);
+		return slot < 0 ? null : index.value(slot);
+	}
+
+	@Override
+	public SortedMap<String, String> getPropertiesWithPrefix(String prefix) {
+		Index index = this.index;
+		SortedMap<String, String> result = new TreeMap<>();
+		for (int slot = 0; slot < index.keys.length; slot++) {
+			String propertyName = index.keys[slot];
+			if (propertyName != null && propertyName.startsWith(prefix)) {
+				result.put(propertyName, index.value(slot));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The number of properties in this source.
+	 */
+	public int size() {
+		return index.size;
+	}
+
+	@Override
+	public String toString() {
+		return "JsonConfigSource: " + description;
+	}
+
+	/**
+	 * Open addressing table from property name to the location of its value in the document. Only
+	 * modified while the document is parsed.
+	 */
+	private static final class Index {
+
+		private final byte[] document;
+		private String[] keys = new String[16];
+		private int[] starts = new int[16];
+		private int[] ends = new int[16];
+		// Decoded lazily, racing readers decode the same immutable String
+		private String[] values = new String[16];
+		private int size;
+
+		private final StringBuilder path = new StringBuilder();
+		private int position;
+
+		private Index(byte[] document) {
+			this.document = document;
+		}
+
+		static Index parse(byte[] document) {
+			Index index = new Index(document);
+			index.skipWhitespace();
+			if (index.peek() != '{') {
+				throw index.error("Expected a JSON object");
+			}
+			index.parseValue(0);
+			index.skipWhitespace();
+			if (index.position < document.length) {
+				throw index.error("Unexpected content after the JSON object");
+			}
+			return index;
+		}
+
+		int slotOf(String propertyName) {
+			String[] keys = this.keys;
+			int mask = keys.length - 1;
+			int slot = spread(propertyName.hashCode()) & mask;
+			String key;
+			while ((key = keys[slot]) != null) {
+				if (key.equals(propertyName)) {
+					return slot;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+
+		String value(int slot) {
+			String value = values[slot];
+			if (value == null) {
+				value = decode(starts[slot], ends[slot]);
+				values[slot] = value;
+			}
+			return value;
+		}
+
+		boolean sameRawValue(int slot, Index other, int otherSlot) {
+			int start = starts[slot];
+			int length = ends[slot] - start;
+			int otherStart = other.starts[otherSlot];
+			if (other.ends[otherSlot] - otherStart != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (document[start + i] != other.document[otherStart + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void put(String key, int start, int end) {
+			int mask = keys.length - 1;
+			int slot = spread(key.hashCode()) & mask;
+			String candidate;
+			while ((candidate = keys[slot]) != null) {
+				if (candidate.equals(key)) {
+					starts[slot] = start;
+					ends[slot] = end;
+					return;
+				}
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			starts[slot] = start;
+			ends[slot] = end;
+			if (++size * 2 > keys.length) {
+				resize();
+			}
+		}
+
+		private void remove(String key) {
+			int slot = slotOf(key);
+			if (slot < 0) {
+				return;
+			}
+			// Backward shift deletion keeps probe sequences intact without tombstones
+			int mask = keys.length - 1;
+			int next = (slot + 1) & mask;
+			while (keys[next] != null) {
+				int home = spread(keys[next].hashCode()) & mask;
+				if (((next - home) & mask) >= ((next - slot) & mask)) {
+					keys[slot] = keys[next];
+					starts[slot] = starts[next];
+					ends[slot] = ends[next];
+					slot = next;
+				}
+				next = (next + 1) & mask;
+			}
+			keys[slot] = null;
+			size--;
+		}
+
+		private void resize() {
+			String[] oldKeys = keys;
+			int[] oldStarts = starts;
+			int[] oldEnds = ends;
+			keys = new String[oldKeys.length * 2];
+			starts = new int[oldKeys.length * 2];
+			ends = new int[oldKeys.length * 2];
+			values = new String[oldKeys.length * 2];
+			size = 0;
+			for (int slot = 0; slot < oldKeys.length; slot++) {
+				if (oldKeys[slot] != null) {
+					put(oldKeys[slot], oldStarts[slot], oldEnds[slot]);
+				}
+			}
+		}
+
+		private static int spread(int hash) {
+			int h = hash * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+
+		private void parseValue(int depth) {
+			if (depth > MAX_DEPTH) {
+				throw error("JSON nested deeper than " + MAX_DEPTH + " levels");
+			}
+			skipWhitespace();
+			int start = position;
+			switch (peek()) {
+			case '{':
+				parseObject(depth);
+				return;
+			case '[':
+				parseArray(depth);
+				return;
+			case '"':
+				skipString();
+				put(path.toString(), start, position);
+				return;
+			case 't':
+				expect("true");
+				put(path.toString(), start, position);
+				return;
+			case 'f':
+				expect("false");
+				put(path.toString(), start, position);
+				return;
+			case 'n':
+				expect("null");
+				// A later null overrides an earlier value of a duplicate member
+				remove(path.toString());
+				return;
+			default:
+				skipNumber();
+				put(path.toString(), start, position);
+			}
+		}
+
+		private void parseObject(int depth) {
+			position++;
+			skipWhitespace();
+			if (peek() == '}') {
+				position++;
+				return;
+			}
+			int pathLength = path.length();
+			while (true) {
+				skipWhitespace();
+				if (peek() != '"') {
+					throw error("Expected a member name");
+				}
+				int nameStart = position;
+				skipString();
+				if (pathLength > 0) {
+					path.append('.');
+				}
+				path.append(decode(nameStart, position));
+				skipWhitespace();
+				if (next() != ':') {
+					throw error("Expected ':'");
+				}
+				parseValue(depth + 1);
+				path.setLength(pathLength);
+				skipWhitespace();
+				byte separator = next();
+				if (separator == '}') {
+					return;
+				}
+				if (separator != ',') {
+					throw error("Expected ',' or '}'");
+				}
+			}
+		}
+
+		private void parseArray(int depth) {
+			position++;
+			skipWhitespace();
+			if (peek() == ']') {
+				position++;
+				return;
+			}
+			int pathLength = path.length();
+			for (int element = 0; ; element++) {
+				if (pathLength > 0) {
+					path.append('.');
+				}
+				path.append(element);
+				parseValue(depth + 1);
+				path.setLength(pathLength);
+				skipWhitespace();
+				byte separator = next();
+				if (separator == ']') {
+					return;
+				}
+				if (separator != ',') {
+					throw error("Expected ',' or ']'");
+				}
+			}
+		}
+
+		private void skipString() {
+			position++;
+			while (true) {
+				byte b = next();
+				if (b == '"') {
+					return;
+				}
+				if (b == '\\') {
+					byte escaped = next();
+					if (escaped == 'u') {
+						for (int i = 0; i < 4; i++) {
+							if (Character.digit(next(), 16) < 0) {
+								throw error("Malformed \\u escape");
+							}
+						}
+					} else if ("\"\\/bfnrt".indexOf(escaped) < 0) {
+						throw error("Malformed escape");
+					}
+				} else if (b >= 0 && b < 0x20) {
+					throw error("Unescaped control character in string");
+				}
+			}
+		}
+
+		private void skipNumber() {
+			int start = position;
+			if (peek() == '-') {
+				position++;
+			}
+			if (skipDigits() == 0) {
+				throw error("Unexpected character");
+			}
+			if (peek() == '.') {
+				position++;
+				if (skipDigits() == 0) {
+					throw error("Malformed number");
+				}
+			}
+			if (peek() == 'e' || peek() == 'E') {
+				position++;
+				if (peek() == '+' || peek() == '-') {
+					position++;
+				}
+				if (skipDigits() == 0) {
+					throw error("Malformed number");
+				}
+			}
+			if (document[start] == '0' && position - start > 1 && document[start + 1] >= '0' && document[start + 1] <= '9'
+					|| document[start] == '-' && position - start > 2 && document[start + 1] == '0' && document[start + 2] >= '0' && document[start + 2] <= '9') {
+				throw error("Malformed number");
+			}
+		}
+
+		private int skipDigits() {
+			int start = position;
+			while (peek() >= '0' && peek() <= '9') {
+				position++;
+			}
+			return position - start;
+		}
+
+		private void expect(String literal) {
+			for (int i = 0; i < literal.length(); i++) {
+				if (next() != literal.charAt(i)) {
+					throw error("Unexpected character");
+				}
+			}
+		}
+
+		private void skipWhitespace() {
+			while (position < document.length) {
+				byte b = document[position];
+				if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+					return;
+				}
+				position++;
+			}
+		}
+
+		private byte peek() {
+			return position < document.length ? document[position] : -1;
+		}
+
+		private byte next() {
+			if (position >= document.length) {
+				throw error("Unexpected end of document");
+			}
+			return document[position++];
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at offset " + position);
+		}
+
+		/**
+		 * Decodes the raw value at the given location, which is a valid JSON string, number or boolean.
+		 */
+		private String decode(int start, int end) {
+			if (document[start] != '"') {
+				return new String(document, start, end - start, ISO_8859_1);
+			}
+			int contentStart = start + 1;
+			int contentEnd = end - 1;
+			int escape = contentStart;
+			while (escape < contentEnd && document[escape] != '\\') {
+				escape++;
+			}
+			if (escape == contentEnd) {
+				return new String(document, contentStart, contentEnd - contentStart, UTF_8);
+			}
+			StringBuilder result = new StringBuilder(contentEnd - contentStart);
+			int i = contentStart;
+			while (i < contentEnd) {
+				int runStart = i;
+				while (i < contentEnd && document[i] != '\\') {
+					i++;
+				}
+				result.append(new String(document, runStart, i - runStart, UTF_8));
+				if (i == contentEnd) {
+					break;
+				}
+				byte escaped = document[i + 1];
+				i += 2;
+				switch (escaped) {
+				case 'b':
+					result.append('\b');
+					break;
+				case 'f':
+					result.append('\f');
+					break;
+				case 'n':
+					result.append('\n');
+					break;
+				case 'r':
+					result.append('\r');
+					break;
+				case 't':
+					result.append('\t');
+					break;
+				case 'u':
+					result.append((char) Integer.parseInt(new String(document, i, 4, ISO_8859_1), 16));
+					i += 4;
+					break;
+				default:
+					result.append((char) escaped);
+				}
+			}
+			return result.toString();
+		}
+
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a method in a {@link ConfigInterface} to a property name. <p>
+ *
+ * The default value is given in its string form and validated at compile time. When no default
+ * value is given, numeric properties default to 0, boolean properties to false and string and
+ * enum properties to null.
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface Key {
+
+	/**
+	 * Marker for a {@link #defaultValue()} that is not set.
+	 */
+	String NO_DEFAULT_VALUE = "\u0000";
+
+	/**
+	 * The name of the property.
+	 */
+	String value();
+
+	/**
+	 * The default value of the property, parsed the same way as values read from a {@link ConfigSource}.
+	 */
+	String defaultValue() default NO_DEFAULT_VALUE;
+
+}
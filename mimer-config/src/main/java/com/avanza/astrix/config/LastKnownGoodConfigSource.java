@@ -0,0 +1,364 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DynamicConfigSource} decorator that keeps the last known good value of each property
+ * in a local journal file. <p>
+ *
+ * Properties are served from the journal immediately, while the wrapped source is queried asynchronously.
+ * Once the wrapped source returns, or later notifies a change, the new value is appended to the journal
+ * and pushed to all registered {@link DynamicPropertyListener}'s if it differs from the value already served.
+ * This allows a slow, or temporarily unavailable, remote source to be used without blocking property binding
+ * in {@link DynamicConfig}. <p>
+ *
+ * A property that fails to be read from the wrapped source keeps serving its last known good value, and is
+ * read again after a delay that doubles for each consecutive failure, up to one minute. <p>
+ *
+ * The journal is an append only file that is compacted each time it is opened, and each time the records
+ * appended since the last compaction outgrow the compacted journal. A partially written record at the end
+ * of the journal, for instance after a crash, is discarded.
+ *
+ */
+public final class LastKnownGoodConfigSource extends AbstractDynamicConfigSource implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(LastKnownGoodConfigSource.class);
+	private static final int NULL_VALUE = -1;
+	private static final Duration MIN_RETRY_DELAY = Duration.ofSeconds(1);
+	private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+	private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+	private final ConfigSource delegate;
+	private final Executor executor;
+	private final ExecutorService ownedExecutor;
+	private final Path journalFile;
+	private final ConcurrentMap<String, CachedProperty> properties = new ConcurrentHashMap<>();
+	private final long minRetryDelayMillis;
+	private final long minCompactionBytes;
+	private DataOutputStream journal;
+	// Size of the journal when it was last compacted
+	private long compactedBytes;
+	private volatile boolean closed;
+
+	private LastKnownGoodConfigSource(ConfigSource delegate, Path journalFile, Executor executor, ExecutorService ownedExecutor,
+									  Duration minRetryDelay, long minCompactionBytes) {
+		this.delegate = requireNonNull(delegate);
+		this.journalFile = requireNonNull(journalFile);
+		this.executor = requireNonNull(executor);
+		this.ownedExecutor = ownedExecutor;
+		this.minRetryDelayMillis = minRetryDelay.toMillis();
+		this.minCompactionBytes = minCompactionBytes;
+		readJournal().forEach((name, value) -> properties.put(name, new CachedProperty(name, value)));
+		this.journal = openJournal();
+	}
+
+	/**
+	 * Creates a LastKnownGoodConfigSource that queries the wrapped source using the given executor.
+	 */
+	public static LastKnownGoodConfigSource create(ConfigSource delegate, Path journalFile, Executor executor) {
+		return create(delegate, journalFile, executor, MIN_RETRY_DELAY, MIN_COMPACTION_BYTES);
+	}
+
+	static LastKnownGoodConfigSource create(ConfigSource delegate, Path journalFile, Executor executor,
+											Duration minRetryDelay, long minCompactionBytes) {
+		return new LastKnownGoodConfigSource(delegate, journalFile, executor, null, minRetryDelay, minCompactionBytes);
+	}
+
+	/**
+	 * Creates a LastKnownGoodConfigSource that queries the wrapped source on a dedicated daemon thread,
+	 * which is stopped when this source is closed.
+	 */
+	public static LastKnownGoodConfigSource create(ConfigSource delegate, Path journalFile) {
+		ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "LastKnownGoodConfigSource-" + journalFile.getFileName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		return new LastKnownGoodConfigSource(delegate, journalFile, executor, executor, MIN_RETRY_DELAY, MIN_COMPACTION_BYTES);
+	}
+
+	@Override
+	public String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+		CachedProperty property = properties.computeIfAbsent(propertyName, name -> new CachedProperty(name, null));
+		property.listeners.add(propertyChangeListener);
+		property.bindToDelegate();
+		return property.value;
+	}
+
+	@Override
+	public String get(String propertyName) {
+		CachedProperty property = properties.computeIfAbsent(propertyName, name -> new CachedProperty(name, null));
+		property.bindToDelegate();
+		return property.value;
+	}
+
+	@Override
+	public void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+		CachedProperty property = properties.get(propertyName);
+		if (property != null) {
+			property.listeners.remove(propertyChangeListener);
+		}
+	}
+
+	boolean hasListeners(String propertyName) {
+		CachedProperty property = properties.get(propertyName);
+		return property != null && !property.listeners.isEmpty();
+	}
+
+	@Override
+	public synchronized void close() {
+		closed = true;
+		if (ownedExecutor != null) {
+			ownedExecutor.shutdownNow();
+		}
+		if (journal != null) {
+			try {
+				journal.close();
+			} catch (IOException e) {
+				log.warn("Failed to close config journal: {}", journalFile, e);
+			}
+			journal = null;
+		}
+	}
+
+	private synchronized void appendToJournal(String propertyName, String value) {
+		if (journal == null) {
+			return;
+		}
+		try {
+			writeRecord(journal, propertyName, value);
+			journal.flush();
+		} catch (IOException e) {
+			log.warn("Failed to append property to config journal: {}", journalFile, e);
+			return;
+		}
+		if (journal.size() > Math.max(minCompactionBytes, compactedBytes)) {
+			compactJournal();
+		}
+	}
+
+	private void compactJournal() {
+		try {
+			journal.close();
+		} catch (IOException e) {
+			log.warn("Failed to close config journal: {}", journalFile, e);
+		}
+		try {
+			journal = openJournal();
+		} catch (UncheckedIOException e) {
+			log.warn("Failed to compact config journal, no further values will be journaled: {}", journalFile, e);
+			journal = null;
+		}
+	}
+
+	private Map<String, String> readJournal() {
+		Map<String, String> values = new HashMap<>();
+		if (!Files.exists(journalFile)) {
+			return values;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+			while (hasMoreRecords(in)) {
+				String name = readString(in);
+				String value = readString(in);
+				if (value == null) {
+					values.remove(name);
+				} else {
+					values.put(name, value);
+				}
+			}
+		} catch (EOFException e) {
+			log.info("Discarding incomplete record at end of config journal: {}", journalFile);
+		} catch (IOException e) {
+			log.warn("Failed to read config journal: {}", journalFile, e);
+		}
+		return values;
+	}
+
+	private DataOutputStream openJournal() {
+		try {
+			Path absoluteJournalFile = journalFile.toAbsolutePath();
+			Path compacted = Files.createTempFile(absoluteJournalFile.getParent(), absoluteJournalFile.getFileName().toString(), ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(compacted)))) {
+				for (CachedProperty property : properties.values()) {
+					String value = property.value;
+					if (value != null) {
+						writeRecord(out, property.name, value);
+					}
+				}
+			}
+			compactedBytes = Files.size(compacted);
+			Files.move(compacted, absoluteJournalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			OutputStream out = Files.newOutputStream(absoluteJournalFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			return new DataOutputStream(new BufferedOutputStream(out));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to open config journal: " + journalFile, e);
+		}
+	}
+
+	private static void writeRecord(DataOutputStream out, String name, String value) throws IOException {
+		writeString(out, name);
+		writeString(out, value);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(NULL_VALUE);
+		} else {
+			byte[] bytes = value.getBytes(UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static boolean hasMoreRecords(DataInputStream in) throws IOException {
+		in.mark(1);
+		boolean hasMoreRecords = in.read() >= 0;
+		in.reset();
+		return hasMoreRecords;
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length == NULL_VALUE) {
+			return null;
+		}
+		if (length < 0) {
+			throw new IOException("Corrupt record length: " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	@Override
+	public String toString() {
+		return "LastKnownGoodConfigSource(" + delegate + ", journal=" + journalFile + ")";
+	}
+
+	private final class CachedProperty implements DynamicPropertyListener<String> {
+
+		private final String name;
+		private final Queue<DynamicPropertyListener<String>> listeners = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean boundToDelegate = new AtomicBoolean();
+		private volatile String value;
+		// Only accessed by the single pending read of this property
+		private int failedReads;
+
+		CachedProperty(String name, String value) {
+			this.name = name;
+			this.value = value;
+		}
+
+		void bindToDelegate() {
+			if (boundToDelegate.compareAndSet(false, true)) {
+				readFromDelegate();
+			}
+		}
+
+		private void readFromDelegate() {
+			if (closed) {
+				return;
+			}
+			executor.execute(() -> {
+				String newValue;
+				try {
+					newValue = getFromDelegate();
+				} catch (RuntimeException e) {
+					long retryDelayMillis = retryDelayMillis(failedReads++);
+					log.warn("Failed to read property {} from {}, serving last known good value and retrying in {} ms",
+							name, delegate, retryDelayMillis, e);
+					if (delegate instanceof DynamicConfigSource) {
+						((DynamicConfigSource) delegate).removeListener(name, this);
+					}
+					RetryScheduler.INSTANCE.schedule(this::readFromDelegate, retryDelayMillis, TimeUnit.MILLISECONDS);
+					return;
+				}
+				failedReads = 0;
+				propertyChanged(newValue);
+			});
+		}
+
+		private long retryDelayMillis(int failedReads) {
+			long maxRetryDelayMillis = Math.max(minRetryDelayMillis, MAX_RETRY_DELAY.toMillis());
+			return Math.min(minRetryDelayMillis << Math.min(failedReads, 20), maxRetryDelayMillis);
+		}
+
+		private String getFromDelegate() {
+			if (delegate instanceof DynamicConfigSource) {
+				return ((DynamicConfigSource) delegate).get(name, this);
+			}
+			return delegate.get(name);
+		}
+
+		@Override
+		public synchronized void propertyChanged(String newValue) {
+			if (Objects.equals(value, newValue)) {
+				return;
+			}
+			value = newValue;
+			appendToJournal(name, newValue);
+			listeners.forEach(l -> l.propertyChanged(newValue));
+		}
+
+	}
+
+	/**
+	 * Schedules reads that are retried after a failure, shared by all instances since retries are rare.
+	 */
+	private static final class RetryScheduler {
+
+		static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "LastKnownGoodConfigSource-retry");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+	}
+
+}
@@ -17,39 +17,96 @@ package com.avanza.astrix.config;
 
 import static java.util.Objects.requireNonNull;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Listeners are kept in a copy-on-write array, so dispatching an event does not allocate
+ * unless the notification itself does. The primitive dispatch methods take a non-capturing
+ * notification, such as a method reference, along with the value to notify.
  *
  * @author Elias Lindholm (elilin)
  */
 final class ListenerSupport<T> {
 	
 	private static final Logger log = LoggerFactory.getLogger(ListenerSupport.class);
+	private static final Object[] NO_LISTENERS = new Object[0];
 	
-	private final Queue<SubscribedListener> listeners = new ConcurrentLinkedQueue<>();
+	private volatile Object[] listeners = NO_LISTENERS;
 	
-	void addListener(T l) {
-		listeners.add(new SubscribedListener(l));
+	synchronized void addListener(T l) {
+		Object[] current = listeners;
+		Object[] updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = new SubscribedListener(l);
+		listeners = updated;
 	}
 	
 	void dispatchEvent(Consumer<T> eventNotification) {
-		for (SubscribedListener subscribedListener : listeners) {
+		for (Object subscribedListener : listeners) {
 			try {
-				eventNotification.accept(subscribedListener.listener);
+				eventNotification.accept(listener(subscribedListener));
 			} catch (RuntimeException exception) {
 				log.warn("Error when notifying listener {}", subscribedListener, exception);
 			}
 		}
 	}
 	
-	void removeListener(T l) {
-		listeners.remove(new SubscribedListener(l));
+	<A> void dispatchEvent(BiConsumer<T, A> eventNotification, A value) {
+		for (Object subscribedListener : listeners) {
+			try {
+				eventNotification.accept(listener(subscribedListener), value);
+			} catch (RuntimeException exception) {
+				log.warn("Error when notifying listener {}", subscribedListener, exception);
+			}
+		}
+	}
+	
+	void dispatchIntEvent(ObjIntConsumer<T> eventNotification, int value) {
+		for (Object subscribedListener : listeners) {
+			try {
+				eventNotification.accept(listener(subscribedListener), value);
+			} catch (RuntimeException exception) {
+				log.warn("Error when notifying listener {}", subscribedListener, exception);
+			}
+		}
+	}
+	
+	void dispatchLongEvent(ObjLongConsumer<T> eventNotification, long value) {
+		for (Object subscribedListener : listeners) {
+			try {
+				eventNotification.accept(listener(subscribedListener), value);
+			} catch (RuntimeException exception) {
+				log.warn("Error when notifying listener {}", subscribedListener, exception);
+			}
+		}
+	}
+	
+	boolean isEmpty() {
+		return listeners.length == 0;
+	}
+	
+	synchronized void removeListener(T l) {
+		Object[] current = listeners;
+		for (int i = 0; i < current.length; i++) {
+			if (listener(current[i]) == l) {
+				Object[] updated = new Object[current.length - 1];
+				System.arraycopy(current, 0, updated, 0, i);
+				System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+				listeners = updated;
+				return;
+			}
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private T listener(Object subscribedListener) {
+		return ((SubscribedListener) subscribedListener).listener;
 	}
 	
 	private class SubscribedListener {
@@ -59,20 +116,6 @@ final class ListenerSupport<T> {
 			this.listener = requireNonNull(l);
 		}
 
-		@Override
-		public boolean equals(Object obj) {
-			if (obj instanceof ListenerSupport<?>.SubscribedListener) {
-				return listener == ((ListenerSupport<?>.SubscribedListener) obj).listener;
-			} else {
-				return false;
-			}
-		}
-		
-		@Override
-		public int hashCode() {
-			return System.identityHashCode(listener);
-		}
-		
 		@Override
 		public String toString() {
 			return "DynamicConfigListener(" + this.listener.toString() + ")";
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+/**
+ * Listener for subscribing to a {@link DynamicLongProperty} without boxing, see {@link DynamicPropertyListener}.<p>
+ */
+@FunctionalInterface
+public interface LongPropertyListener {
+
+	/**
+	 * Invoked each time the value of the property changes, on the same
+	 * thread that changes the state of the property.
+	 */
+	void propertyChanged(long newValue);
+
+}
@@ -26,6 +26,7 @@ public class LongSetting implements Setting<Long> {
 	
 	private final String name;
 	private final long defaultValue;
+	private final int slot = DynamicConfig.allocateSettingSlot();
 	
 	private LongSetting(String name, long defaultValue) {
 		this.name = requireNonNull(name);
@@ -38,7 +39,7 @@ public class LongSetting implements Setting<Long> {
 
 	@Override
 	public DynamicLongProperty getFrom(DynamicConfig config) {
-		return config.getLongProperty(name, defaultValue);
+		return config.getSettingProperty(slot, this, (setting, c) -> c.getLongProperty(setting.name, setting.defaultValue));
 	}
 
 	@Override
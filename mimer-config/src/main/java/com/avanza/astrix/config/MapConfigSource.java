@@ -17,20 +17,49 @@ package com.avanza.astrix.config;
 
 import java.util.Map;
 import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.BiConsumer;
 
 /**
  * Map backed {@link DynamicConfigSource} useful in testing. <p>
  *
+ * A MapConfigSource created by {@link #compact()} uses a storage mode intended for very large
+ * sources where most properties are never listened to. <p>
+ *
  * @author Elias Lindholm (elilin)
  */
-public class MapConfigSource extends AbstractDynamicConfigSource implements MutableConfigSource {
+public class MapConfigSource extends AbstractDynamicConfigSource implements MutableConfigSource, EnumerableConfigSource {
 
-	private final ConcurrentMap<String, ListenableStringProperty> propertyValues = new ConcurrentHashMap<>();
+	private final PropertyStorage storage;
+	private final ListenerSupport<DynamicConfigListener> listenerSupport = new ListenerSupport<>();
 
 	public MapConfigSource() {
+		this(new ListenablePropertyStorage());
+	}
+
+	private MapConfigSource(PropertyStorage storage) {
+		this.storage = storage;
+	}
+
+	/**
+	 * Creates an empty MapConfigSource that keeps all values in a compact open addressing table,
+	 * and only allocates listener structures for properties that are actually listened to. Reading
+	 * a property that is not set does not allocate anything, and listening to a property that is
+	 * not set only allocates its listener queue. <p>
+	 *
+	 * The default mode allocates a listenable entry for each property that is set, and for each
+	 * property that is listened to even if it is never set, so the memory saving only applies to
+	 * sources created by this method, see MapConfigSourceFootprintBenchmark. <p>
+	 *
+	 * Prefix queries have to scan all properties in this mode.
+	 */
+	public static MapConfigSource compact() {
+		return new MapConfigSource(new CompactPropertyStorage());
 	}
 
 	public static MapConfigSource of(Map<String, ?> source) {
@@ -65,13 +94,41 @@ public class MapConfigSource extends AbstractDynamicConfigSource implements Muta
 
 	@Override
 	public String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
-		ListenableStringProperty dynamicProperty = getProperty(propertyName);
-		dynamicProperty.listeners.add(propertyChangeListener);
-		return dynamicProperty.value;
+		return storage.get(propertyName, propertyChangeListener);
+	}
+
+	@Override
+	public String get(String propertyName) {
+		return storage.get(propertyName);
+	}
+
+	@Override
+	public void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+		storage.removeListener(propertyName, propertyChangeListener);
 	}
 
 	public void set(String propertyName, String value) {
-		getProperty(propertyName).set(value);
+		storage.set(propertyName, value);
+		if (!listenerSupport.isEmpty()) {
+			listenerSupport.dispatchEvent(l -> l.propertyChanged(propertyName, value));
+		}
+	}
+
+	/**
+	 * Adds a listener notified with the raw value each time a property in this source is set,
+	 * after the listeners of the property itself. A cleared property is notified with null.
+	 */
+	public void addListener(DynamicConfigListener listener) {
+		listenerSupport.addListener(listener);
+	}
+
+	public void removeListener(DynamicConfigListener listener) {
+		listenerSupport.removeListener(listener);
+	}
+
+	@Override
+	public SortedMap<String, String> getPropertiesWithPrefix(String prefix) {
+		return storage.getPropertiesWithPrefix(prefix);
 	}
 
 	@Override
@@ -99,17 +156,108 @@ public class MapConfigSource extends AbstractDynamicConfigSource implements Muta
 		set(setting.name(), value == null ? null : value.name());
 	}
 
-	private ListenableStringProperty getProperty(String propertyName) {
-		return propertyValues.computeIfAbsent(propertyName, key -> new ListenableStringProperty());
+	/**
+	 * Sets all properties in the given source as one batch, see {@link DynamicObjectProperty}.
+	 */
+	public void setAll(MapConfigSource config) {
+		UpdateBatch.run(() -> config.storage.forEach(this::set));
 	}
 
-	public void setAll(MapConfigSource config) {
-		config.propertyValues.forEach((key, value) -> set(key, value.value));
+	/**
+	 * Sets all given properties as one batch, see {@link DynamicObjectProperty}. A null value
+	 * clears the property.
+	 */
+	public void setAll(Map<String, String> properties) {
+		UpdateBatch.run(() -> properties.forEach(this::set));
 	}
 
 	@Override
 	public String toString() {
-		return this.propertyValues.toString();
+		return this.storage.toString();
+	}
+
+	private interface PropertyStorage {
+
+		String get(String propertyName);
+
+		String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener);
+
+		void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener);
+
+		void set(String propertyName, String value);
+
+		SortedMap<String, String> getPropertiesWithPrefix(String prefix);
+
+		/**
+		 * Iterates all properties, including properties that are cleared.
+		 */
+		void forEach(BiConsumer<String, String> action);
+
+	}
+
+	private static class ListenablePropertyStorage implements PropertyStorage {
+
+		private final ConcurrentMap<String, ListenableStringProperty> propertyValues = new ConcurrentHashMap<>();
+		// Sorted index of all names ever set, used for prefix queries. Entries whose value is cleared are filtered on read.
+		private final ConcurrentSkipListSet<String> sortedPropertyNames = new ConcurrentSkipListSet<>();
+
+		@Override
+		public String get(String propertyName) {
+			ListenableStringProperty property = propertyValues.get(propertyName);
+			return property == null ? null : property.value;
+		}
+
+		@Override
+		public String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+			ListenableStringProperty dynamicProperty = getProperty(propertyName);
+			dynamicProperty.listeners.add(propertyChangeListener);
+			return dynamicProperty.value;
+		}
+
+		@Override
+		public void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+			ListenableStringProperty property = propertyValues.get(propertyName);
+			if (property != null) {
+				property.listeners.remove(propertyChangeListener);
+			}
+		}
+
+		@Override
+		public void set(String propertyName, String value) {
+			if (value != null) {
+				sortedPropertyNames.add(propertyName);
+			}
+			getProperty(propertyName).set(value);
+		}
+
+		@Override
+		public SortedMap<String, String> getPropertiesWithPrefix(String prefix) {
+			SortedMap<String, String> result = new TreeMap<>();
+			for (String propertyName : sortedPropertyNames.tailSet(prefix)) {
+				if (!propertyName.startsWith(prefix)) {
+					break;
+				}
+				String value = get(propertyName);
+				if (value != null) {
+					result.put(propertyName, value);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public void forEach(BiConsumer<String, String> action) {
+			propertyValues.forEach((key, value) -> action.accept(key, value.value));
+		}
+
+		private ListenableStringProperty getProperty(String propertyName) {
+			return propertyValues.computeIfAbsent(propertyName, key -> new ListenableStringProperty());
+		}
+
+		@Override
+		public String toString() {
+			return this.propertyValues.toString();
+		}
 	}
 
 	private static class ListenableStringProperty {
@@ -131,4 +279,53 @@ public class MapConfigSource extends AbstractDynamicConfigSource implements Muta
 		}
 	}
 
+	private static class CompactPropertyStorage implements PropertyStorage {
+
+		private final CompactPropertyTable propertyValues = new CompactPropertyTable();
+		private final PropertySubscriptions subscriptions = new PropertySubscriptions();
+
+		@Override
+		public String get(String propertyName) {
+			return propertyValues.get(propertyName);
+		}
+
+		@Override
+		public String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+			subscriptions.subscribe(propertyName, propertyChangeListener);
+			return propertyValues.get(propertyName);
+		}
+
+		@Override
+		public void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+			subscriptions.unsubscribe(propertyName, propertyChangeListener);
+		}
+
+		@Override
+		public void set(String propertyName, String value) {
+			propertyValues.put(propertyName, value);
+			subscriptions.propertyChanged(propertyName, value);
+		}
+
+		@Override
+		public SortedMap<String, String> getPropertiesWithPrefix(String prefix) {
+			SortedMap<String, String> result = new TreeMap<>();
+			propertyValues.forEach((propertyName, value) -> {
+				if (value != null && propertyName.startsWith(prefix)) {
+					result.put(propertyName, value);
+				}
+			});
+			return result;
+		}
+
+		@Override
+		public void forEach(BiConsumer<String, String> action) {
+			propertyValues.forEach(action);
+		}
+
+		@Override
+		public String toString() {
+			return getPropertiesWithPrefix("").toString();
+		}
+	}
+
 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A read-only {@link ConfigSource} backed by a memory mapped config snapshot. <p>
+ *
+ * A snapshot is a sorted string table written by {@link #writeSnapshot(Path, Map)}. Opening a
+ * snapshot only maps the file, all lookups are done by binary search directly against the mapped
+ * buffer and values are decoded lazily the first time they are read. This makes it a cheap
+ * source to put in front of slower sources during startup. <p>
+ *
+ * Snapshot layout (all integers big endian):
+ * <pre>
+ * int magic, int formatVersion, int entryCount
+ * int[entryCount] entryOffsets
+ * entries: int keyLength, byte[] utf8Key, int valueLength, byte[] utf8Value
+ * </pre>
+ * Entries are sorted on the unsigned byte order of their UTF-8 encoded keys.
+ *
+ */
+public final class MappedConfigSource implements EnumerableConfigSource {
+
+	private static final int MAGIC = 0x4D494D52;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 12;
+
+	private final ByteBuffer buffer;
+	private final int entryCount;
+	private final String[] decodedValues;
+	private final String description;
+
+	private MappedConfigSource(ByteBuffer buffer, String description) {
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a config snapshot: " + description);
+		}
+		if (buffer.getInt(4) != FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unsupported config snapshot format version " + buffer.getInt(4) + ": " + description);
+		}
+		this.buffer = buffer;
+		this.entryCount = buffer.getInt(8);
+		this.decodedValues = new String[entryCount];
+		this.description = description;
+	}
+
+	/**
+	 * Opens a snapshot previously written by one of the writeSnapshot methods.
+	 */
+	public static MappedConfigSource open(Path snapshot) {
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Config snapshot too large: " + snapshot);
+			}
+			return new MappedConfigSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), snapshot.toString());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to open config snapshot: " + snapshot, e);
+		}
+	}
+
+	/**
+	 * Writes the value of each property read from the given {@link DynamicConfig}, as read from the
+	 * source it currently resolves to. Properties that resolve to their default value are not written,
+	 * hence a default changed in code takes effect also when starting from the snapshot.
+	 */
+	public static void writeSnapshot(Path target, DynamicConfig config) {
+		writeSnapshot(target, config.getResolvedValues());
+	}
+
+	/**
+	 * Writes all properties currently set in the given {@link MapConfigSource}.
+	 */
+	public static void writeSnapshot(Path target, MapConfigSource configSource) {
+		writeSnapshot(target, configSource.getPropertiesWithPrefix(""));
+	}
+
+	/**
+	 * Writes a snapshot of the given properties. The snapshot is written to a temporary file
+	 * which is atomically moved to the target path, hence a snapshot can be replaced while
+	 * other processes have the previous version opened.
+	 */
+	public static void writeSnapshot(Path target, Map<String, String> properties) {
+		List<byte[][]> entries = new ArrayList<>(properties.size());
+		long size = HEADER_SIZE + 4L * properties.size();
+		for (Map.Entry<String, String> property : properties.entrySet()) {
+			byte[] key = property.getKey().getBytes(UTF_8);
+			byte[] value = requireNonNull(property.getValue(), property.getKey()).getBytes(UTF_8);
+			entries.add(new byte[][] { key, value });
+			size += 8L + key.length + value.length;
+		}
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Config snapshot too large: " + size + " bytes");
+		}
+		entries.sort((a, b) -> compareUnsigned(a[0], b[0]));
+
+		ByteBuffer snapshot = ByteBuffer.allocate((int) size);
+		snapshot.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(entries.size());
+		int entryOffset = HEADER_SIZE + 4 * entries.size();
+		for (byte[][] entry : entries) {
+			snapshot.putInt(entryOffset);
+			entryOffset += 8 + entry[0].length + entry[1].length;
+		}
+		for (byte[][] entry : entries) {
+			snapshot.putInt(entry[0].length).put(entry[0]);
+			snapshot.putInt(entry[1].length).put(entry[1]);
+		}
+		snapshot.flip();
+		try {
+			Path absoluteTarget = target.toAbsolutePath();
+			Path temp = Files.createTempFile(absoluteTarget.getParent(), absoluteTarget.getFileName().toString(), ".tmp");
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				while (snapshot.hasRemaining()) {
+					channel.write(snapshot);
+				}
+				channel.force(true);
+			}
+			Files.move(temp, absoluteTarget, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write config snapshot: " + target, e);
+		}
+	}
+
+	@Override
+	public String get(String propertyName) {
+		int index = indexOf(propertyName.getBytes(UTF_8));
+		return index < 0 ? null : valueAt(index);
+	}
+
+	@Override
+	public SortedMap<String, String> getPropertiesWithPrefix(String prefix) {
+		byte[] encodedPrefix = prefix.getBytes(UTF_8);
+		int index = indexOf(encodedPrefix);
+		SortedMap<String, String> result = new TreeMap<>();
+		for (int i = index < 0 ? -(index + 1) : index; i < entryCount && keyAtStartsWith(i, encodedPrefix); i++) {
+			result.put(keyAt(i), valueAt(i));
+		}
+		return result;
+	}
+
+	/**
+	 * The number of properties in this snapshot.
+	 */
+	public int size() {
+		return entryCount;
+	}
+
+	private int indexOf(byte[] key) {
+		int low = 0;
+		int high = entryCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int comparison = compareKeyAt(mid, key);
+			if (comparison < 0) {
+				low = mid + 1;
+			} else if (comparison > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	private int entryOffset(int index) {
+		return buffer.getInt(HEADER_SIZE + 4 * index);
+	}
+
+	private int compareKeyAt(int index, byte[] key) {
+		int offset = entryOffset(index);
+		int length = buffer.getInt(offset);
+		int keyStart = offset + 4;
+		int commonLength = Math.min(length, key.length);
+		for (int i = 0; i < commonLength; i++) {
+			int comparison = Integer.compare(buffer.get(keyStart + i) & 0xFF, key[i] & 0xFF);
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+		return Integer.compare(length, key.length);
+	}
+
+	private boolean keyAtStartsWith(int index, byte[] prefix) {
+		int offset = entryOffset(index);
+		if (buffer.getInt(offset) < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (buffer.get(offset + 4 + i) != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String keyAt(int index) {
+		int offset = entryOffset(index);
+		return decode(offset + 4, buffer.getInt(offset));
+	}
+
+	private String valueAt(int index) {
+		String value = decodedValues[index];
+		if (value == null) {
+			int offset = entryOffset(index);
+			int valueOffset = offset + 4 + buffer.getInt(offset);
+			value = decode(valueOffset + 4, buffer.getInt(valueOffset));
+			decodedValues[index] = value;
+		}
+		return value;
+	}
+
+	private String decode(int offset, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer value = buffer.duplicate();
+		value.position(offset);
+		value.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	private static int compareUnsigned(byte[] a, byte[] b) {
+		int commonLength = Math.min(a.length, b.length);
+		for (int i = 0; i < commonLength; i++) {
+			int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+		return Integer.compare(a.length, b.length);
+	}
+
+	@Override
+	public String toString() {
+		return "MappedConfigSource: " + description;
+	}
+
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A {@link DynamicConfigSource} that keeps all properties outside of the java heap, intended for
+ * configuration that is really data, for instance millions of per instrument limits. <p>
+ *
+ * Properties are stored as UTF-8 encoded records appended to direct {@link ByteBuffer} slabs, and
+ * located through an open addressing hash index which is also held in a direct buffer. Hence the
+ * heap footprint, and the work for the garbage collector, does not grow with the number of properties.
+ * Records replaced by updates are reclaimed by compacting the slabs once they make up more than half
+ * of the stored data. <p>
+ *
+ * Reads are optimistic and lock free, using the seqlock style versioning of a {@link StampedLock}, and
+ * only fall back to a read lock when racing with a writer. Writes are serialized. {@link DynamicPropertyListener}'s
+ * are only allocated for properties that are subscribed to, and are notified after each write.
+ *
+ */
+public final class OffHeapConfigSource extends AbstractDynamicConfigSource implements MutableConfigSource {
+
+	private static final int DEFAULT_SLAB_SIZE = 1 << 20;
+	private static final int MIN_INDEX_CAPACITY = 64;
+	private static final int RECORD_HEADER_SIZE = 8;
+	private static final int SLOT_SIZE = 16;
+	private static final int NULL_VALUE = -1;
+
+	private final StampedLock lock = new StampedLock();
+	private final PropertySubscriptions subscriptions = new PropertySubscriptions();
+	private final int slabSize;
+
+	// All state below is written under the write lock, and read under an optimistic or pessimistic read lock
+	private ByteBuffer[] slabs;
+	private int slabCount;
+	private ByteBuffer index;
+	private int usedSlots;
+	private long liveBytes;
+	private long garbageBytes;
+
+	private OffHeapConfigSource(int slabSize) {
+		if (slabSize < RECORD_HEADER_SIZE) {
+			throw new IllegalArgumentException("slabSize: " + slabSize);
+		}
+		this.slabSize = slabSize;
+		this.slabs = new ByteBuffer[] { ByteBuffer.allocateDirect(slabSize) };
+		this.slabCount = 1;
+		this.index = ByteBuffer.allocateDirect(MIN_INDEX_CAPACITY * SLOT_SIZE);
+	}
+
+	public static OffHeapConfigSource create() {
+		return new OffHeapConfigSource(DEFAULT_SLAB_SIZE);
+	}
+
+	/**
+	 * Creates an OffHeapConfigSource that allocates memory in slabs of the given size. Properties
+	 * larger than the slab size are stored in a dedicated slab.
+	 */
+	public static OffHeapConfigSource create(int slabSize) {
+		return new OffHeapConfigSource(slabSize);
+	}
+
+	@Override
+	public String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+		subscriptions.subscribe(propertyName, propertyChangeListener);
+		return get(propertyName);
+	}
+
+	@Override
+	public void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+		subscriptions.unsubscribe(propertyName, propertyChangeListener);
+	}
+
+	@Override
+	public String get(String propertyName) {
+		byte[] key = propertyName.getBytes(UTF_8);
+		int hash = propertyName.hashCode();
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				String value = lookup(key, hash);
+				if (lock.validate(stamp)) {
+					return value;
+				}
+			} catch (RuntimeException e) {
+				// Torn read while racing with a writer, retry under read lock
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			return lookup(key, hash);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public void set(String propertyName, String value) {
+		byte[] key = propertyName.getBytes(UTF_8);
+		long stamp = lock.writeLock();
+		try {
+			put(key, propertyName.hashCode(), value == null ? null : value.getBytes(UTF_8));
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		subscriptions.propertyChanged(propertyName, value);
+	}
+
+	@Override
+	public <T> void set(Setting<T> setting, T value) {
+		set(setting.name(), value == null ? null : value.toString());
+	}
+
+	@Override
+	public <T extends Enum<T>> void set(EnumSetting<T> setting, T value) {
+		set(setting.name(), value == null ? null : value.name());
+	}
+
+	/**
+	 * The number of properties in this source, including properties that have been cleared
+	 * but not yet reclaimed.
+	 */
+	public int size() {
+		long stamp = lock.readLock();
+		try {
+			return usedSlots;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * The number of bytes of direct memory currently allocated by this source.
+	 */
+	public long allocatedBytes() {
+		long stamp = lock.readLock();
+		try {
+			long allocated = index.capacity();
+			for (int i = 0; i < slabCount; i++) {
+				allocated += slabs[i].capacity();
+			}
+			return allocated;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	private String lookup(byte[] key, int hash) {
+		ByteBuffer index = this.index;
+		ByteBuffer[] slabs = this.slabs;
+		int mask = index.capacity() / SLOT_SIZE - 1;
+		int slot = spread(hash) & mask;
+		for (int probe = 0; probe <= mask; probe++) {
+			long address = index.getLong(slot * SLOT_SIZE + 8);
+			if (address == 0) {
+				return null;
+			}
+			if (index.getInt(slot * SLOT_SIZE) == hash && keyEquals(slabs, address - 1, key)) {
+				return readValue(slabs, address - 1);
+			}
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	private static boolean keyEquals(ByteBuffer[] slabs, long address, byte[] key) {
+		ByteBuffer slab = slabs[slabIndex(address)];
+		int offset = slabOffset(address);
+		if (slab.getInt(offset) != key.length) {
+			return false;
+		}
+		int keyOffset = offset + RECORD_HEADER_SIZE;
+		for (int i = 0; i < key.length; i++) {
+			if (slab.get(keyOffset + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String readValue(ByteBuffer[] slabs, long address) {
+		ByteBuffer slab = slabs[slabIndex(address)];
+		int offset = slabOffset(address);
+		int keyLength = slab.getInt(offset);
+		int valueLength = slab.getInt(offset + 4);
+		if (valueLength == NULL_VALUE) {
+			return null;
+		}
+		int valueOffset = offset + RECORD_HEADER_SIZE + keyLength;
+		if (keyLength < 0 || valueLength < 0 || valueOffset + valueLength > slab.capacity()) {
+			throw new IndexOutOfBoundsException("Torn record at " + address);
+		}
+		byte[] value = new byte[valueLength];
+		ByteBuffer view = slab.duplicate();
+		view.position(valueOffset);
+		view.get(value);
+		return new String(value, UTF_8);
+	}
+
+	private void put(byte[] key, int hash, byte[] value) {
+		int slot = findSlot(index, slabs, key, hash);
+		long existing = index.getLong(slot * SLOT_SIZE + 8);
+		if (existing == 0) {
+			if (value == null) {
+				return;
+			}
+			if (usedSlots + 1 > index.capacity() / SLOT_SIZE / 2) {
+				index = rehash(index.capacity() / SLOT_SIZE * 2);
+				slot = findSlot(index, slabs, key, hash);
+			}
+			usedSlots++;
+		} else {
+			int replacedRecordSize = recordSize(slabs, existing - 1);
+			liveBytes -= replacedRecordSize;
+			garbageBytes += replacedRecordSize;
+		}
+		long address = append(key, value);
+		index.putInt(slot * SLOT_SIZE, hash);
+		index.putLong(slot * SLOT_SIZE + 8, address + 1);
+		if (garbageBytes > liveBytes && garbageBytes > slabSize) {
+			compact();
+		}
+	}
+
+	private long append(byte[] key, byte[] value) {
+		int recordSize = RECORD_HEADER_SIZE + key.length + (value == null ? 0 : value.length);
+		ByteBuffer slab = slabs[slabCount - 1];
+		if (slab.remaining() < recordSize) {
+			slab = ByteBuffer.allocateDirect(Math.max(slabSize, recordSize));
+			if (slabCount == slabs.length) {
+				slabs = Arrays.copyOf(slabs, slabCount * 2);
+			}
+			slabs[slabCount++] = slab;
+		}
+		long address = ((long) (slabCount - 1) << 32) | slab.position();
+		slab.putInt(key.length);
+		slab.putInt(value == null ? NULL_VALUE : value.length);
+		slab.put(key);
+		if (value != null) {
+			slab.put(value);
+		}
+		liveBytes += recordSize;
+		return address;
+	}
+
+	private ByteBuffer rehash(int capacity) {
+		ByteBuffer rehashed = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+		int mask = capacity - 1;
+		for (int slot = 0; slot < index.capacity() / SLOT_SIZE; slot++) {
+			long address = index.getLong(slot * SLOT_SIZE + 8);
+			if (address != 0) {
+				int hash = index.getInt(slot * SLOT_SIZE);
+				int newSlot = spread(hash) & mask;
+				while (rehashed.getLong(newSlot * SLOT_SIZE + 8) != 0) {
+					newSlot = (newSlot + 1) & mask;
+				}
+				rehashed.putInt(newSlot * SLOT_SIZE, hash);
+				rehashed.putLong(newSlot * SLOT_SIZE + 8, address);
+			}
+		}
+		return rehashed;
+	}
+
+	/**
+	 * Copies all properties that hold a value to new slabs, dropping replaced and cleared records.
+	 */
+	private void compact() {
+		ByteBuffer[] oldSlabs = slabs;
+		ByteBuffer oldIndex = index;
+		slabs = new ByteBuffer[] { ByteBuffer.allocateDirect(slabSize) };
+		slabCount = 1;
+		liveBytes = 0;
+		garbageBytes = 0;
+		usedSlots = 0;
+		int capacity = MIN_INDEX_CAPACITY;
+		for (int slot = 0; slot < oldIndex.capacity() / SLOT_SIZE; slot++) {
+			long address = oldIndex.getLong(slot * SLOT_SIZE + 8);
+			if (address != 0 && oldSlabs[slabIndex(address - 1)].getInt(slabOffset(address - 1) + 4) != NULL_VALUE) {
+				usedSlots++;
+			}
+		}
+		while (capacity / 2 < usedSlots + 1) {
+			capacity <<= 1;
+		}
+		index = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+		int mask = capacity - 1;
+		for (int slot = 0; slot < oldIndex.capacity() / SLOT_SIZE; slot++) {
+			long address = oldIndex.getLong(slot * SLOT_SIZE + 8);
+			if (address == 0) {
+				continue;
+			}
+			ByteBuffer oldSlab = oldSlabs[slabIndex(address - 1)];
+			int offset = slabOffset(address - 1);
+			int keyLength = oldSlab.getInt(offset);
+			int valueLength = oldSlab.getInt(offset + 4);
+			if (valueLength == NULL_VALUE) {
+				continue;
+			}
+			byte[] key = new byte[keyLength];
+			byte[] value = new byte[valueLength];
+			ByteBuffer record = oldSlab.duplicate();
+			record.position(offset + RECORD_HEADER_SIZE);
+			record.get(key);
+			record.get(value);
+			int hash = oldIndex.getInt(slot * SLOT_SIZE);
+			int newSlot = spread(hash) & mask;
+			while (index.getLong(newSlot * SLOT_SIZE + 8) != 0) {
+				newSlot = (newSlot + 1) & mask;
+			}
+			index.putInt(newSlot * SLOT_SIZE, hash);
+			index.putLong(newSlot * SLOT_SIZE + 8, append(key, value) + 1);
+		}
+	}
+
+	private static int findSlot(ByteBuffer index, ByteBuffer[] slabs, byte[] key, int hash) {
+		int mask = index.capacity() / SLOT_SIZE - 1;
+		int slot = spread(hash) & mask;
+		while (true) {
+			long address = index.getLong(slot * SLOT_SIZE + 8);
+			if (address == 0 || (index.getInt(slot * SLOT_SIZE) == hash && keyEquals(slabs, address - 1, key))) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private static int recordSize(ByteBuffer[] slabs, long address) {
+		ByteBuffer slab = slabs[slabIndex(address)];
+		int offset = slabOffset(address);
+		int valueLength = slab.getInt(offset + 4);
+		return RECORD_HEADER_SIZE + slab.getInt(offset) + (valueLength == NULL_VALUE ? 0 : valueLength);
+	}
+
+	private static int slabIndex(long address) {
+		return (int) (address >>> 32);
+	}
+
+	private static int slabOffset(long address) {
+		return (int) address;
+	}
+
+	private static int spread(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	@Override
+	public String toString() {
+		return "OffHeapConfigSource(size=" + size() + ")";
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.function.LongSupplier;
+
+/**
+ * DynamicProperty of long type whose value occupies a cache line of its own, see {@link DynamicProperty}. <p>
+ *
+ * Properties bound at the same time are allocated next to each other, hence the values of unrelated
+ * {@link DynamicLongProperty}'s typically share a cache line. Updating one of them then slows down reads
+ * of the others on all other cores. A PaddedLongProperty is padded to keep its value on a cache line of
+ * its own, at the cost of about 128 additional bytes per property, which makes it suitable for a few hot
+ * properties that are read on many cores.
+ *
+ */
+public final class PaddedLongProperty extends PaddedLongValue implements DynamicProperty<Long>, LongSupplier {
+
+	byte p100, p101, p102, p103, p104, p105, p106, p107;
+	byte p108, p109, p110, p111, p112, p113, p114, p115;
+	byte p116, p117, p118, p119, p120, p121, p122, p123;
+	byte p124, p125, p126, p127, p128, p129, p130, p131;
+	byte p132, p133, p134, p135, p136, p137, p138, p139;
+	byte p140, p141, p142, p143, p144, p145, p146, p147;
+	byte p148, p149, p150, p151, p152, p153, p154, p155;
+	byte p156, p157, p158, p159, p160, p161, p162, p163;
+
+	private final ListenerSupport<DynamicPropertyListener<Long>> listenerSupport = new ListenerSupport<>();
+	private final ListenerSupport<LongPropertyListener> primitiveListenerSupport = new ListenerSupport<>();
+
+	public PaddedLongProperty() {
+	}
+
+	public PaddedLongProperty(long initialValue) {
+		this.value = initialValue;
+	}
+
+	@Override
+	public Long getCurrentValue() {
+		return value;
+	}
+
+	public long get() {
+		return value;
+	}
+
+	@Override
+	public long getAsLong() {
+		return value;
+	}
+
+	public void set(long value) {
+		this.value = value;
+		this.primitiveListenerSupport.dispatchLongEvent(LongPropertyListener::propertyChanged, value);
+		if (!this.listenerSupport.isEmpty()) {
+			Long boxed = value;
+			this.listenerSupport.dispatchEvent(DynamicPropertyListener::propertyChanged, boxed);
+		}
+	}
+
+	@Override
+	public void setValue(Long value) {
+		set(value);
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(value);
+	}
+
+	@Override
+	public void addListener(DynamicPropertyListener<Long> listener) {
+		listenerSupport.addListener(listener);
+	}
+
+	@Override
+	public void removeListener(DynamicPropertyListener<Long> listener) {
+		listenerSupport.removeListener(listener);
+	}
+
+	/**
+	 * Adds a listener that is notified without boxing the new value.
+	 */
+	public void addLongListener(LongPropertyListener listener) {
+		primitiveListenerSupport.addListener(listener);
+	}
+
+	public void removeLongListener(LongPropertyListener listener) {
+		primitiveListenerSupport.removeListener(listener);
+	}
+
+}
@@ -19,6 +19,8 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.InputStream;
 import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,7 +31,7 @@ import org.slf4j.LoggerFactory;
  * @author Elias Lindholm (elilin)
  *
  */
-public class PropertiesConfigSource implements ConfigSource {
+public class PropertiesConfigSource implements EnumerableConfigSource {
 
 	private static final Logger log = LoggerFactory.getLogger(PropertiesConfigSource.class);
 	private final Properties properties;
@@ -43,19 +45,32 @@ public class PropertiesConfigSource implements ConfigSource {
 		return properties.getProperty(propertyName);
 	}
 
+	@Override
+	public SortedMap<String, String> getPropertiesWithPrefix(String prefix) {
+		SortedMap<String, String> result = new TreeMap<>();
+		for (String propertyName : properties.stringPropertyNames()) {
+			if (propertyName.startsWith(prefix)) {
+				result.put(propertyName, properties.getProperty(propertyName));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Loads the given properties file from the classpath, see {@link PropertiesFileConfigSource}. If the file is
+	 * missing or fails to load, an empty source is returned.
+	 */
 	public static ConfigSource optionalClasspathPropertiesFile(String fileName) {
-		Properties classpathOverride = new Properties();
 		try (InputStream resourceAsStream = PropertiesConfigSource.class.getClassLoader().getResourceAsStream(fileName)) {
 			if (resourceAsStream == null) {
 				log.info("Optional config properties file not present on classpath: {}", fileName);
-				return new PropertiesConfigSource(classpathOverride);
 			} else {
-				classpathOverride.load(resourceAsStream);
+				return PropertiesFileConfigSource.load(resourceAsStream, fileName);
 			}
 		} catch (Exception e) {
 			log.warn("Failed to load config properties from file: {}", fileName);
 		}
-		return new PropertiesConfigSource(classpathOverride);
+		return PropertiesFileConfigSource.empty(fileName);
 	}
 	
 	public String toString() {
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * An immutable {@link StaticConfigSource} holding the properties of one or more properties files. <p>
+ *
+ * Files are memory mapped and parsed straight from their UTF-8 bytes, see {@link PropertiesFileParser}
+ * for the supported syntax, which is the same as {@link java.util.Properties#load(java.io.Reader)}.
+ * The parser fills an open addressing table of keys and values directly, hence no per entry objects
+ * are allocated besides the keys and values themselves. <p>
+ *
+ * {@link #loadAll(List)} parses several files in parallel and layers them into a single source,
+ * where a property in an earlier file takes precedence over the same property in a later file.
+ *
+ */
+public final class PropertiesFileConfigSource implements StaticConfigSource {
+
+	private final Table table;
+	private final String description;
+
+	private PropertiesFileConfigSource(Table table, String description) {
+		this.table = table;
+		this.description = description;
+	}
+
+	/**
+	 * Loads the given properties file.
+	 *
+	 * @throws UncheckedIOException if the file could not be read
+	 * @throws IllegalArgumentException if the file contains a malformed \\uxxxx escape
+	 */
+	public static PropertiesFileConfigSource load(Path file) {
+		return new PropertiesFileConfigSource(parse(file), file.toString());
+	}
+
+	/**
+	 * Loads all given properties files in parallel into a single source. A property defined in more than
+	 * one file gets its value from the first of those files in the given list.
+	 *
+	 * @throws UncheckedIOException if any of the files could not be read
+	 * @throws IllegalArgumentException if any of the files contains a malformed \\uxxxx escape
+	 */
+	public static PropertiesFileConfigSource loadAll(List<Path> files) {
+		List<Table> tables = files.parallelStream()
+								  .map(PropertiesFileConfigSource::parse)
+								  .collect(Collectors.toList());
+		Table result = new Table();
+		for (Table table : tables) {
+			table.forEach(result::putIfAbsent);
+		}
+		return new PropertiesFileConfigSource(result, files.toString());
+	}
+
+	/**
+	 * Reads the given stream to its end and parses its content, used for classpath resources which
+	 * can not be memory mapped.
+	 */
+	static PropertiesFileConfigSource load(InputStream properties, String description) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = properties.read(buffer)) >= 0) {
+			content.write(buffer, 0, read);
+		}
+		Table table = new Table();
+		new PropertiesFileParser().parse(ByteBuffer.wrap(content.toByteArray()), table);
+		return new PropertiesFileConfigSource(table, description);
+	}
+
+	static PropertiesFileConfigSource empty(String description) {
+		return new PropertiesFileConfigSource(new Table(), description);
+	}
+
+	private static Table parse(Path file) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Properties file too large: " + file);
+			}
+			Table table = new Table();
+			new PropertiesFileParser().parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), table);
+			return table;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to load properties file: " + file, e);
+		}
+	}
+
+	@Override
+	public String get(String propertyName) {
+		return table.get(propertyName);
+	}
+
+	@Override
+	public SortedMap<String, String> getPropertiesWithPrefix(String prefix) {
+		SortedMap<String, String> result = new TreeMap<>();
+		forEach((propertyName, value) -> {
+			if (propertyName.startsWith(prefix)) {
+				result.put(propertyName, value);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Passes each property to the given consumer, in no particular order.
+	 */
+	void forEach(BiConsumer<String, String> consumer) {
+		table.forEach(consumer);
+	}
+
+	/**
+	 * The number of properties in this source.
+	 */
+	public int size() {
+		return table.size;
+	}
+
+	@Override
+	public String toString() {
+		return "PropertiesFileConfigSource: " + description;
+	}
+
+	/**
+	 * Open addressing table with linear probing, only modified while a source is loaded.
+	 */
+	static final class Table {
+
+		private String[] keys = new String[16];
+		private String[] values = new String[16];
+		private int size;
+
+		String get(String key) {
+			String[] keys = this.keys;
+			int mask = keys.length - 1;
+			int slot = spread(key.hashCode()) & mask;
+			String candidate;
+			while ((candidate = keys[slot]) != null) {
+				if (candidate.equals(key)) {
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+			return null;
+		}
+
+		void put(String key, String value) {
+			put(key, value, true);
+		}
+
+		void putIfAbsent(String key, String value) {
+			put(key, value, false);
+		}
+
+		private void put(String key, String value, boolean replace) {
+			int mask = keys.length - 1;
+			int slot = spread(key.hashCode()) & mask;
+			String candidate;
+			while ((candidate = keys[slot]) != null) {
+				if (candidate.equals(key)) {
+					if (replace) {
+						values[slot] = value;
+					}
+					return;
+				}
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			values[slot] = value;
+			if (++size * 2 > keys.length) {
+				resize();
+			}
+		}
+
+		private void resize() {
+			String[] oldKeys = keys;
+			String[] oldValues = values;
+			keys = new String[oldKeys.length * 2];
+			values = new String[oldKeys.length * 2];
+			size = 0;
+			for (int slot = 0; slot < oldKeys.length; slot++) {
+				if (oldKeys[slot] != null) {
+					put(oldKeys[slot], oldValues[slot], true);
+				}
+			}
+		}
+
+		void clear() {
+			Arrays.fill(keys, null);
+			Arrays.fill(values, null);
+			size = 0;
+		}
+
+		void forEach(BiConsumer<String, String> consumer) {
+			for (int slot = 0; slot < keys.length; slot++) {
+				if (keys[slot] != null) {
+					consumer.accept(keys[slot], values[slot]);
+				}
+			}
+		}
+
+		private static int spread(int hash) {
+			int h = hash * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+
+	}
+
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Parses properties files directly from their bytes, following the line, continuation, separator and
+ * escape rules of {@link java.util.Properties#load(java.io.Reader)}. <p>
+ *
+ * Files are decoded as UTF-8. Like {@link java.util.PropertyResourceBundle}, a file that is not valid
+ * UTF-8 is decoded as ISO-8859-1 instead, which is the encoding {@link java.util.Properties#load(java.io.InputStream)}
+ * uses. A parser is not thread safe, but holds no state between files.
+ */
+final class PropertiesFileParser {
+
+	private final StringBuilder value = new StringBuilder();
+	private char[] line = new char[1024];
+	private ByteBuffer input;
+	private boolean latin1;
+
+	/**
+	 * Parses all properties in the given buffer, from its position to its limit, into the given table. A
+	 * property defined more than once gets its last value.
+	 *
+	 * @throws IllegalArgumentException if the file contains a malformed \\uxxxx escape
+	 */
+	void parse(ByteBuffer file, PropertiesFileConfigSource.Table properties) {
+		int start = file.position();
+		try {
+			parseLines(file, properties, false);
+		} catch (MalformedUtf8Exception e) {
+			properties.clear();
+			file.position(start);
+			parseLines(file, properties, true);
+		} finally {
+			this.input = null;
+		}
+	}
+
+	private void parseLines(ByteBuffer file, PropertiesFileConfigSource.Table properties, boolean latin1) {
+		this.input = file;
+		this.latin1 = latin1;
+		int limit;
+		while ((limit = readLine()) >= 0) {
+			split(limit, properties);
+		}
+	}
+
+	/**
+	 * Splits a logical line into key and value, see Properties.load0.
+	 */
+	private void split(int limit, PropertiesFileConfigSource.Table properties) {
+		char[] line = this.line;
+		int keyLength = 0;
+		int valueStart = limit;
+		boolean hasSeparator = false;
+		boolean precedingBackslash = false;
+		while (keyLength < limit) {
+			char c = line[keyLength];
+			if ((c == '=' || c == ':') && !precedingBackslash) {
+				valueStart = keyLength + 1;
+				hasSeparator = true;
+				break;
+			} else if ((c == ' ' || c == '\t' || c == '\f') && !precedingBackslash) {
+				valueStart = keyLength + 1;
+				break;
+			}
+			precedingBackslash = c == '\\' && !precedingBackslash;
+			keyLength++;
+		}
+		while (valueStart < limit) {
+			char c = line[valueStart];
+			if (c != ' ' && c != '\t' && c != '\f') {
+				if (!hasSeparator && (c == '=' || c == ':')) {
+					hasSeparator = true;
+				} else {
+					break;
+				}
+			}
+			valueStart++;
+		}
+		properties.put(unescape(0, keyLength), unescape(valueStart, limit));
+	}
+
+	private String unescape(int from, int to) {
+		char[] line = this.line;
+		int i = from;
+		while (i < to && line[i] != '\\') {
+			i++;
+		}
+		if (i == to) {
+			return new String(line, from, to - from);
+		}
+		StringBuilder result = this.value;
+		result.setLength(0);
+		result.append(line, from, i - from);
+		while (i < to) {
+			char c = line[i++];
+			if (c != '\\' || i == to) {
+				result.append(c);
+				continue;
+			}
+			c = line[i++];
+			if (c == 'u') {
+				if (to - i < 4) {
+					throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+				}
+				int code = 0;
+				for (int digit = 0; digit < 4; digit++) {
+					int hex = Character.digit(line[i++], 16);
+					if (hex < 0) {
+						throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+					}
+					code = (code << 4) | hex;
+				}
+				result.append((char) code);
+			} else if (c == 't') {
+				result.append('\t');
+			} else if (c == 'r') {
+				result.append('\r');
+			} else if (c == 'n') {
+				result.append('\n');
+			} else if (c == 'f') {
+				result.append('\f');
+			} else {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Reads the next logical line into the line buffer, skipping comments and blank lines and joining
+	 * continuation lines, see Properties.LineReader.
+	 *
+	 * @return the length of the line, or -1 at the end of the file
+	 */
+	private int readLine() {
+		int length = 0;
+		boolean skipWhitespace = true;
+		boolean isCommentLine = false;
+		boolean isNewLine = true;
+		boolean appendedLineBegin = false;
+		boolean precedingBackslash = false;
+		boolean skipLineFeed = false;
+		while (true) {
+			int c = nextChar();
+			if (c < 0) {
+				if (isCommentLine || length == 0) {
+					return -1;
+				}
+				return precedingBackslash ? length - 1 : length;
+			}
+			if (skipLineFeed) {
+				skipLineFeed = false;
+				if (c == '\n') {
+					continue;
+				}
+			}
+			if (skipWhitespace) {
+				if (c == ' ' || c == '\t' || c == '\f') {
+					continue;
+				}
+				if (!appendedLineBegin && (c == '\r' || c == '\n')) {
+					continue;
+				}
+				skipWhitespace = false;
+				appendedLineBegin = false;
+			}
+			if (isNewLine) {
+				isNewLine = false;
+				if (c == '#' || c == '!') {
+					isCommentLine = true;
+				}
+			}
+			if (isCommentLine) {
+				if (c == '\r' || c == '\n') {
+					isCommentLine = false;
+					isNewLine = true;
+					skipWhitespace = true;
+					skipLineFeed = c == '\r';
+				}
+				continue;
+			}
+			if (c != '\n' && c != '\r') {
+				length = append(length, c);
+				precedingBackslash = c == '\\' && !precedingBackslash;
+				continue;
+			}
+			if (length == 0) {
+				isNewLine = true;
+				skipWhitespace = true;
+				continue;
+			}
+			if (precedingBackslash) {
+				length--;
+				skipWhitespace = true;
+				appendedLineBegin = true;
+				precedingBackslash = false;
+				skipLineFeed = c == '\r';
+				continue;
+			}
+			// Line feed after a carriage return is skipped as blank line by the next call
+			return length;
+		}
+	}
+
+	private int append(int length, int codePoint) {
+		if (length + 2 > line.length) {
+			line = Arrays.copyOf(line, line.length * 2);
+		}
+		if (Character.isBmpCodePoint(codePoint)) {
+			line[length] = (char) codePoint;
+			return length + 1;
+		}
+		line[length] = Character.highSurrogate(codePoint);
+		line[length + 1] = Character.lowSurrogate(codePoint);
+		return length + 2;
+	}
+
+	/**
+	 * Decodes the next character, returning -1 at the end of the input.
+	 */
+	private int nextChar() {
+		ByteBuffer input = this.input;
+		if (!input.hasRemaining()) {
+			return -1;
+		}
+		int b = input.get() & 0xFF;
+		if (b < 0x80 || latin1) {
+			return b;
+		}
+		int extraBytes;
+		int codePoint;
+		if (b >= 0xC2 && b <= 0xDF) {
+			extraBytes = 1;
+			codePoint = b & 0x1F;
+		} else if (b >= 0xE0 && b <= 0xEF) {
+			extraBytes = 2;
+			codePoint = b & 0x0F;
+		} else if (b >= 0xF0 && b <= 0xF4) {
+			extraBytes = 3;
+			codePoint = b & 0x07;
+		} else {
+			throw new MalformedUtf8Exception();
+		}
+		if (input.remaining() < extraBytes) {
+			throw new MalformedUtf8Exception();
+		}
+		for (int i = 0; i < extraBytes; i++) {
+			int continuation = input.get() & 0xFF;
+			if ((continuation & 0xC0) != 0x80) {
+				throw new MalformedUtf8Exception();
+			}
+			codePoint = (codePoint << 6) | (continuation & 0x3F);
+		}
+		if ((extraBytes == 2 && (codePoint < 0x800 || Character.isSurrogate((char) codePoint)))
+				|| (extraBytes == 3 && (codePoint < 0x10000 || codePoint > Character.MAX_CODE_POINT))) {
+			throw new MalformedUtf8Exception();
+		}
+		return codePoint;
+	}
+
+	private static final class MalformedUtf8Exception extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		MalformedUtf8Exception() {
+			super(null, null, false, false);
+		}
+
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.Collection;
+
+/**
+ * A bloom filter over a fixed set of property names. {@link #mightContain(String)} never
+ * returns false for a name in the set, and returns true for roughly one in 400 names
+ * not in the set. <p>
+ *
+ * Uses 16 bits per name and four probes derived from {@link String#hashCode()}, which
+ * is cached by each String instance.
+ *
+ */
+final class PropertyNameFilter {
+
+	private static final int BITS_PER_NAME = 16;
+	private static final int PROBES = 4;
+
+	private final long[] bits;
+	private final int mask;
+
+	private PropertyNameFilter(int numberOfBits) {
+		this.bits = new long[numberOfBits >>> 6];
+		this.mask = numberOfBits - 1;
+	}
+
+	static PropertyNameFilter create(Collection<String> propertyNames) {
+		long requiredBits = Math.max(64L, (long) propertyNames.size() * BITS_PER_NAME);
+		int numberOfBits = (int) Math.min(1L << 30, Long.highestOneBit(requiredBits - 1) << 1);
+		PropertyNameFilter filter = new PropertyNameFilter(numberOfBits);
+		propertyNames.forEach(filter::add);
+		return filter;
+	}
+
+	private void add(String propertyName) {
+		int hash = propertyName.hashCode();
+		int increment = secondaryHash(hash);
+		for (int i = 0; i < PROBES; i++) {
+			int bit = (hash + i * increment) & mask;
+			bits[bit >>> 6] |= 1L << bit;
+		}
+	}
+
+	boolean mightContain(String propertyName) {
+		int hash = propertyName.hashCode();
+		int increment = secondaryHash(hash);
+		for (int i = 0; i < PROBES; i++) {
+			int bit = (hash + i * increment) & mask;
+			if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int secondaryHash(int hash) {
+		int h = hash * 0x85EBCA6B;
+		return (h ^ (h >>> 15)) | 1;
+	}
+
+}
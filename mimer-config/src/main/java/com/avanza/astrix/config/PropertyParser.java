@@ -38,6 +38,7 @@ interface PropertyParser<T> {
 	PropertyParser<List<String>> STRING_LIST_PARSER = new ListParser<>(STRING_PARSER);
 	PropertyParser<List<Long>> LONG_LIST_PARSER = new ListParser<>(LONG_PARSER);
 	PropertyParser<List<Integer>> INT_LIST_PARSER = new ListParser<>(INT_PARSER);
+	PropertyParser<Rollout> ROLLOUT_PARSER = Rollout::parse;
 
 	static <T extends Enum<T>> PropertyParser<T> enumParser(Class<T> enumClass) {
 		return new EnumParser<>(enumClass);
@@ -53,17 +54,45 @@ interface PropertyParser<T> {
 
 	T parse(String value);
 
-	class BooleanParser implements PropertyParser<Boolean> {
+	/**
+	 * A parser of a primitive type that also parses to an unboxed long, booleans as 0 or 1.
+	 */
+	interface PrimitiveParser<T> extends PropertyParser<T> {
+
+		long parseLong(String value);
+
+		long toLong(T value);
+
+		T box(long value);
+
 		@Override
-		public Boolean parse(String value) {
+		default T parse(String value) {
+			return box(parseLong(value));
+		}
+
+	}
+
+	class BooleanParser implements PrimitiveParser<Boolean> {
+		@Override
+		public long parseLong(String value) {
 			if ("false".equalsIgnoreCase(value)) {
-				return false;
+				return 0;
 			}
 			if ("true".equalsIgnoreCase(value)) {
-				return true;
+				return 1;
 			}
 			throw new IllegalArgumentException("Cannot parse boolean value: \"" + value + "\"");
 		}
+
+		@Override
+		public long toLong(Boolean value) {
+			return value ? 1 : 0;
+		}
+
+		@Override
+		public Boolean box(long value) {
+			return value != 0;
+		}
 	}
 
 	class StringParser implements PropertyParser<String> {
@@ -73,17 +102,37 @@ interface PropertyParser<T> {
 		}
 	}
 
-	class LongParser implements PropertyParser<Long> {
+	class LongParser implements PrimitiveParser<Long> {
 		@Override
-		public Long parse(String value) {
-			return Long.valueOf(value);
+		public long parseLong(String value) {
+			return Long.parseLong(value);
+		}
+
+		@Override
+		public long toLong(Long value) {
+			return value;
+		}
+
+		@Override
+		public Long box(long value) {
+			return value;
 		}
 	}
 
-	class IntParser implements PropertyParser<Integer> {
+	class IntParser implements PrimitiveParser<Integer> {
+		@Override
+		public long parseLong(String value) {
+			return Integer.parseInt(value);
+		}
+
+		@Override
+		public long toLong(Integer value) {
+			return value;
+		}
+
 		@Override
-		public Integer parse(String value) {
-			return Integer.valueOf(value);
+		public Integer box(long value) {
+			return (int) value;
 		}
 	}
 
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of {@link DynamicPropertyListener}'s subscribing to properties in a
+ * configuration source. Listener structures are only allocated for properties that
+ * actually have subscribers. <p>
+ */
+final class PropertySubscriptions {
+
+	private final ConcurrentMap<String, Queue<DynamicPropertyListener<String>>> listenersByPropertyName = new ConcurrentHashMap<>();
+
+	void subscribe(String propertyName, DynamicPropertyListener<String> listener) {
+		listenersByPropertyName.compute(propertyName, (name, listeners) -> {
+			Queue<DynamicPropertyListener<String>> result = listeners != null ? listeners : new ConcurrentLinkedQueue<>();
+			result.add(listener);
+			return result;
+		});
+	}
+
+	/**
+	 * Removes the given listener, and the listener structure of the property once it has no subscribers.
+	 */
+	void unsubscribe(String propertyName, DynamicPropertyListener<String> listener) {
+		listenersByPropertyName.computeIfPresent(propertyName, (name, listeners) -> {
+			listeners.remove(listener);
+			return listeners.isEmpty() ? null : listeners;
+		});
+	}
+
+	boolean hasSubscribers(String propertyName) {
+		return listenersByPropertyName.containsKey(propertyName);
+	}
+
+	void propertyChanged(String propertyName, String newValue) {
+		Queue<DynamicPropertyListener<String>> listeners = listenersByPropertyName.get(propertyName);
+		if (listeners != null) {
+			listeners.forEach(l -> l.propertyChanged(newValue));
+		}
+	}
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * A compiled percentage rollout, deciding whether a feature is enabled for a given user. <p>
+ *
+ * A rollout is parsed from a rule of semicolon separated clauses:
+ * <pre>
+ * 25%               enable for 25 percent of all users, decimals are allowed
+ * allow=17,42       always enable for the listed user ids
+ * deny=4711         never enable for the listed user ids, takes precedence over allow
+ * seed=3            salt for the user hash, use different seeds to get independent rollouts
+ * </pre>
+ * For instance {@code "10%;allow=17,42;seed=3"}. A rule without a percentage enables no users beyond
+ * the allow list. The boolean values "true" and "false" are also valid rules, enabling all or no users,
+ * so a property previously read as a {@link BooleanSetting} can be read as a {@link RolloutSetting}. <p>
+ *
+ * The rule is compiled to a hash threshold and primitive hash sets when parsed, so {@link #isEnabledFor(long)}
+ * does not allocate. A user enabled at some percentage stays enabled when the percentage is increased.
+ */
+public final class Rollout {
+
+	public static final Rollout DISABLED = new Rollout(0, new long[0], new long[0], 0);
+	public static final Rollout ENABLED = new Rollout(100, new long[0], new long[0], 0);
+
+	private static final long ALL_USERS = 1L << 32;
+
+	private final double percentage;
+	private final long[] allowed;
+	private final long[] denied;
+	private final long seed;
+	private final long threshold;
+	private final LongHashSet allowSet;
+	private final LongHashSet denySet;
+
+	private Rollout(double percentage, long[] allowed, long[] denied, long seed) {
+		this.percentage = percentage;
+		this.allowed = allowed;
+		this.denied = denied;
+		this.seed = seed;
+		this.threshold = Math.round(percentage / 100 * ALL_USERS);
+		this.allowSet = new LongHashSet(allowed);
+		this.denySet = new LongHashSet(denied);
+	}
+
+	/**
+	 * Enables the given percentage of all users.
+	 */
+	public static Rollout percentage(double percentage) {
+		return new Rollout(checkPercentage(percentage, percentage), new long[0], new long[0], 0);
+	}
+
+	/**
+	 * Parses a rule, see {@link Rollout}.
+	 *
+	 * @throws IllegalArgumentException if the rule is malformed
+	 */
+	public static Rollout parse(String rule) {
+		String trimmed = rule.trim();
+		if ("true".equalsIgnoreCase(trimmed)) {
+			return ENABLED;
+		}
+		if ("false".equalsIgnoreCase(trimmed)) {
+			return DISABLED;
+		}
+		double percentage = 0;
+		long[] allowed = new long[0];
+		long[] denied = new long[0];
+		long seed = 0;
+		try {
+			for (String clause : trimmed.split(";")) {
+				clause = clause.trim();
+				if (clause.isEmpty()) {
+					continue;
+				}
+				if (clause.endsWith("%")) {
+					percentage = checkPercentage(Double.parseDouble(clause.substring(0, clause.length() - 1).trim()), rule);
+				} else if (clause.startsWith("allow=")) {
+					allowed = parseUserIds(clause.substring("allow=".length()));
+				} else if (clause.startsWith("deny=")) {
+					denied = parseUserIds(clause.substring("deny=".length()));
+				} else if (clause.startsWith("seed=")) {
+					seed = Long.parseLong(clause.substring("seed=".length()).trim());
+				} else {
+					throw new IllegalArgumentException("Unknown clause \"" + clause + "\" in rollout rule: \"" + rule + "\"");
+				}
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Cannot parse rollout rule: \"" + rule + "\"", e);
+		}
+		return new Rollout(percentage, allowed, denied, seed);
+	}
+
+	private static double checkPercentage(double percentage, Object rule) {
+		if (!(percentage >= 0 && percentage <= 100)) {
+			throw new IllegalArgumentException("Rollout percentage must be between 0 and 100: \"" + rule + "\"");
+		}
+		return percentage;
+	}
+
+	private static long[] parseUserIds(String userIds) {
+		return Arrays.stream(userIds.split(","))
+				.map(String::trim)
+				.filter(userId -> !userId.isEmpty())
+				.mapToLong(Long::parseLong)
+				.sorted()
+				.distinct()
+				.toArray();
+	}
+
+	public boolean isEnabledFor(long userId) {
+		if (denySet.contains(userId)) {
+			return false;
+		}
+		if (allowSet.contains(userId)) {
+			return true;
+		}
+		return mix(userId ^ seed) >>> 32 < threshold;
+	}
+
+	public double getPercentage() {
+		return percentage;
+	}
+
+	/**
+	 * Returns the rule of this rollout in canonical form, which parses to an equal rollout.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder rule = new StringBuilder();
+		rule.append(BigDecimal.valueOf(percentage).stripTrailingZeros().toPlainString()).append('%');
+		if (allowed.length > 0) {
+			rule.append(";allow=").append(join(allowed));
+		}
+		if (denied.length > 0) {
+			rule.append(";deny=").append(join(denied));
+		}
+		if (seed != 0) {
+			rule.append(";seed=").append(seed);
+		}
+		return rule.toString();
+	}
+
+	private static String join(long[] userIds) {
+		return Arrays.stream(userIds).mapToObj(Long::toString).collect(Collectors.joining(","));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Rollout)) {
+			return false;
+		}
+		Rollout other = (Rollout) obj;
+		return threshold == other.threshold
+				&& seed == other.seed
+				&& Arrays.equals(allowed, other.allowed)
+				&& Arrays.equals(denied, other.denied);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * (31 * Long.hashCode(threshold) + Long.hashCode(seed)) + Arrays.hashCode(allowed)) + Arrays.hashCode(denied);
+	}
+
+	private static long mix(long value) {
+		long z = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Immutable open addressing set of longs. Zero marks a free slot, hence it is tracked separately.
+	 */
+	private static final class LongHashSet {
+
+		private final long[] table;
+		private final int mask;
+		private final boolean containsZero;
+
+		LongHashSet(long[] values) {
+			int capacity = 2;
+			while (capacity < values.length * 2) {
+				capacity <<= 1;
+			}
+			this.table = new long[capacity];
+			this.mask = capacity - 1;
+			boolean zero = false;
+			for (long value : values) {
+				if (value == 0) {
+					zero = true;
+					continue;
+				}
+				int slot = (int) mix(value) & mask;
+				while (table[slot] != 0 && table[slot] != value) {
+					slot = (slot + 1) & mask;
+				}
+				table[slot] = value;
+			}
+			this.containsZero = zero;
+		}
+
+		boolean contains(long value) {
+			if (value == 0) {
+				return containsZero;
+			}
+			int slot = (int) mix(value) & mask;
+			while (true) {
+				long candidate = table[slot];
+				if (candidate == value) {
+					return true;
+				}
+				if (candidate == 0) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+		}
+
+	}
+
+}
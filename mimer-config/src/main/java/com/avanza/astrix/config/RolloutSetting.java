@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A Setting holding a {@link Rollout}, see {@link Setting} <p>
+ *
+ * The rollout rules accept "true" and "false", so a {@link BooleanSetting} can be turned into a
+ * gradual rollout by replacing it with a RolloutSetting of the same name.
+ */
+public class RolloutSetting implements Setting<Rollout> {
+
+	private final String name;
+	private final Rollout defaultValue;
+	private final int slot = DynamicConfig.allocateSettingSlot();
+
+	private RolloutSetting(String name, Rollout defaultValue) {
+		this.name = requireNonNull(name);
+		this.defaultValue = requireNonNull(defaultValue);
+	}
+
+	public static RolloutSetting create(String name, Rollout defaultValue) {
+		return new RolloutSetting(name, defaultValue);
+	}
+
+	/**
+	 * Creates a RolloutSetting with the same name as the given setting, enabling all or no
+	 * users by default depending on the default value of the given setting.
+	 */
+	public static RolloutSetting from(BooleanSetting setting) {
+		return new RolloutSetting(setting.name(), setting.defaultValue() ? Rollout.ENABLED : Rollout.DISABLED);
+	}
+
+	@Override
+	public DynamicRolloutProperty getFrom(DynamicConfig config) {
+		return config.getSettingProperty(slot, this, (setting, c) -> c.getRolloutProperty(setting.name, setting.defaultValue));
+	}
+
+	@Override
+	public String name() {
+		return name;
+	}
+
+	@Override
+	public Rollout defaultValue() {
+		return defaultValue;
+	}
+
+}
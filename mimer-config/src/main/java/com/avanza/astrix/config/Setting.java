@@ -20,7 +20,13 @@ package com.avanza.astrix.config;
  * an associated default value which is used when a DynamicConfig instance
  * does not hold a value for this Setting. <p> 
  * 
- * The Setting abstraction is parameterized with the type of the given setting.
+ * The Setting abstraction is parameterized with the type of the given setting. <p>
+ * 
+ * The settings provided by this package are intended to be declared as static constants. Each
+ * instance allocates a process wide slot that is never reclaimed, and every DynamicConfig that reads
+ * a setting keeps an array sized to the highest slot allocated so far. Hence creating settings
+ * repeatedly, for instance one per request, grows memory use in every DynamicConfig without bound.
+ * Read properties with dynamic names directly from {@link DynamicConfig} instead.
  * 
  * @author Elias Lindholm (elilin)
  *
@@ -38,6 +44,9 @@ public interface Setting<T> {
 	 * If the DynamicConfig instance does not hold a value for this
 	 * Setting, then the default value will be returned.
 	 * 
+	 * The settings provided by this package remember the property bound in each
+	 * DynamicConfig instance, so reading the same setting again is an array read.
+	 * 
 	 * @param config DynamicConfig instance to read this setting from
 	 * @return This value of this setting in the given {@link DynamicConfig} instance, 
 	 * 		   or the default value if the DynamicConfig instance does not contain a 
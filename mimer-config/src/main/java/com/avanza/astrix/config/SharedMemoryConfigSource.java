@@ -0,0 +1,348 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link DynamicConfigSource} backed by a memory mapped segment that is shared by all JVMs on a host. One
+ * process updates the segment through a {@link SharedMemoryConfigWriter}, and any number of processes map it
+ * read-only using {@link #open(Path)}. Hence the config is only loaded from the backend once per host. <p>
+ *
+ * Each property is stored in a fixed size slot of an open addressing hash table. A slot is guarded by a
+ * sequence number which is odd while the writer updates the slot, so a reader retries until it reads the
+ * same even sequence number both before and after copying the value. The writer also stamps each slot with
+ * the value of a global change counter, and publishes the counter after the slot is updated. <p>
+ *
+ * A reader stops waiting for a slot after 100 ms, since the writer might have died while updating it. A slot
+ * that is still being inserted is then treated as absent. A slot that is still being updated fails
+ * {@link #get(String)} with an {@link IllegalStateException}, while {@link #poll()} keeps the last value
+ * notified for it. The slot is repaired once a new writer opens the segment. <p>
+ *
+ * Changes are not pushed to readers, instead {@link #poll()} has to be invoked regularly, for instance from a
+ * scheduled executor. A poll only reads the change counter unless something has changed, in which case the
+ * {@link DynamicPropertyListener}'s of the properties that changed since the previous poll are notified. <p>
+ *
+ * Segment layout (all integers big endian):
+ * <pre>
+ * header (64 bytes): int magic, int formatVersion, int slotCount, int slotSize, long changeCount
+ * slots: long sequence, long changedAt, int hash, int keyLength, int valueLength, byte[] utf8Key, byte[] utf8Value
+ * </pre>
+ */
+public final class SharedMemoryConfigSource extends AbstractDynamicConfigSource {
+
+	static final int MAGIC = 0x4D494D53;
+	static final int FORMAT_VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	static final int SLOT_COUNT_OFFSET = 8;
+	static final int SLOT_SIZE_OFFSET = 12;
+	static final int CHANGE_COUNT_OFFSET = 16;
+	static final int SEQUENCE_OFFSET = 0;
+	static final int CHANGED_AT_OFFSET = 8;
+	static final int HASH_OFFSET = 16;
+	static final int KEY_LENGTH_OFFSET = 20;
+	static final int VALUE_LENGTH_OFFSET = 24;
+	static final int SLOT_HEADER_SIZE = 28;
+	static final int NULL_VALUE = -1;
+	static final int DEAD_KEY = -1;
+	static final long WRITER_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private static final MethodHandle ACQUIRE_FENCE = fence("acquireFence");
+	private static final MethodHandle RELEASE_FENCE = fence("releaseFence");
+	private static volatile int volatileFence;
+
+	private final ByteBuffer segment;
+	private final int slotCount;
+	private final int slotSize;
+	private final String description;
+	private final ConcurrentMap<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+	private long lastPolledChangeCount;
+
+	private SharedMemoryConfigSource(ByteBuffer segment, String description) {
+		if (segment.limit() < HEADER_SIZE || segment.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a shared config segment: " + description);
+		}
+		acquireFence();
+		if (segment.getInt(4) != FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unsupported shared config segment format version " + segment.getInt(4) + ": " + description);
+		}
+		this.segment = segment;
+		this.slotCount = segment.getInt(SLOT_COUNT_OFFSET);
+		this.slotSize = segment.getInt(SLOT_SIZE_OFFSET);
+		this.description = description;
+		if (segmentSize(slotCount, slotSize) != segment.limit()) {
+			throw new IllegalArgumentException("Truncated shared config segment: " + description);
+		}
+		this.lastPolledChangeCount = changeCount();
+	}
+
+	/**
+	 * Maps a segment created by a {@link SharedMemoryConfigWriter}.
+	 */
+	public static SharedMemoryConfigSource open(Path segment) {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Shared config segment too large: " + segment);
+			}
+			return new SharedMemoryConfigSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), segment.toString());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to open shared config segment: " + segment, e);
+		}
+	}
+
+	@Override
+	public String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+		subscriptions.computeIfAbsent(propertyName, Subscription::new).listeners.add(propertyChangeListener);
+		return get(propertyName);
+	}
+
+	@Override
+	public void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+		Subscription subscription = subscriptions.get(propertyName);
+		if (subscription != null) {
+			subscription.listeners.remove(propertyChangeListener);
+		}
+	}
+
+	@Override
+	public String get(String propertyName) {
+		int slot = findSlot(propertyName.getBytes(UTF_8), propertyName.hashCode());
+		return slot < 0 ? null : readValue(slot);
+	}
+
+	/**
+	 * Notifies the listeners of all properties that have changed since the previous poll. Polling when
+	 * nothing has changed only reads the change counter of the segment.
+	 *
+	 * @return true if the segment has changed since the previous poll
+	 */
+	public synchronized boolean poll() {
+		long changeCount = changeCount();
+		if (changeCount == lastPolledChangeCount) {
+			return false;
+		}
+		for (Subscription subscription : subscriptions.values()) {
+			int slot = subscription.slot;
+			if (slot < 0) {
+				slot = findSlot(subscription.key, subscription.hash);
+				if (slot < 0) {
+					continue;
+				}
+				subscription.slot = slot;
+			}
+			// Writes stamped after changeCount are picked up by the next poll
+			if (segment.getLong(slotOffset(slot) + CHANGED_AT_OFFSET) > lastPolledChangeCount) {
+				String value;
+				try {
+					value = readValue(slot);
+				} catch (TornSlotException e) {
+					// Notified once the slot is repaired, since a new writer stamps it with a later change
+					continue;
+				}
+				subscription.listeners.forEach(l -> l.propertyChanged(value));
+			}
+		}
+		lastPolledChangeCount = changeCount;
+		return true;
+	}
+
+	/**
+	 * The number of changes the writer has published to this segment.
+	 */
+	public long changeCount() {
+		long changeCount = segment.getLong(CHANGE_COUNT_OFFSET);
+		acquireFence();
+		return changeCount;
+	}
+
+	private int findSlot(byte[] key, int hash) {
+		int mask = slotCount - 1;
+		int slot = spread(hash) & mask;
+		for (int probe = 0; probe < slotCount; probe++) {
+			int offset = slotOffset(slot);
+			long sequence;
+			long waitStart = 0;
+			while ((sequence = segment.getLong(offset + SEQUENCE_OFFSET)) == 1) {
+				// Key is being inserted
+				if (waitStart == 0) {
+					waitStart = System.nanoTime();
+				} else if (System.nanoTime() - waitStart > WRITER_TIMEOUT_NANOS) {
+					break;
+				}
+				Thread.yield();
+			}
+			if (sequence == 0) {
+				return -1;
+			}
+			acquireFence();
+			// Keys never change once inserted. A key still being inserted after the timeout may be torn, hence it is skipped.
+			if (sequence != 1 && segment.getInt(offset + HASH_OFFSET) == hash && keyEquals(offset, key)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private boolean keyEquals(int offset, byte[] key) {
+		if (segment.getInt(offset + KEY_LENGTH_OFFSET) != key.length) {
+			return false;
+		}
+		int keyOffset = offset + SLOT_HEADER_SIZE;
+		for (int i = 0; i < key.length; i++) {
+			if (segment.get(keyOffset + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String readValue(int slot) {
+		int offset = slotOffset(slot);
+		long waitStart = 0;
+		while (true) {
+			long sequence = segment.getLong(offset + SEQUENCE_OFFSET);
+			acquireFence();
+			if ((sequence & 1) == 0) {
+				int keyLength = segment.getInt(offset + KEY_LENGTH_OFFSET);
+				int valueLength = segment.getInt(offset + VALUE_LENGTH_OFFSET);
+				byte[] value = null;
+				if (valueLength >= 0 && valueLength <= slotSize - SLOT_HEADER_SIZE - keyLength) {
+					value = new byte[valueLength];
+					ByteBuffer view = segment.duplicate();
+					view.position(offset + SLOT_HEADER_SIZE + keyLength);
+					view.get(value);
+				}
+				acquireFence();
+				if (segment.getLong(offset + SEQUENCE_OFFSET) == sequence) {
+					if (valueLength == NULL_VALUE) {
+						return null;
+					}
+					if (value == null) {
+						throw new IllegalStateException("Corrupt slot " + slot + " in shared config segment: " + description);
+					}
+					return new String(value, UTF_8);
+				}
+			}
+			// Racing with the writer
+			if (waitStart == 0) {
+				waitStart = System.nanoTime();
+			} else if (System.nanoTime() - waitStart > WRITER_TIMEOUT_NANOS) {
+				throw new TornSlotException("Slot " + slot + " in shared config segment is not completely written, the writer might have died: " + description);
+			}
+			Thread.yield();
+		}
+	}
+
+	private int slotOffset(int slot) {
+		return HEADER_SIZE + slot * slotSize;
+	}
+
+	static long segmentSize(int slotCount, int slotSize) {
+		return HEADER_SIZE + (long) slotCount * slotSize;
+	}
+
+	static int spread(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Orders loads before the fence with loads and stores after it, also with respect to
+	 * other processes mapping the same segment.
+	 */
+	static void acquireFence() {
+		try {
+			ACQUIRE_FENCE.invokeExact();
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Orders loads and stores before the fence with stores after it.
+	 */
+	static void releaseFence() {
+		try {
+			RELEASE_FENCE.invokeExact();
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static MethodHandle fence(String name) {
+		MethodType type = MethodType.methodType(void.class);
+		try {
+			return MethodHandles.publicLookup().findStatic(Class.forName("java.lang.invoke.VarHandle"), name, type);
+		} catch (ReflectiveOperationException e) {
+			// Java 8, HotSpot compiles a volatile read and write to a full fence
+			try {
+				return MethodHandles.lookup().findStatic(SharedMemoryConfigSource.class, "volatileFence", type);
+			} catch (ReflectiveOperationException fallbackFailure) {
+				throw new IllegalStateException(fallbackFailure);
+			}
+		}
+	}
+
+	private static void volatileFence() {
+		volatileFence++;
+	}
+
+	@Override
+	public String toString() {
+		return "SharedMemoryConfigSource: " + description;
+	}
+
+	private static final class TornSlotException extends IllegalStateException {
+
+		private static final long serialVersionUID = 1L;
+
+		TornSlotException(String message) {
+			super(message);
+		}
+
+	}
+
+	private static final class Subscription {
+
+		private final byte[] key;
+		private final int hash;
+		private final Queue<DynamicPropertyListener<String>> listeners = new ConcurrentLinkedQueue<>();
+		private volatile int slot = -1;
+
+		private Subscription(String propertyName) {
+			this.key = propertyName.getBytes(UTF_8);
+			this.hash = propertyName.hashCode();
+		}
+
+	}
+
+}
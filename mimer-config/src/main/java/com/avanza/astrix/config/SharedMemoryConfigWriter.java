@@ -0,0 +1,325 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static com.avanza.astrix.config.SharedMemoryConfigSource.CHANGED_AT_OFFSET;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.CHANGE_COUNT_OFFSET;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.DEAD_KEY;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.FORMAT_VERSION;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.HASH_OFFSET;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.HEADER_SIZE;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.KEY_LENGTH_OFFSET;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.MAGIC;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.NULL_VALUE;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.SEQUENCE_OFFSET;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.SLOT_COUNT_OFFSET;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.SLOT_HEADER_SIZE;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.SLOT_SIZE_OFFSET;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.VALUE_LENGTH_OFFSET;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.releaseFence;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.segmentSize;
+import static com.avanza.astrix.config.SharedMemoryConfigSource.spread;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The single writer of a segment read by {@link SharedMemoryConfigSource}'s. The writer holds an exclusive
+ * file lock on the segment until it is closed, hence a second writer on the same host fails fast. <p>
+ *
+ * A segment has a fixed number of slots, each with a fixed size, which is decided when the segment is first
+ * created. A writer reopening an existing segment continues from its current content. Setting a property to
+ * the value it already has does not publish a change, so a writer may sync all properties from its backend
+ * periodically without waking up the readers. <p>
+ *
+ * The segment is never shrunk or truncated while it exists, since that would crash readers that have it mapped.
+ * Changing the number of slots or the slot size requires removing the file while no JVM uses it.
+ */
+public final class SharedMemoryConfigWriter implements MutableConfigSource, Closeable {
+
+	private final Path path;
+	private final FileChannel channel;
+	private final FileLock lock;
+	private final ByteBuffer segment;
+	private final int slotCount;
+	private final int slotSize;
+	private final int maxProperties;
+	private final Map<String, Integer> slotByPropertyName = new HashMap<>();
+	private int usedSlots;
+	private long changeCount;
+
+	private SharedMemoryConfigWriter(Path path, FileChannel channel, FileLock lock, ByteBuffer segment, int slotCount, int slotSize) {
+		this.path = path;
+		this.channel = channel;
+		this.lock = lock;
+		this.segment = segment;
+		this.slotCount = slotCount;
+		this.slotSize = slotSize;
+		this.maxProperties = slotCount - slotCount / 4;
+	}
+
+	/**
+	 * Creates a segment that holds up to the given number of properties, or reopens the segment if it
+	 * already exists with the same geometry. Each property, that is its UTF-8 encoded name and value, must
+	 * fit in slotSize bytes minus a 28 byte slot header.
+	 */
+	public static SharedMemoryConfigWriter create(Path path, int maxProperties, int slotSize) {
+		if (maxProperties <= 0) {
+			throw new IllegalArgumentException("maxProperties: " + maxProperties);
+		}
+		if (slotSize <= SLOT_HEADER_SIZE || slotSize % 8 != 0) {
+			throw new IllegalArgumentException("slotSize must be a multiple of 8 larger than " + SLOT_HEADER_SIZE + ": " + slotSize);
+		}
+		// At most three quarters of the slots are used, to keep probe sequences short
+		int minSlotCount = (int) Math.min(Integer.MAX_VALUE, (maxProperties * 4L + 2) / 3);
+		int slotCount = minSlotCount <= 2 ? 2 : Integer.highestOneBit(minSlotCount - 1) << 1;
+		long size = segmentSize(slotCount, slotSize);
+		if (slotCount <= 0 || size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Shared config segment too large: maxProperties=" + maxProperties + ", slotSize=" + slotSize);
+		}
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			FileLock lock = tryLock(channel, path);
+			long existingSize = channel.size();
+			if (existingSize != 0 && existingSize != size) {
+				throw new IllegalArgumentException("Shared config segment " + path + " has size " + existingSize
+						+ " bytes, expected " + size + ". Remove the file to change its geometry.");
+			}
+			ByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			SharedMemoryConfigWriter writer = new SharedMemoryConfigWriter(path, channel, lock, segment, slotCount, slotSize);
+			if (segment.getInt(0) == MAGIC) {
+				writer.recover();
+			} else {
+				writer.initialize();
+			}
+			return writer;
+		} catch (IOException e) {
+			closeQuietly(channel);
+			throw new UncheckedIOException("Failed to create shared config segment: " + path, e);
+		} catch (RuntimeException e) {
+			closeQuietly(channel);
+			throw e;
+		}
+	}
+
+	private static FileLock tryLock(FileChannel channel, Path path) throws IOException {
+		FileLock lock;
+		try {
+			lock = channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			lock = null;
+		}
+		if (lock == null) {
+			throw new IllegalStateException("Shared config segment already has a writer: " + path);
+		}
+		return lock;
+	}
+
+	private void initialize() {
+		segment.putInt(4, FORMAT_VERSION);
+		segment.putInt(SLOT_COUNT_OFFSET, slotCount);
+		segment.putInt(SLOT_SIZE_OFFSET, slotSize);
+		segment.putLong(CHANGE_COUNT_OFFSET, 0);
+		releaseFence();
+		segment.putInt(0, MAGIC);
+	}
+
+	/**
+	 * Rebuilds the slot index from an existing segment. A slot that a previous writer died while
+	 * updating is cleared, or made dead if its key may be torn.
+	 */
+	private void recover() {
+		if (segment.getInt(4) != FORMAT_VERSION || segment.getInt(SLOT_COUNT_OFFSET) != slotCount || segment.getInt(SLOT_SIZE_OFFSET) != slotSize) {
+			throw new IllegalArgumentException("Shared config segment " + path + " has another format or geometry. Remove the file to change its geometry.");
+		}
+		changeCount = segment.getLong(CHANGE_COUNT_OFFSET);
+		for (int slot = 0; slot < slotCount; slot++) {
+			int offset = slotOffset(slot);
+			long sequence = segment.getLong(offset + SEQUENCE_OFFSET);
+			if (sequence == 0) {
+				continue;
+			}
+			usedSlots++;
+			if ((sequence & 1) != 0) {
+				if (sequence == 1) {
+					segment.putInt(offset + KEY_LENGTH_OFFSET, DEAD_KEY);
+				}
+				changeCount++;
+				segment.putLong(offset + CHANGED_AT_OFFSET, changeCount);
+				segment.putInt(offset + VALUE_LENGTH_OFFSET, NULL_VALUE);
+				releaseFence();
+				segment.putLong(offset + SEQUENCE_OFFSET, sequence + 1);
+			}
+			int keyLength = segment.getInt(offset + KEY_LENGTH_OFFSET);
+			if (keyLength != DEAD_KEY) {
+				byte[] key = new byte[keyLength];
+				ByteBuffer view = segment.duplicate();
+				view.position(offset + SLOT_HEADER_SIZE);
+				view.get(key);
+				slotByPropertyName.put(new String(key, UTF_8), slot);
+			}
+		}
+		releaseFence();
+		segment.putLong(CHANGE_COUNT_OFFSET, changeCount);
+	}
+
+	public synchronized void set(String propertyName, String value) {
+		byte[] key = propertyName.getBytes(UTF_8);
+		byte[] encodedValue = value == null ? null : value.getBytes(UTF_8);
+		if (SLOT_HEADER_SIZE + key.length + (encodedValue == null ? 0 : encodedValue.length) > slotSize) {
+			throw new IllegalArgumentException("Property does not fit in a slot of " + slotSize + " bytes: " + propertyName);
+		}
+		Integer existingSlot = slotByPropertyName.get(propertyName);
+		int offset;
+		long sequence;
+		if (existingSlot != null) {
+			offset = slotOffset(existingSlot);
+			if (valueEquals(offset, key.length, encodedValue)) {
+				return;
+			}
+			sequence = segment.getLong(offset + SEQUENCE_OFFSET);
+			segment.putLong(offset + SEQUENCE_OFFSET, sequence + 1);
+			releaseFence();
+		} else {
+			if (value == null) {
+				return;
+			}
+			if (usedSlots == maxProperties) {
+				throw new IllegalStateException("Shared config segment is full, it holds " + maxProperties + " properties: " + path);
+			}
+			int slot = freeSlot(propertyName.hashCode());
+			offset = slotOffset(slot);
+			sequence = 0;
+			segment.putLong(offset + SEQUENCE_OFFSET, 1);
+			releaseFence();
+			segment.putInt(offset + HASH_OFFSET, propertyName.hashCode());
+			segment.putInt(offset + KEY_LENGTH_OFFSET, key.length);
+			ByteBuffer view = segment.duplicate();
+			view.position(offset + SLOT_HEADER_SIZE);
+			view.put(key);
+			slotByPropertyName.put(propertyName, slot);
+			usedSlots++;
+		}
+		long changedAt = changeCount + 1;
+		segment.putLong(offset + CHANGED_AT_OFFSET, changedAt);
+		segment.putInt(offset + VALUE_LENGTH_OFFSET, encodedValue == null ? NULL_VALUE : encodedValue.length);
+		if (encodedValue != null) {
+			ByteBuffer view = segment.duplicate();
+			view.position(offset + SLOT_HEADER_SIZE + key.length);
+			view.put(encodedValue);
+		}
+		releaseFence();
+		segment.putLong(offset + SEQUENCE_OFFSET, sequence + 2);
+		releaseFence();
+		segment.putLong(CHANGE_COUNT_OFFSET, changedAt);
+		changeCount = changedAt;
+	}
+
+	@Override
+	public <T> void set(Setting<T> setting, T value) {
+		set(setting.name(), value == null ? null : value.toString());
+	}
+
+	@Override
+	public <T extends Enum<T>> void set(EnumSetting<T> setting, T value) {
+		set(setting.name(), value == null ? null : value.name());
+	}
+
+	/**
+	 * Sets all given properties. A null value clears the property.
+	 */
+	public void setAll(Map<String, String> properties) {
+		properties.forEach(this::set);
+	}
+
+	/**
+	 * The number of changes published to the segment.
+	 */
+	public synchronized long changeCount() {
+		return changeCount;
+	}
+
+	/**
+	 * Releases the file lock. The segment stays mapped by readers, and by this process until
+	 * the mapping is garbage collected.
+	 */
+	@Override
+	public void close() {
+		try {
+			lock.release();
+			channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to close shared config segment: " + path, e);
+		}
+	}
+
+	private int freeSlot(int hash) {
+		int mask = slotCount - 1;
+		int slot = spread(hash) & mask;
+		while (segment.getLong(slotOffset(slot) + SEQUENCE_OFFSET) != 0) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private boolean valueEquals(int offset, int keyLength, byte[] value) {
+		int valueLength = segment.getInt(offset + VALUE_LENGTH_OFFSET);
+		if (value == null || valueLength == NULL_VALUE) {
+			return value == null && valueLength == NULL_VALUE;
+		}
+		if (valueLength != value.length) {
+			return false;
+		}
+		int valueOffset = offset + SLOT_HEADER_SIZE + keyLength;
+		for (int i = 0; i < value.length; i++) {
+			if (segment.get(valueOffset + i) != value[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int slotOffset(int slot) {
+		return HEADER_SIZE + slot * slotSize;
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// Already failing
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SharedMemoryConfigWriter: " + path;
+	}
+
+}
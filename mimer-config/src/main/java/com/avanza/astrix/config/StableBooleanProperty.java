@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.util.function.BooleanSupplier;
+
+/**
+ * DynamicProperty of boolean type for values that rarely change, for instance feature flags. <p>
+ *
+ * The value is held as the constant target of a {@link MutableCallSite}. Code reading the value through
+ * {@link #invoker()}, held in a static final field, is compiled as if the value was a constant, which allows
+ * the JIT to fold it and eliminate branches that depends on it:
+ *
+ * <pre>
+ * private static final MethodHandle FEATURE_ENABLED = config.getStableBooleanProperty("feature.enabled", false).invoker();
+ * ...
+ * if ((boolean) FEATURE_ENABLED.invokeExact()) {
+ * </pre>
+ *
+ * Changing the value replaces the target of the call site, which deoptimizes all code compiled using the
+ * previous value. Hence changing a value is expensive, while reading it through the invoker is free. {@link #get()} is an
+ * ordinary volatile read, since the JIT does not treat final instance fields as constants. <p>
+ *
+ * See {@link DynamicProperty}.
+ *
+ */
+public final class StableBooleanProperty implements DynamicProperty<Boolean>, BooleanSupplier {
+
+	private final ListenerSupport<DynamicPropertyListener<Boolean>> listenerSupport = new ListenerSupport<>();
+	private final MutableCallSite callSite;
+	private final MethodHandle invoker;
+	private volatile boolean value;
+
+	public StableBooleanProperty() {
+		this(false);
+	}
+
+	public StableBooleanProperty(boolean initialValue) {
+		this.value = initialValue;
+		this.callSite = new MutableCallSite(MethodHandles.constant(boolean.class, initialValue));
+		this.invoker = callSite.dynamicInvoker();
+	}
+
+	@Override
+	public Boolean getCurrentValue() {
+		return value;
+	}
+
+	public boolean get() {
+		return value;
+	}
+
+	@Override
+	public boolean getAsBoolean() {
+		return get();
+	}
+
+	/**
+	 * Returns a method handle of type {@code ()boolean} returning the current value of this property.
+	 */
+	public MethodHandle invoker() {
+		return invoker;
+	}
+
+	public void set(boolean value) {
+		synchronized (callSite) {
+			if (value == this.value) {
+				return;
+			}
+			this.value = value;
+			callSite.setTarget(MethodHandles.constant(boolean.class, value));
+			MutableCallSite.syncAll(new MutableCallSite[] { callSite });
+		}
+		this.listenerSupport.dispatchEvent(l -> l.propertyChanged(value));
+	}
+
+	@Override
+	public void setValue(Boolean value) {
+		set(value);
+	}
+
+	@Override
+	public String toString() {
+		return Boolean.toString(value);
+	}
+
+	@Override
+	public void addListener(DynamicPropertyListener<Boolean> listener) {
+		listenerSupport.addListener(listener);
+	}
+
+	@Override
+	public void removeListener(DynamicPropertyListener<Boolean> listener) {
+		listenerSupport.removeListener(listener);
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.util.function.IntSupplier;
+
+/**
+ * DynamicProperty of int type for values that rarely change, for instance limits. <p>
+ *
+ * The value is held as the constant target of a {@link MutableCallSite}. Code reading the value through
+ * {@link #invoker()}, held in a static final field, is compiled as if the value was a constant, which allows
+ * the JIT to fold it and eliminate branches that depends on it:
+ *
+ * <pre>
+ * private static final MethodHandle POOL_SIZE = config.getStableIntProperty("pool.size", 10).invoker();
+ * ...
+ * int poolSize = (int) POOL_SIZE.invokeExact();
+ * </pre>
+ *
+ * Changing the value replaces the target of the call site, which deoptimizes all code compiled using the
+ * previous value. Hence changing a value is expensive, while reading it through the invoker is free. {@link #get()} is an
+ * ordinary volatile read, since the JIT does not treat final instance fields as constants. <p>
+ *
+ * See {@link DynamicProperty}.
+ *
+ */
+public final class StableIntProperty implements DynamicProperty<Integer>, IntSupplier {
+
+	private final ListenerSupport<DynamicPropertyListener<Integer>> listenerSupport = new ListenerSupport<>();
+	private final MutableCallSite callSite;
+	private final MethodHandle invoker;
+	private volatile int value;
+
+	public StableIntProperty() {
+		this(0);
+	}
+
+	public StableIntProperty(int initialValue) {
+		this.value = initialValue;
+		this.callSite = new MutableCallSite(MethodHandles.constant(int.class, initialValue));
+		this.invoker = callSite.dynamicInvoker();
+	}
+
+	@Override
+	public Integer getCurrentValue() {
+		return value;
+	}
+
+	public int get() {
+		return value;
+	}
+
+	@Override
+	public int getAsInt() {
+		return get();
+	}
+
+	/**
+	 * Returns a method handle of type {@code ()int} returning the current value of this property.
+	 */
+	public MethodHandle invoker() {
+		return invoker;
+	}
+
+	public void set(int value) {
+		synchronized (callSite) {
+			if (value == this.value) {
+				return;
+			}
+			this.value = value;
+			callSite.setTarget(MethodHandles.constant(int.class, value));
+			MutableCallSite.syncAll(new MutableCallSite[] { callSite });
+		}
+		this.listenerSupport.dispatchEvent(l -> l.propertyChanged(value));
+	}
+
+	@Override
+	public void setValue(Integer value) {
+		set(value);
+	}
+
+	@Override
+	public String toString() {
+		return Integer.toString(value);
+	}
+
+	@Override
+	public void addListener(DynamicPropertyListener<Integer> listener) {
+		listenerSupport.addListener(listener);
+	}
+
+	@Override
+	public void removeListener(DynamicPropertyListener<Integer> listener) {
+		listenerSupport.removeListener(listener);
+	}
+
+}
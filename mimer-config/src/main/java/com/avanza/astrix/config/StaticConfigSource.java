@@ -0,0 +1,30 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+/**
+ * A {@link ConfigSource} whose content never changes after it is created, for instance
+ * properties loaded from a file on the classpath. <p>
+ *
+ * {@link DynamicConfig} takes advantage of this by collapsing adjacent static sources into a single
+ * precompiled lookup table, guarded by a compact membership filter, when it is created. Hence
+ * resolving a property does not have to query each static source in turn, and static sources that
+ * does not contain a given property are not part of its property chain.
+ *
+ */
+public interface StaticConfigSource extends EnumerableConfigSource {
+
+}
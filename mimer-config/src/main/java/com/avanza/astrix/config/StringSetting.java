@@ -27,6 +27,7 @@ public class StringSetting implements Setting<String> {
 	
 	private final String name;
 	private final String defaultValue;
+	private final int slot = DynamicConfig.allocateSettingSlot();
 	
 	public StringSetting(String name, String defaultValue) {
 		this.name = requireNonNull(name);
@@ -39,7 +40,7 @@ public class StringSetting implements Setting<String> {
 	
 	@Override
 	public DynamicStringProperty getFrom(DynamicConfig config) {
-		return config.getStringProperty(name, defaultValue);
+		return config.getSettingProperty(slot, this, (setting, c) -> c.getStringProperty(setting.name, setting.defaultValue));
 	}
 
 	@Override
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Defers updates scheduled while a batch of property changes is applied by the current thread,
+ * until the whole batch is applied. Each distinct update runs once per batch, no matter how many
+ * of the changes in the batch that scheduled it.
+ */
+final class UpdateBatch {
+
+	private static final ThreadLocal<UpdateBatch> CURRENT = new ThreadLocal<>();
+
+	private final Set<Runnable> pendingUpdates = new LinkedHashSet<>();
+
+	private UpdateBatch() {
+	}
+
+	/**
+	 * Applies the given changes as one batch. Nested batches are part of the outermost batch.
+	 */
+	static void run(Runnable changes) {
+		if (CURRENT.get() != null) {
+			changes.run();
+			return;
+		}
+		UpdateBatch batch = new UpdateBatch();
+		CURRENT.set(batch);
+		try {
+			changes.run();
+		} finally {
+			CURRENT.remove();
+			batch.pendingUpdates.forEach(Runnable::run);
+		}
+	}
+
+	/**
+	 * Whether the current thread is applying a batch.
+	 */
+	static boolean isApplying() {
+		return CURRENT.get() != null;
+	}
+
+	/**
+	 * Runs the given update when the current batch is applied, or immediately if the current thread is
+	 * not applying a batch.
+	 */
+	static void schedule(Runnable update) {
+		UpdateBatch batch = CURRENT.get();
+		if (batch == null) {
+			update.run();
+		} else {
+			batch.pendingUpdates.add(update);
+		}
+	}
+
+}
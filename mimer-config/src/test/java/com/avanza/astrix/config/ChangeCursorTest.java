@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ChangeCursorTest {
+
+	private final MapConfigSource source = new MapConfigSource();
+	private final DynamicConfig config = DynamicConfig.create(source);
+
+	@Test
+	void pollReturnsPropertiesChangedSincePreviousPoll() {
+		DynamicIntProperty foo = config.getIntProperty("foo", 1);
+		DynamicStringProperty bar = config.getStringProperty("bar", "a");
+		DynamicLongProperty baz = config.getLongProperty("baz", 2L);
+		ChangeCursor cursor = config.changeCursor();
+		assertFalse(cursor.hasChanges());
+
+		source.set("baz", "3");
+		source.set("foo", "2");
+		source.set("baz", "4");
+		source.set("bar", "a");
+
+		assertTrue(cursor.hasChanges());
+		assertEquals(Arrays.asList(baz, foo), new ArrayList<>(cursor.poll()));
+		assertFalse(cursor.hasChanges());
+		assertEquals(Collections.emptySet(), cursor.poll());
+
+		source.set("bar", "b");
+		assertEquals(Collections.singleton(bar), cursor.poll());
+		assertEquals(config.version(), cursor.position());
+	}
+
+	@Test
+	void propertiesHaveVersionsOfTheirLatestChange() {
+		DynamicIntProperty foo = config.getIntProperty("foo", 1);
+		DynamicOptionalProperty<String> bar = config.getOptionalStringProperty("bar");
+		long barRead = config.version();
+
+		source.set("foo", "2");
+		long fooChanged = config.version();
+
+		assertEquals(fooChanged, config.versionOf(foo));
+		assertEquals(barRead, config.versionOf(bar));
+		assertTrue(fooChanged > barRead);
+		assertEquals(Collections.singleton(foo), config.changedSince(barRead));
+		assertThrows(IllegalArgumentException.class, () -> config.versionOf(new DynamicIntProperty()));
+	}
+
+	@Test
+	void cursorFarBehindScansAllProperties() {
+		List<DynamicIntProperty> properties = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			properties.add(config.getIntProperty("p" + i, 0));
+		}
+		ChangeCursor cursor = config.changeCursor();
+
+		for (int round = 1; round <= 100; round++) {
+			for (int i = 0; i < 100; i += 2) {
+				source.set("p" + i, Integer.toString(round));
+			}
+		}
+
+		HashSet<DynamicProperty<?>> expected = new HashSet<>();
+		for (int i = 0; i < 100; i += 2) {
+			expected.add(properties.get(i));
+		}
+		assertEquals(expected, new HashSet<>(cursor.poll()));
+		assertFalse(cursor.hasChanges());
+	}
+
+}
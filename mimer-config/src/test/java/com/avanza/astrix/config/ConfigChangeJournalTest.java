@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.avanza.astrix.config.ConfigChangeJournal.Kind;
+
+class ConfigChangeJournalTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void recordsSourceAndResolvedChanges() {
+		MapConfigSource source = new MapConfigSource();
+		DynamicConfig config = DynamicConfig.create(source);
+		Path path = tempDir.resolve("config.journal");
+		try (ConfigChangeJournal journal = ConfigChangeJournal.create(path).attachTo(source).attachTo(config)) {
+			DynamicListProperty<Integer> limits = config.getIntListProperty("limits", Arrays.asList(1, 2));
+			source.set("limits", "3,4");
+			source.set("name", "åäö");
+			source.set("name", null);
+			assertEquals(Arrays.asList(3, 4), limits.get());
+			assertEquals(5, journal.size());
+		}
+		source.set("name", "ignored after close");
+
+		ConfigChangeReplayer replayer = ConfigChangeReplayer.load(path);
+
+		assertEquals(5, replayer.size());
+		assertRecord(replayer, 0, Kind.RESOLVED, "limits", "1,2");
+		assertRecord(replayer, 1, Kind.RESOLVED, "limits", "3,4");
+		assertRecord(replayer, 2, Kind.SOURCE, "limits", "3,4");
+		assertRecord(replayer, 3, Kind.SOURCE, "name", "åäö");
+		assertRecord(replayer, 4, Kind.SOURCE, "name", null);
+		for (int i = 1; i < replayer.size(); i++) {
+			assertTrue(replayer.timestampNanos(i) >= replayer.timestampNanos(i - 1));
+		}
+	}
+
+	@Test
+	void replaysRecordsIntoSource() {
+		Path path = tempDir.resolve("config.journal");
+		try (ConfigChangeJournal journal = ConfigChangeJournal.create(path, 64)) {
+			for (int i = 0; i < 1000; i++) {
+				journal.append(Kind.SOURCE, "property." + (i % 10), Integer.toString(i));
+			}
+			journal.append(Kind.RESOLVED, "property.0", "resolved");
+			journal.append(Kind.SOURCE, "property.9", null);
+		}
+		ConfigChangeReplayer replayer = ConfigChangeReplayer.load(path);
+		MapConfigSource target = new MapConfigSource();
+		DynamicIntProperty property = DynamicConfig.create(target).getIntProperty("property.0", -1);
+
+		assertEquals(1001, replayer.replay(target, Kind.SOURCE, Double.POSITIVE_INFINITY));
+
+		assertEquals(990, property.get());
+		assertEquals("998", target.get("property.8"));
+		assertNull(target.get("property.9"));
+	}
+
+	@Test
+	void replayKeepsAcceleratedSpacing() throws Exception {
+		Path path = tempDir.resolve("config.journal");
+		try (ConfigChangeJournal journal = ConfigChangeJournal.create(path)) {
+			journal.append(Kind.SOURCE, "foo", "1");
+			Thread.sleep(200);
+			journal.append(Kind.SOURCE, "foo", "2");
+		}
+		ConfigChangeReplayer replayer = ConfigChangeReplayer.load(path);
+		MapConfigSource target = new MapConfigSource();
+
+		long start = System.nanoTime();
+		replayer.replay(target, Kind.SOURCE, 10);
+		long elapsed = System.nanoTime() - start;
+
+		assertEquals("2", target.get("foo"));
+		assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(20), "elapsed: " + elapsed);
+	}
+
+	@Test
+	void rejectsFilesThatAreNotJournals() throws Exception {
+		Path path = tempDir.resolve("config.snapshot");
+		MappedConfigSource.writeSnapshot(path, new MapConfigSource());
+
+		assertThrows(IllegalArgumentException.class, () -> ConfigChangeReplayer.load(path));
+	}
+
+	@Test
+	void closedJournalIsNotReferencedByAttachedSourceAndConfig() throws Exception {
+		MapConfigSource source = new MapConfigSource();
+		DynamicConfig config = DynamicConfig.create(source);
+		WeakReference<ConfigChangeJournal> journal = new WeakReference<>(
+				ConfigChangeJournal.create(tempDir.resolve("config.journal"), 64).attachTo(source).attachTo(config));
+		journal.get().close();
+
+		for (int i = 0; i < 100 && journal.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertNull(journal.get());
+		source.set("foo", "bar");
+		assertEquals("bar", config.getStringProperty("foo", null).get());
+	}
+
+	@Test
+	void loadStopsAtFirstIncompleteRecord() throws Exception {
+		Path path = tempDir.resolve("config.journal");
+		try (ConfigChangeJournal journal = ConfigChangeJournal.create(path, 64)) {
+			journal.append(Kind.SOURCE, "foo", "1");
+			journal.append(Kind.SOURCE, "bar", "2");
+		}
+		int secondRecord = ConfigChangeJournal.HEADER_SIZE + ConfigChangeJournal.RECORD_HEADER_SIZE + "foo1".length();
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			file.setLength(secondRecord + ConfigChangeJournal.RECORD_HEADER_SIZE);
+		}
+
+		ConfigChangeReplayer truncated = ConfigChangeReplayer.load(path);
+
+		assertEquals(1, truncated.size());
+		assertRecord(truncated, 0, Kind.SOURCE, "foo", "1");
+
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			file.seek(secondRecord + 12);
+			file.writeByte(Kind.values().length);
+		}
+		assertEquals(1, ConfigChangeReplayer.load(path).size());
+
+		Files.write(path, Arrays.copyOf(Files.readAllBytes(path), ConfigChangeJournal.HEADER_SIZE + 6));
+		assertEquals(0, ConfigChangeReplayer.load(path).size());
+	}
+
+	private static void assertRecord(ConfigChangeReplayer replayer, int index, Kind kind, String name, String value) {
+		List<Object> expected = Arrays.asList(kind, name, value);
+		assertEquals(expected, Arrays.asList(replayer.kind(index), replayer.name(index), replayer.value(index)), "record " + index);
+	}
+
+}
@@ -25,13 +25,36 @@ import static org.hamcrest.Matchers.empty;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import org.junit.jupiter.api.Test;
 
@@ -141,6 +164,71 @@ class DynamicConfigTest {
 		assertEquals(Long.MIN_VALUE, optionalLongProperty.getCurrentValue());
 	}
 
+	@Test
+	void scopedViewResolvesPropertiesRelativeToPrefix() {
+		DynamicConfig routingConfig = dynamicConfig.scoped("service.").scoped("routing.");
+		DynamicIntProperty timeout = routingConfig.getIntProperty("timeout", 100);
+
+		assertSame(dynamicConfig.getIntProperty("service.routing.timeout", 0), timeout);
+		assertEquals(100, timeout.get());
+
+		secondSource.set("service.routing.timeout", "200");
+		assertEquals(200, timeout.get());
+	}
+
+	@Test
+	void getsPropertyNamesWithPrefix() {
+		firstSource.set("service.routing.timeout", "200");
+		secondSource.set("service.routing.retries", "3");
+		secondSource.set("service.pool.size", "3");
+		DynamicConfig config = DynamicConfig.create(firstSource, secondSource, new SystemPropertiesConfigSource());
+
+		assertThat(config.getPropertyNames("service.routing."), contains("service.routing.retries", "service.routing.timeout"));
+		assertThat(config.scoped("service.").getPropertyNames("routing."), contains("routing.retries", "routing.timeout"));
+		assertThat(config.scoped("service.routing.").getPropertyNames(""), contains("retries", "timeout"));
+	}
+
+	@Test
+	void adjacentStaticSourcesAreResolvedInOrder() {
+		DynamicConfig config = DynamicConfig.create(
+				new StaticMapConfigSource("foo", "static1"),
+				new StaticMapConfigSource("foo", "static2", "bar", "static2"),
+				firstSource,
+				new StaticMapConfigSource("baz", "static3"),
+				new StaticMapConfigSource("baz", "static4", "bar", "static4"));
+
+		assertEquals("static1", config.getStringProperty("foo", null).get());
+		assertEquals("static2", config.getStringProperty("bar", null).get());
+		assertEquals("static3", config.getStringProperty("baz", null).get());
+		assertNull(config.getStringProperty("unknown", null).get());
+
+		DynamicStringProperty baz = config.getStringProperty("baz", null);
+		firstSource.set("baz", "dynamic");
+		assertEquals("dynamic", baz.get());
+		firstSource.set("baz", null);
+		assertEquals("static3", baz.get());
+	}
+
+	@Test
+	void settingsResolveToSamePropertyAsDirectReads() {
+		IntSetting intSetting = IntSetting.create("foo", 1);
+		StringSetting stringSetting = StringSetting.create("foo", "default");
+		EnumSetting<MyEnum> enumSetting = EnumSetting.create("myEnum", MyEnum.class, MyEnum.FIRST);
+
+		assertSame(dynamicConfig.getIntProperty("foo", 0), intSetting.getFrom(dynamicConfig));
+		assertSame(intSetting.getFrom(dynamicConfig), intSetting.getFrom(dynamicConfig));
+		assertSame(dynamicConfig.getStringProperty("foo", null), stringSetting.getFrom(dynamicConfig));
+		assertSame(enumSetting.getFrom(dynamicConfig), dynamicConfig.getEnumProperty("myEnum", MyEnum.class, null));
+
+		DynamicConfig scopedConfig = dynamicConfig.scoped("scope.");
+		assertSame(dynamicConfig.getIntProperty("scope.foo", 0), intSetting.getFrom(scopedConfig));
+
+		DynamicConfig otherConfig = DynamicConfig.create(secondSource);
+		secondSource.set("foo", "2");
+		assertEquals(2, intSetting.getFrom(otherConfig).get());
+		assertEquals(1, IntSetting.create("bar", 1).getFrom(otherConfig).get());
+	}
+
 	@Test
 	void enumProperty() {
 		DynamicProperty<MyEnum> enumProperty = dynamicConfig.getEnumProperty("myEnum", MyEnum.class, MyEnum.FIRST);
@@ -495,9 +583,576 @@ class DynamicConfigTest {
 		assertNull(propertyChangeEvents.poll());
 	}
 
+	@Test
+	void listenerCanReadPropertiesWhenNotifiedOfCreatedProperty() {
+		firstSource.set("foo", "1");
+		firstSource.set("bar", "2");
+		Queue<String> values = new LinkedBlockingQueue<>();
+		dynamicConfig.addListener(new DynamicConfigListener() {
+			@Override
+			public void propertyCreated(String propertyName, Object initialValue) {
+				if (propertyName.equals("foo")) {
+					values.add(dynamicConfig.getStringProperty("foo", null).get());
+					values.add(dynamicConfig.getStringProperty("bar", null).get());
+				}
+			}
+		});
+
+		dynamicConfig.getStringProperty("foo", null);
+
+		assertEquals("1", values.poll());
+		assertEquals("2", values.poll());
+	}
+
+	@Test
+	void slowSourceOnlyBlocksReadersOfPropertyBeingCreated() throws Exception {
+		CountDownLatch slowSourceEntered = new CountDownLatch(1);
+		CountDownLatch releaseSlowSource = new CountDownLatch(1);
+		DynamicConfig config = DynamicConfig.create(propertyName -> {
+			if (propertyName.equals("slow")) {
+				slowSourceEntered.countDown();
+				await(releaseSlowSource);
+			}
+			return propertyName + "Value";
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<DynamicStringProperty> creator = executor.submit(() -> config.getStringProperty("slow", null));
+			await(slowSourceEntered);
+			Future<DynamicStringProperty> waiter = executor.submit(() -> config.getStringProperty("slow", null));
+
+			assertEquals("fastValue", config.getStringProperty("fast", null).get());
+			assertFalse(waiter.isDone());
+
+			releaseSlowSource.countDown();
+			assertEquals("slowValue", creator.get(5, TimeUnit.SECONDS).get());
+			assertSame(creator.get(), waiter.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void failedCreationIsRetriedOnNextRead() {
+		AtomicBoolean fail = new AtomicBoolean(true);
+		DynamicConfig config = DynamicConfig.create(propertyName -> {
+			if (fail.get()) {
+				throw new IllegalStateException("Source unavailable");
+			}
+			return "value";
+		});
+
+		assertThrows(IllegalStateException.class, () -> config.getStringProperty("foo", null));
+
+		fail.set(false);
+		assertEquals("value", config.getStringProperty("foo", null).get());
+	}
+
+	@Test
+	void failedCreationUnsubscribesFromSourcesBoundBeforeFailure() {
+		AtomicInteger listeners = new AtomicInteger();
+		MapConfigSource source = new MapConfigSource() {
+			@Override
+			public String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+				listeners.incrementAndGet();
+				return super.get(propertyName, propertyChangeListener);
+			}
+
+			@Override
+			public void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+				listeners.decrementAndGet();
+				super.removeListener(propertyName, propertyChangeListener);
+			}
+		};
+		AtomicBoolean fail = new AtomicBoolean(true);
+		DynamicConfig config = DynamicConfig.create(source, propertyName -> {
+			if (fail.get()) {
+				throw new IllegalStateException("Source unavailable");
+			}
+			return "value";
+		});
+
+		assertThrows(IllegalStateException.class, () -> config.getStringProperty("foo", null));
+		assertEquals(0, listeners.get());
+
+		fail.set(false);
+		DynamicStringProperty foo = config.getStringProperty("foo", null);
+		assertEquals(1, listeners.get());
+		source.set("foo", "fromSource");
+		assertEquals("fromSource", foo.get());
+	}
+
+	@Test
+	void readersWaitingForFailedCreationFailWithSameCause() throws Exception {
+		CountDownLatch sourceEntered = new CountDownLatch(1);
+		CountDownLatch releaseSource = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("Source unavailable");
+		DynamicConfig config = DynamicConfig.create(propertyName -> {
+			sourceEntered.countDown();
+			await(releaseSource);
+			throw failure;
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<DynamicStringProperty> creator = executor.submit(() -> config.getStringProperty("foo", null));
+			await(sourceEntered);
+			AtomicReference<Thread> waitingThread = new AtomicReference<>();
+			Future<DynamicStringProperty> waiter = executor.submit(() -> {
+				waitingThread.set(Thread.currentThread());
+				return config.getStringProperty("foo", null);
+			});
+			while (waitingThread.get() == null || waitingThread.get().getState() != Thread.State.WAITING) {
+				Thread.sleep(1);
+			}
+
+			releaseSource.countDown();
+			ExecutionException creatorFailure = assertThrows(ExecutionException.class, () -> creator.get(5, TimeUnit.SECONDS));
+			ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+			assertSame(failure, creatorFailure.getCause());
+			assertSame(failure, waiterFailure.getCause().getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void readingPropertyWhileItIsCreatedInSameThreadThrowsIllegalStateException() {
+		AtomicReference<DynamicConfig> config = new AtomicReference<>();
+		config.set(DynamicConfig.create(propertyName -> config.get().getStringProperty(propertyName, null).get()));
+
+		assertThrows(IllegalStateException.class, () -> config.get().getStringProperty("foo", null));
+	}
+
+	@Test
+	void snapshotHoldsValuesAsOfWhenItWasTaken() {
+		firstSource.set("foo", "1");
+		DynamicIntProperty foo = dynamicConfig.getIntProperty("foo", 0);
+		DynamicOptionalProperty<String> bar = dynamicConfig.getOptionalStringProperty("bar");
+		ConfigSnapshot snapshot = dynamicConfig.snapshot();
+
+		firstSource.set("foo", "2");
+		secondSource.set("bar", "barValue");
+
+		assertEquals(Integer.valueOf(1), snapshot.get(foo));
+		assertNull(snapshot.get(bar));
+		ConfigSnapshot newSnapshot = dynamicConfig.snapshot();
+		assertEquals(Integer.valueOf(2), newSnapshot.get(foo));
+		assertEquals("barValue", newSnapshot.get(bar));
+		assertTrue(newSnapshot.getVersion() > snapshot.getVersion());
+	}
+
+	@Test
+	void snapshotVersionIsUnchangedWhenNoPropertyChanges() {
+		DynamicStringProperty foo = dynamicConfig.getStringProperty("foo", null);
+		ConfigSnapshot snapshot = dynamicConfig.snapshot();
+
+		secondSource.set("foo", "value");
+		firstSource.set("foo", "value");
+		ConfigSnapshot changed = dynamicConfig.snapshot();
+		assertTrue(changed.getVersion() > snapshot.getVersion());
+
+		firstSource.set("unread", "value");
+		assertSame(changed, dynamicConfig.snapshot());
+		assertSame(changed, dynamicConfig.scoped("foo").snapshot());
+		assertEquals("value", changed.get(foo));
+	}
+
+	@Test
+	void snapshotDoesNotContainPropertiesReadAfterItWasTaken() {
+		ConfigSnapshot snapshot = dynamicConfig.snapshot();
+		DynamicStringProperty foo = dynamicConfig.getStringProperty("foo", null);
+
+		assertThrows(IllegalArgumentException.class, () -> snapshot.get(foo));
+		assertThrows(IllegalArgumentException.class, () -> dynamicConfig.snapshot().get(new DynamicStringProperty()));
+	}
+
+	@Test
+	void snapshotHoldsManyProperties() {
+		DynamicIntProperty[] properties = new DynamicIntProperty[200];
+		for (int i = 0; i < properties.length; i++) {
+			firstSource.set("prop" + i, Integer.toString(i));
+			properties[i] = dynamicConfig.getIntProperty("prop" + i, -1);
+		}
+		ConfigSnapshot snapshot = dynamicConfig.snapshot();
+		firstSource.set("prop100", "-100");
+
+		assertEquals(200, snapshot.size());
+		for (int i = 0; i < properties.length; i++) {
+			assertEquals(Integer.valueOf(i), snapshot.get(properties[i]));
+		}
+		assertEquals(Integer.valueOf(-100), dynamicConfig.snapshot().get(properties[100]));
+		assertEquals(Integer.valueOf(99), dynamicConfig.snapshot().get(properties[99]));
+	}
+
+	@Test
+	void batchOfChangesIsPublishedAsOneSnapshotVersion() {
+		firstSource.set("min", "1");
+		firstSource.set("max", "10");
+		DynamicIntProperty min = dynamicConfig.getIntProperty("min", 0);
+		DynamicIntProperty max = dynamicConfig.getIntProperty("max", 0);
+		long version = dynamicConfig.version();
+		List<List<Integer>> snapshotsReadDuringBatch = new ArrayList<>();
+		min.addListener(newValue -> {
+			ConfigSnapshot snapshot = dynamicConfig.snapshot();
+			snapshotsReadDuringBatch.add(Arrays.asList(snapshot.get(min), snapshot.get(max)));
+		});
+		Map<String, String> batch = new LinkedHashMap<>();
+		batch.put("min", "2");
+		batch.put("max", "20");
+
+		firstSource.setAll(batch);
+
+		assertEquals(singletonList(Arrays.asList(1, 10)), snapshotsReadDuringBatch);
+		ConfigSnapshot snapshot = dynamicConfig.snapshot();
+		assertEquals(version + 1, snapshot.getVersion());
+		assertEquals(Integer.valueOf(2), snapshot.get(min));
+		assertEquals(Integer.valueOf(20), snapshot.get(max));
+		assertEquals(new HashSet<>(Arrays.asList(min, max)), dynamicConfig.changedSince(version));
+		assertEquals(version + 1, dynamicConfig.versionOf(max));
+	}
+
+	@Test
+	void objectPropertyIsRebuiltOnceForEachBatchOfChanges() {
+		firstSource.set("pool.min", "1");
+		AtomicInteger builds = new AtomicInteger();
+		DynamicObjectProperty<List<Integer>> pool = dynamicConfig.getObjectProperty(reader -> {
+			builds.incrementAndGet();
+			return Arrays.asList(reader.getInt("pool.min", 0), reader.getInt("pool.max", 10));
+		}, "pool.min", "pool.max");
+		Queue<List<Integer>> events = new LinkedBlockingQueue<>();
+		pool.addListener(events::add);
+
+		assertEquals(Arrays.asList(1, 10), pool.get());
+
+		Map<String, String> changes = new HashMap<>();
+		changes.put("pool.min", "2");
+		changes.put("pool.max", "20");
+		firstSource.setAll(changes);
+
+		assertEquals(Arrays.asList(2, 20), pool.get());
+		assertEquals(Arrays.asList(2, 20), events.poll());
+		assertNull(events.poll());
+		assertEquals(2, builds.get());
+
+		secondSource.set("pool.max", "30");
+		assertNull(events.poll(), "Change hidden by first source should not publish new object");
+		firstSource.set("pool.max", null);
+		assertEquals(Arrays.asList(2, 30), events.poll());
+	}
+
+	@Test
+	void objectPropertyKeepsPreviousValueWhenBuildFails() {
+		firstSource.set("timeout", "100");
+		DynamicObjectProperty<Long> timeout = dynamicConfig.getObjectProperty(reader -> reader.getLong("timeout", 0), "timeout");
+
+		firstSource.set("timeout", "not a number");
+		assertEquals(Long.valueOf(100), timeout.get());
+
+		firstSource.set("timeout", "200");
+		assertEquals(Long.valueOf(200), timeout.get());
+	}
+
+	@Test
+	void objectPropertyCanOnlyReadDeclaredKeys() {
+		assertThrows(IllegalArgumentException.class, () -> dynamicConfig.getObjectProperty(reader -> reader.getString("bar"), "foo"));
+	}
+
+	@Test
+	void objectPropertiesAreCachedByFactoryAndNames() {
+		Function<ConfigReader, String> factory = reader -> reader.getString("host", "localhost") + ":" + reader.getInt("port", 80);
+
+		DynamicObjectProperty<String> address = dynamicConfig.getObjectProperty(factory, "host", "port");
+		assertSame(address, dynamicConfig.getObjectProperty(factory, "host", "port"));
+		assertSame(address, dynamicConfig.scoped("").getObjectProperty(factory, "host", "port"));
+		assertNotSame(address, dynamicConfig.getObjectProperty(factory, "port", "host"));
+	}
+
+	@Test
+	void objectPropertiesWithCapturingFactoriesAreCachedByFactoryInstance() {
+		firstSource.set("port", "8080");
+		String host = "localhost";
+		Function<ConfigReader, String> factory = reader -> host + ":" + reader.getString("port");
+
+		assertSame(dynamicConfig.getObjectProperty(factory, "port"), dynamicConfig.getObjectProperty(factory, "port"));
+		assertNotSame(dynamicConfig.getObjectProperty(reader -> host + ":" + reader.getString("port"), "port"),
+				dynamicConfig.getObjectProperty(reader -> host + ":" + reader.getString("port"), "port"),
+				"A factory created on each call is a new instance, hence it is not cached");
+	}
+
+	@Test
+	void objectPropertyDoesNotPinDefaultValueOfItsKeys() {
+		dynamicConfig.getObjectProperty(reader -> reader.getString("port", "80"), "port");
+
+		assertEquals("8080", dynamicConfig.getStringProperty("port", "8080").get());
+	}
+
+	@Test
+	void sourcesCanBeAddedAndRemovedAtRuntime() {
+		firstSource.set("foo", "first");
+		secondSource.set("bar", "second");
+		DynamicStringProperty foo = dynamicConfig.getStringProperty("foo", "default");
+		DynamicStringProperty bar = dynamicConfig.getStringProperty("bar", "default");
+		Queue<String> fooEvents = new LinkedBlockingQueue<>();
+		Queue<String> barEvents = new LinkedBlockingQueue<>();
+		foo.addListener(fooEvents::add);
+		bar.addListener(barEvents::add);
+
+		MapConfigSource overrides = MapConfigSource.of("foo", "override");
+		dynamicConfig.addSource(0, overrides);
+		assertEquals("override", foo.get());
+		assertEquals("override", fooEvents.poll());
+		assertNull(barEvents.poll(), "Property not resolved differently should not be notified");
+
+		overrides.set("bar", "barOverride");
+		assertEquals("barOverride", bar.get());
+		barEvents.clear();
+
+		assertTrue(dynamicConfig.removeSource(overrides));
+		assertFalse(dynamicConfig.removeSource(overrides));
+		assertEquals("first", foo.get());
+		assertEquals("second", bar.get());
+
+		overrides.set("foo", "ignored");
+		assertEquals("first", foo.get());
+		assertEquals(Arrays.asList(firstSource, secondSource), dynamicConfig.getSources());
+	}
+
+	@Test
+	void sourcesCanBeReordered() {
+		firstSource.set("foo", "first");
+		secondSource.set("foo", "second");
+		DynamicStringProperty foo = dynamicConfig.scoped("f").getStringProperty("oo", null);
+
+		dynamicConfig.setSources(Arrays.asList(secondSource, firstSource));
+		assertEquals("second", foo.get());
+
+		secondSource.set("foo", null);
+		assertEquals("first", foo.get());
+	}
+
+	@Test
+	void addingSourceToStaticSourcesRelinksProperties() {
+		StaticMapConfigSource staticA = new StaticMapConfigSource("foo", "a");
+		StaticMapConfigSource staticB = new StaticMapConfigSource("foo", "b", "bar", "b");
+		DynamicConfig config = DynamicConfig.create(staticA, staticB);
+		DynamicStringProperty foo = config.getStringProperty("foo", null);
+		DynamicStringProperty bar = config.getStringProperty("bar", null);
+
+		MapConfigSource dynamic = MapConfigSource.of("bar", "dynamic");
+		config.addSource(1, dynamic);
+		assertEquals("a", foo.get());
+		assertEquals("dynamic", bar.get());
+
+		config.removeSource(staticA);
+		assertEquals("b", foo.get());
+		assertEquals("dynamic", bar.get());
+
+		config.removeSource(dynamic);
+		assertEquals("b", bar.get());
+	}
+
+	@Test
+	void removedSourcesAreUnsubscribedFrom() {
+		AtomicInteger listeners = new AtomicInteger();
+		MapConfigSource source = new MapConfigSource() {
+			@Override
+			public String get(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+				listeners.incrementAndGet();
+				return super.get(propertyName, propertyChangeListener);
+			}
+
+			@Override
+			public void removeListener(String propertyName, DynamicPropertyListener<String> propertyChangeListener) {
+				listeners.decrementAndGet();
+				super.removeListener(propertyName, propertyChangeListener);
+			}
+		};
+		DynamicStringProperty foo = dynamicConfig.getStringProperty("foo", "default");
+
+		for (int i = 0; i < 3; i++) {
+			dynamicConfig.addSource(0, source);
+			assertEquals(1, listeners.get());
+			dynamicConfig.removeSource(source);
+			assertEquals(0, listeners.get());
+		}
+		source.set("foo", "ignored");
+		assertEquals("default", foo.get());
+	}
+
+	@Test
+	void listenersAreNotifiedAfterSourcesAreReplaced() throws Exception {
+		DynamicStringProperty foo = dynamicConfig.getStringProperty("foo", "default");
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AtomicReference<String> readByOtherThread = new AtomicReference<>();
+		foo.addListener(newValue -> {
+			try {
+				readByOtherThread.set(executor.submit(() -> dynamicConfig.getStringProperty("bar", null).get()).get(5, TimeUnit.SECONDS));
+			} catch (Exception e) {
+				throw new AssertionError(e);
+			}
+		});
+		try {
+			dynamicConfig.addSource(0, MapConfigSource.of("foo", "override", "bar", "barValue"));
+
+			assertEquals("override", foo.get());
+			assertEquals("barValue", readByOtherThread.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void bindAllBindsSettingsAndReportsTimePerSource() {
+		List<IntSetting> settings = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			secondSource.set("setting" + i, Integer.toString(i));
+			settings.add(IntSetting.create("setting" + i, -1));
+		}
+		StaticMapConfigSource staticSource = new StaticMapConfigSource("setting1", "100");
+		dynamicConfig.addSource(2, staticSource);
+
+		BindReport report = dynamicConfig.bindAll(settings);
+
+		assertEquals(500, report.getBoundProperties());
+		assertEquals(Arrays.asList(firstSource, secondSource), new ArrayList<>(report.getSourceTimes().keySet()).subList(0, 2));
+		assertEquals(3, report.getSourceTimes().size());
+		assertTrue(report.getSourceTimes().get(secondSource).toNanos() > 0);
+		for (int i = 0; i < 500; i++) {
+			assertEquals(i, settings.get(i).getFrom(dynamicConfig).get());
+			assertSame(settings.get(i).getFrom(dynamicConfig), dynamicConfig.getIntProperty("setting" + i, -1));
+		}
+	}
+
+	@Test
+	void bindAllInCallingThreadBindsSettingsWithoutPool() {
+		secondSource.set("setting1", "1");
+		List<IntSetting> settings = Arrays.asList(IntSetting.create("setting1", -1), IntSetting.create("setting2", -1));
+		List<Thread> bindingThreads = new ArrayList<>();
+		dynamicConfig.addListener(new DynamicConfigListener() {
+			@Override
+			public void propertyCreated(String propertyName, Object initialValue) {
+				bindingThreads.add(Thread.currentThread());
+			}
+		});
+
+		BindReport report = dynamicConfig.bindAllInCallingThread(settings);
+
+		assertEquals(2, report.getBoundProperties());
+		assertEquals(Arrays.asList(Thread.currentThread(), Thread.currentThread()), bindingThreads);
+		assertEquals(1, settings.get(0).getFrom(dynamicConfig).get());
+		assertEquals(-1, settings.get(1).getFrom(dynamicConfig).get());
+	}
+
+	@Test
+	void bindAllDoesNotCountNestedReadsTwice() {
+		ConfigSource slowSource = propertyName -> {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return "default.timeout".equals(propertyName) ? "100" : null;
+		};
+		AtomicReference<DynamicConfig> configRef = new AtomicReference<>();
+		ConfigSource readingSource = propertyName -> "timeout".equals(propertyName) ? configRef.get().getStringProperty("default.timeout", null).get() : null;
+		DynamicConfig config = DynamicConfig.create(readingSource, slowSource);
+		configRef.set(config);
+		IntSetting timeout = IntSetting.create("timeout", -1);
+
+		BindReport report = config.bindAll(singletonList(timeout), new ForkJoinPool(1));
+
+		assertEquals(100, timeout.getFrom(config).get());
+		long sourceNanos = report.getSourceTimes().values().stream().mapToLong(Duration::toNanos).sum();
+		assertTrue(sourceNanos <= report.getTotalTime().toNanos(), report::toString);
+	}
+
+	@Test
+	void stablePropertiesFollowSourceChanges() throws Throwable {
+		StableBooleanProperty flag = dynamicConfig.getStableBooleanProperty("flag", true);
+		StableIntProperty limit = dynamicConfig.getStableIntProperty("limit", 10);
+		Queue<Boolean> events = new LinkedBlockingQueue<>();
+		flag.addListener(events::add);
+
+		assertTrue(flag.get());
+		assertEquals(10, limit.get());
+
+		firstSource.set("flag", "false");
+		secondSource.set("limit", "20");
+		assertFalse(flag.get());
+		assertFalse((boolean) flag.invoker().invokeExact());
+		assertEquals(20, limit.getAsInt());
+		assertEquals(Boolean.FALSE, events.poll());
+
+		secondSource.set("flag", "false");
+		assertNull(events.poll());
+	}
+
+	@Test
+	void paddedPropertiesFollowSourceChanges() {
+		PaddedIntProperty intProperty = dynamicConfig.getPaddedIntProperty("int", 1);
+		PaddedLongProperty longProperty = dynamicConfig.getPaddedLongProperty("long", 2L);
+		PaddedBooleanProperty booleanProperty = dynamicConfig.getPaddedBooleanProperty("boolean", false);
+
+		assertEquals(1, intProperty.get());
+		assertEquals(2L, longProperty.get());
+		assertFalse(booleanProperty.get());
+		List<Object> primitiveValues = new ArrayList<>();
+		intProperty.addIntListener(primitiveValues::add);
+		longProperty.addLongListener(primitiveValues::add);
+		booleanProperty.addBooleanListener(primitiveValues::add);
+		Map<String, Object> changes = new HashMap<>();
+		dynamicConfig.addListener(new DynamicConfigListener() {
+			@Override
+			public void propertyChanged(String propertyName, Object newValue) {
+				changes.put(propertyName, newValue);
+			}
+		});
+
+		firstSource.set("int", "10");
+		firstSource.set("long", "20");
+		firstSource.set("boolean", "true");
+		assertEquals(10, intProperty.getAsInt());
+		assertEquals(20L, longProperty.getAsLong());
+		assertTrue(booleanProperty.getAsBoolean());
+		assertEquals(Arrays.asList(10, 20L, true), primitiveValues);
+		assertEquals(Integer.valueOf(10), changes.get("int"));
+		assertEquals(Boolean.TRUE, dynamicConfig.snapshot().get(booleanProperty));
+		assertSame(intProperty, dynamicConfig.getPaddedIntProperty("int", 1));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 
 	private enum MyEnum {
 		FIRST, SECOND, THIRD
 	}
 
+	private static final class StaticMapConfigSource implements StaticConfigSource {
+
+		private final TreeMap<String, String> properties = new TreeMap<>();
+
+		StaticMapConfigSource(String... keyValuePairs) {
+			for (int i = 0; i < keyValuePairs.length; i += 2) {
+				properties.put(keyValuePairs[i], keyValuePairs[i + 1]);
+			}
+		}
+
+		@Override
+		public String get(String propertyName) {
+			return properties.get(propertyName);
+		}
+
+		@Override
+		public SortedMap<String, String> getPropertiesWithPrefix(String prefix) {
+			return new TreeMap<>(properties.tailMap(prefix));
+		}
+
+	}
+
 }
@@ -19,6 +19,9 @@ package com.avanza.astrix.config;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -141,6 +144,54 @@ class DynamicPropertyListenerTest {
 		propertySpy.receivesPropertyChangeWithValue(2);
 	}
 	
+	@Test
+	void primitiveListenersAreNotifiedWhenPropertySet() {
+		DynamicIntProperty intProp = new DynamicIntProperty(1);
+		DynamicLongProperty longProp = new DynamicLongProperty(1);
+		DynamicBooleanProperty booleanProp = new DynamicBooleanProperty(false);
+		List<Object> changes = new ArrayList<>();
+		IntPropertyListener intListener = changes::add;
+		intProp.addIntListener(intListener);
+		longProp.addLongListener(changes::add);
+		booleanProp.addBooleanListener(changes::add);
+
+		intProp.set(1000);
+		longProp.set(Long.MAX_VALUE);
+		booleanProp.set(true);
+		intProp.removeIntListener(intListener);
+		intProp.set(3);
+
+		assertEquals(Arrays.asList(1000, Long.MAX_VALUE, true), changes);
+	}
+
+	@Test
+	void primitivePropertiesReceiveUnboxedValuesThroughTheChain() {
+		MapConfigSource firstSource = new MapConfigSource();
+		MapConfigSource secondSource = new MapConfigSource();
+		DynamicConfig config = DynamicConfig.create(firstSource, secondSource);
+		List<Object> configChanges = new ArrayList<>();
+		config.addListener(new DynamicConfigListener() {
+			@Override
+			public void propertyChanged(String propertyName, Object newValue) {
+				configChanges.add(propertyName + "=" + newValue);
+			}
+		});
+		DynamicLongProperty limit = config.getLongProperty("limit", 10L);
+		List<Long> changes = new ArrayList<>();
+		limit.addLongListener(changes::add);
+
+		secondSource.set("limit", "5000000000");
+		firstSource.set("limit", "20");
+		secondSource.set("limit", "30");
+		firstSource.set("limit", null);
+		secondSource.set("limit", "illegal");
+		secondSource.set("limit", null);
+
+		assertEquals(Arrays.asList(5_000_000_000L, 20L, 30L, 10L), changes);
+		assertEquals(Arrays.asList("limit=5000000000", "limit=20", "limit=30", "limit=10"), configChanges);
+		assertEquals(Long.valueOf(10L), config.snapshot().get(limit));
+	}
+
 	private static class PropertySpy<T> implements DynamicPropertyListener<T> {
 		final Queue<T> notifiedChanges = new LinkedBlockingQueue<>();
 
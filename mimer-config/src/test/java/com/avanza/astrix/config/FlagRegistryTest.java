@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class FlagRegistryTest {
+
+	private final MapConfigSource source = new MapConfigSource();
+	private final FlagRegistry registry = FlagRegistry.create(DynamicConfig.create(source));
+
+	@Test
+	void flagsFollowSourceChanges() {
+		source.set("feature.a", "true");
+		Flag a = registry.getFlag("feature.a", false);
+		Flag b = registry.getFlag("feature.b", true);
+		assertTrue(a.get());
+		assertTrue(b.get());
+
+		source.set("feature.a", "false");
+		source.set("feature.b", "false");
+		assertFalse(a.get());
+		assertFalse(b.get());
+
+		source.set("feature.b", null);
+		assertTrue(b.get());
+		assertSame(a, registry.getFlag("feature.a", true));
+		assertEquals(2, registry.size());
+	}
+
+	@Test
+	void notifiesRegistryListenersOfChangedFlags() {
+		Flag a = registry.getFlag("feature.a", false);
+		registry.getFlag("feature.b", false);
+		List<String> changes = new ArrayList<>();
+		registry.addListener((flag, newValue) -> changes.add(flag.getName() + "=" + newValue));
+
+		source.set("feature.a", "true");
+		source.set("feature.a", "true");
+		source.set("feature.b", "false");
+		source.set("feature.a", null);
+
+		assertEquals(2, changes.size());
+		assertEquals("feature.a=true", changes.get(0));
+		assertEquals("feature.a=false", changes.get(1));
+		assertFalse(a.get());
+	}
+
+	@Test
+	void packsFlagsWithoutInterference() {
+		int flagCount = 10_000;
+		List<Flag> flags = new ArrayList<>();
+		for (int i = 0; i < flagCount; i++) {
+			flags.add(registry.getFlag("feature." + i, i % 3 == 0));
+		}
+		for (int i = 0; i < flagCount; i += 7) {
+			source.set("feature." + i, Boolean.toString(i % 3 != 0));
+		}
+
+		for (int i = 0; i < flagCount; i++) {
+			boolean expected = i % 7 == 0 ? i % 3 != 0 : i % 3 == 0;
+			assertEquals(expected, flags.get(i).get(), "feature." + i);
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class GlobalConfigSourceRegistryTest {
+
+	private final MapConfigSource configSource = new MapConfigSource();
+
+	@Test
+	void registeredSourceCanBeReadById() {
+		String id = GlobalConfigSourceRegistry.register(configSource);
+
+		assertSame(configSource, GlobalConfigSourceRegistry.getConfigSource(id));
+
+		GlobalConfigSourceRegistry.unregister(id);
+		assertNull(GlobalConfigSourceRegistry.getConfigSource(id));
+	}
+
+	@Test
+	void closingRegistrationUnregistersSource() {
+		GlobalConfigSourceRegistry.Registration registration = GlobalConfigSourceRegistry.registerSource(configSource);
+		try (GlobalConfigSourceRegistry.Registration r = registration) {
+			assertSame(configSource, r.getConfigSource());
+			assertSame(configSource, GlobalConfigSourceRegistry.getConfigSource(r.getId()));
+		}
+
+		assertNull(registration.getConfigSource());
+		assertNull(GlobalConfigSourceRegistry.getConfigSource(registration.getId()));
+	}
+
+	@Test
+	void weaklyRegisteredSourceIsUnregisteredWhenCollected() throws Exception {
+		GlobalConfigSourceRegistry.Registration registration = GlobalConfigSourceRegistry.registerWeakly(new MapConfigSource());
+
+		for (int i = 0; i < 100 && registration.getConfigSource() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertNull(registration.getConfigSource());
+		assertNull(GlobalConfigSourceRegistry.getConfigSource(registration.getId()));
+	}
+
+	@Test
+	void unknownIdsAreIgnored() {
+		assertNull(GlobalConfigSourceRegistry.getConfigSource("not-an-id"));
+		GlobalConfigSourceRegistry.unregister("not-an-id");
+	}
+
+}
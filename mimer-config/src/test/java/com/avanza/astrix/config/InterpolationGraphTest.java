@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class InterpolationGraphTest {
+
+	private final MapConfigSource configSource = new MapConfigSource();
+	private final DynamicConfig dynamicConfig = DynamicConfig.create(configSource);
+
+	@Test
+	void placeholdersAreResolvedAndUpdated() {
+		configSource.set("service.host", "localhost");
+		configSource.set("service.port", "8080");
+		configSource.set("service.url", "http://${service.host}:${service.port}/");
+		DynamicStringProperty url = dynamicConfig.getStringProperty("service.url", null);
+
+		assertEquals("http://localhost:8080/", url.get());
+
+		configSource.set("service.host", "example.com");
+		assertEquals("http://example.com:8080/", url.get());
+
+		configSource.set("service.url", "https://${service.host}");
+		assertEquals("https://example.com", url.get());
+
+		configSource.set("service.port", "9090");
+		configSource.set("service.url", "http://${service.host}:${service.port}/");
+		assertEquals("http://example.com:9090/", url.get());
+	}
+
+	@Test
+	void placeholdersWithoutValueResolveToDefaultOrAreKept() {
+		configSource.set("foo", "${missing:fallback}/${missing}");
+		DynamicStringProperty foo = dynamicConfig.getStringProperty("foo", null);
+
+		assertEquals("fallback/${missing}", foo.get());
+
+		configSource.set("missing", "present");
+		assertEquals("present/present", foo.get());
+	}
+
+	@Test
+	void placeholdersAreResolvedBeforeParsing() {
+		configSource.set("default.timeout", "100");
+		configSource.set("client.timeout", "${default.timeout}");
+		DynamicIntProperty timeout = dynamicConfig.getIntProperty("client.timeout", 0);
+
+		assertEquals(100, timeout.get());
+
+		configSource.set("default.timeout", "200");
+		assertEquals(200, timeout.get());
+	}
+
+	@Test
+	void dependentsAreResolvedOnceInTopologicalOrder() {
+		configSource.set("base", "1");
+		configSource.set("a", "a${base}");
+		configSource.set("b", "b${base}");
+		configSource.set("ab", "${a}-${b}");
+		DynamicStringProperty ab = dynamicConfig.getStringProperty("ab", null);
+		Queue<String> events = new LinkedBlockingQueue<>();
+		ab.addListener(events::add);
+
+		assertEquals("a1-b1", ab.get());
+
+		configSource.set("base", "2");
+		assertEquals("a2-b2", events.poll());
+		assertNull(events.poll(), "Dependent should be resolved once, without intermediate values");
+	}
+
+	@Test
+	void circularReferencesAreNotResolved() {
+		configSource.set("a", "${b}");
+		configSource.set("b", "${a}");
+		configSource.set("c", "${c}");
+
+		assertEquals("${a}", dynamicConfig.getStringProperty("a", null).get());
+		assertEquals("${a}", dynamicConfig.getStringProperty("b", null).get());
+		assertEquals("${c}", dynamicConfig.getStringProperty("c", null).get());
+
+		configSource.set("b", "value");
+		assertEquals("value", dynamicConfig.getStringProperty("a", null).get());
+	}
+
+	@Test
+	void referencedPropertiesAreNotCreated() {
+		Queue<String> createdProperties = new LinkedBlockingQueue<>();
+		dynamicConfig.addListener(new DynamicConfigListener() {
+			@Override
+			public void propertyCreated(String propertyName, Object initialValue) {
+				createdProperties.add(propertyName);
+			}
+		});
+		configSource.set("url", "http://${host}/x");
+
+		assertEquals("http://${host}/x", dynamicConfig.getStringProperty("url", null).get());
+		assertEquals("localhost", dynamicConfig.getStringProperty("host", "localhost").get());
+		assertEquals("url", createdProperties.poll());
+		assertEquals("host", createdProperties.poll());
+		assertNull(createdProperties.poll());
+
+		configSource.set("host", "example.com");
+		assertEquals("http://example.com/x", dynamicConfig.getStringProperty("url", null).get());
+	}
+
+	@Test
+	void dependentListenersCanReadConfigFromOtherThreads() throws Exception {
+		configSource.set("host", "localhost");
+		configSource.set("url", "http://${host}/");
+		configSource.set("other", "${host}:8080");
+		DynamicStringProperty url = dynamicConfig.getStringProperty("url", null);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AtomicReference<String> readByOtherThread = new AtomicReference<>();
+		url.addListener(newValue -> {
+			try {
+				readByOtherThread.set(executor.submit(() -> dynamicConfig.getStringProperty("other", null).get()).get(5, TimeUnit.SECONDS));
+			} catch (Exception e) {
+				throw new AssertionError(e);
+			}
+		});
+		try {
+			configSource.set("host", "example.com");
+
+			assertEquals("http://example.com/", url.get());
+			assertEquals("example.com:8080", readByOtherThread.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
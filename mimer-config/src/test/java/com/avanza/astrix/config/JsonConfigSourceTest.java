@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonConfigSourceTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void flattensNestedObjectsAndArrays() {
+		JsonConfigSource source = JsonConfigSource.of("{\n"
+				+ "  \"db\": {\"pool\": {\"size\": 10, \"enabled\": true}, \"url\": \"jdbc:x\"},\n"
+				+ "  \"hosts\": [\"a\", {\"name\": \"b\"}, [1.5e3]],\n"
+				+ "  \"missing\": null, \"empty\": {}, \"none\": [],\n"
+				+ "  \"escaped\": \"tab\\t\\\"quote\\\" \\u00e5 \\\\ åäö\",\n"
+				+ "  \"negative\": -0.5\n"
+				+ "}");
+
+		assertEquals("10", source.get("db.pool.size"));
+		assertEquals("true", source.get("db.pool.enabled"));
+		assertEquals("jdbc:x", source.get("db.url"));
+		assertEquals("a", source.get("hosts.0"));
+		assertEquals("b", source.get("hosts.1.name"));
+		assertEquals("1.5e3", source.get("hosts.2.0"));
+		assertEquals("tab\t\"quote\" å \\ åäö", source.get("escaped"));
+		assertEquals("-0.5", source.get("negative"));
+		assertNull(source.get("missing"));
+		assertNull(source.get("empty"));
+		assertNull(source.get("db"));
+		assertEquals(8, source.size());
+		assertThat(source.getPropertiesWithPrefix("db.").keySet(), contains("db.pool.enabled", "db.pool.size", "db.url"));
+	}
+
+	@Test
+	void bindsPropertiesOfDynamicConfig() {
+		JsonConfigSource source = JsonConfigSource.of("{\"pool\": {\"size\": 10}}");
+
+		DynamicConfig config = DynamicConfig.create(source);
+
+		assertEquals(10, config.getIntProperty("pool.size", 0).get());
+	}
+
+	@Test
+	void laterDuplicateMembersWin() {
+		JsonConfigSource source = JsonConfigSource.of("{\"a\": 1, \"b\": 1, \"a\": 2, \"b\": null}");
+
+		assertEquals("2", source.get("a"));
+		assertNull(source.get("b"));
+		assertEquals(1, source.size());
+	}
+
+	@Test
+	void notifiesListenersOfChangedPropertiesOnReload() {
+		JsonConfigSource source = JsonConfigSource.of("{\"pool\": {\"size\": 10, \"name\": \"a\"}, \"removed\": true}");
+		DynamicConfig config = DynamicConfig.create(source);
+		DynamicIntProperty size = config.getIntProperty("pool.size", 0);
+		DynamicStringProperty name = config.getStringProperty("pool.name", "default");
+		DynamicBooleanProperty removed = config.getBooleanProperty("removed", false);
+		DynamicStringProperty added = config.getStringProperty("added", "default");
+		List<String> nameChanges = new ArrayList<>();
+		name.addListener(nameChanges::add);
+
+		source.reload("{\"pool\": {\"size\": 20, \"name\": \"\\u0061\"}, \"added\": \"new\"}");
+
+		assertEquals(20, size.get());
+		assertEquals("a", name.get());
+		assertEquals(false, removed.get());
+		assertEquals("new", added.get());
+		assertEquals(0, nameChanges.size());
+	}
+
+	@Test
+	void keepsContentWhenReloadedWithInvalidJson() {
+		JsonConfigSource source = JsonConfigSource.of("{\"a\": 1}");
+
+		assertThrows(IllegalArgumentException.class, () -> source.reload("{\"a\": 2"));
+		assertEquals("1", source.get("a"));
+	}
+
+	@Test
+	void rejectsInvalidJson() {
+		assertThrows(IllegalArgumentException.class, () -> JsonConfigSource.of("[1]"));
+		assertThrows(IllegalArgumentException.class, () -> JsonConfigSource.of("{\"a\": 01}"));
+		assertThrows(IllegalArgumentException.class, () -> JsonConfigSource.of("{\"a\": tru}"));
+		assertThrows(IllegalArgumentException.class, () -> JsonConfigSource.of("{\"a\": \"\\x\"}"));
+		assertThrows(IllegalArgumentException.class, () -> JsonConfigSource.of("{\"a\": 1,}"));
+		assertThrows(IllegalArgumentException.class, () -> JsonConfigSource.of("{\"a\": 1} {}"));
+	}
+
+	@Test
+	void reloadsFile() throws Exception {
+		Path file = Files.write(tempDir.resolve("config.json"), "{\"a\": {\"b\": 1}}".getBytes(UTF_8));
+		JsonConfigSource source = JsonConfigSource.open(file);
+		DynamicIntProperty b = DynamicConfig.create(source).getIntProperty("a.b", 0);
+
+		Files.write(file, "{\"a\": {\"b\": 2}}".getBytes(UTF_8));
+		source.reload();
+
+		assertEquals(2, b.get());
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LastKnownGoodConfigSourceTest {
+
+	@TempDir
+	Path tempDir;
+
+	private final MapConfigSource remoteSource = new MapConfigSource();
+
+	@Test
+	void propertiesAreReadThroughToWrappedSource() {
+		remoteSource.set("foo", "remoteValue");
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(remoteSource, journal(), Runnable::run)) {
+			DynamicStringProperty foo = DynamicConfig.create(source).getStringProperty("foo", "default");
+			assertEquals("remoteValue", foo.get());
+
+			remoteSource.set("foo", "newValue");
+			assertEquals("newValue", foo.get());
+		}
+	}
+
+	@Test
+	void servesLastKnownGoodValueWhileWrappedSourceIsUnavailable() throws Exception {
+		remoteSource.set("foo", "firstValue");
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(remoteSource, journal(), Runnable::run)) {
+			source.get("foo");
+		}
+		remoteSource.set("foo", "secondValue");
+
+		CountDownLatch remoteAvailable = new CountDownLatch(1);
+		ConfigSource slowSource = propertyName -> {
+			awaitUninterruptibly(remoteAvailable);
+			return remoteSource.get(propertyName);
+		};
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(slowSource, journal())) {
+			DynamicStringProperty foo = DynamicConfig.create(source).getStringProperty("foo", "default");
+			DynamicStringProperty bar = DynamicConfig.create(source).getStringProperty("bar", "default");
+			assertEquals("firstValue", foo.get());
+			assertEquals("default", bar.get());
+
+			LinkedBlockingQueue<String> updates = new LinkedBlockingQueue<>();
+			foo.addListener(updates::add);
+			remoteAvailable.countDown();
+			assertEquals("secondValue", updates.poll(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	void removedPropertiesAreRemovedFromJournal() {
+		remoteSource.set("foo", "firstValue");
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(remoteSource, journal(), Runnable::run)) {
+			source.get("foo");
+			remoteSource.set("foo", null);
+		}
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(propertyName -> null, journal(), runnable -> { })) {
+			assertNull(source.get("foo"));
+		}
+	}
+
+	@Test
+	void discardsIncompleteRecordAtEndOfJournal() throws Exception {
+		remoteSource.set("foo", "firstValue");
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(remoteSource, journal(), Runnable::run)) {
+			source.get("foo");
+		}
+		Files.write(journal(), new byte[] { 0, 0, 0, 3, 'b', 'a' }, StandardOpenOption.APPEND);
+
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(propertyName -> null, journal(), runnable -> { })) {
+			assertEquals("firstValue", source.get("foo"));
+			assertNull(source.get("ba"));
+		}
+	}
+
+	@Test
+	void plainReadsDoNotRegisterListeners() {
+		remoteSource.set("foo", "remoteValue");
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(remoteSource, journal(), Runnable::run)) {
+			for (int i = 0; i < 100; i++) {
+				assertEquals("remoteValue", source.get("foo"));
+			}
+			assertFalse(source.hasListeners("foo"));
+
+			remoteSource.set("foo", "newValue");
+			assertEquals("newValue", source.get("foo"));
+		}
+	}
+
+	@Test
+	void failedReadsAreRetried() throws Exception {
+		remoteSource.set("foo", "remoteValue");
+		AtomicInteger reads = new AtomicInteger();
+		ConfigSource unreliableSource = propertyName -> {
+			if (reads.incrementAndGet() < 3) {
+				throw new IllegalStateException("Unavailable");
+			}
+			return remoteSource.get(propertyName);
+		};
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(unreliableSource, journal(), Runnable::run, Duration.ofMillis(1), 1 << 20)) {
+			LinkedBlockingQueue<String> updates = new LinkedBlockingQueue<>();
+			source.get("foo", updates::add);
+
+			assertEquals("remoteValue", updates.poll(5, TimeUnit.SECONDS));
+			assertEquals(3, reads.get());
+		}
+	}
+
+	@Test
+	void journalIsCompactedWhenItGrows() throws Exception {
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(remoteSource, journal(), Runnable::run, Duration.ofMillis(1), 100)) {
+			source.get("foo");
+			for (int i = 0; i < 1000; i++) {
+				remoteSource.set("foo", "value" + i);
+			}
+			assertTrue(Files.size(journal()) < 200, "Journal should be compacted");
+		}
+		try (LastKnownGoodConfigSource source = LastKnownGoodConfigSource.create(propertyName -> null, journal(), runnable -> { })) {
+			assertEquals("value999", source.get("foo"));
+		}
+	}
+
+	private Path journal() {
+		return tempDir.resolve("config.journal");
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
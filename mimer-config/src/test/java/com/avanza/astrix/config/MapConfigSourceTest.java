@@ -21,6 +21,8 @@ import org.junit.jupiter.api.Test;
 import java.util.HashMap;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
 
@@ -65,4 +67,66 @@ class MapConfigSourceTest {
 		assertThat(source.get("property3"), equalTo("value3"));
 	}
 
+	@Test
+	void getsPropertiesWithPrefix() {
+		MapConfigSource source = MapConfigSource.of("service.routing.timeout", "100",
+													"service.routing.retries", "3",
+													"service.routingTable", "main");
+		source.set("service.pool.size", "10");
+		source.set("service.routing.removed", "x");
+		source.set("service.routing.removed", null);
+
+		assertThat(source.getPropertiesWithPrefix("service.routing.").keySet(), contains("service.routing.retries", "service.routing.timeout"));
+		assertThat(source.getPropertiesWithPrefix("service.routing.").get("service.routing.timeout"), equalTo("100"));
+		assertThat(source.getPropertiesWithPrefix("").keySet(), contains("service.pool.size", "service.routing.retries", "service.routing.timeout", "service.routingTable"));
+		assertThat(source.getPropertiesWithPrefix("other.").keySet(), empty());
+	}
+
+	@Test
+	void compactSourceNotifiesListenersOfChanges() {
+		MapConfigSource source = MapConfigSource.compact();
+		DynamicConfig config = DynamicConfig.create(source);
+		DynamicIntProperty foo = config.getIntProperty("foo", 1);
+
+		source.set("foo", "2");
+		assertThat(foo.get(), equalTo(2));
+
+		source.set("foo", null);
+		assertThat(foo.get(), equalTo(1));
+		assertThat(source.get("foo"), nullValue());
+	}
+
+	@Test
+	void compactSourceHoldsManyProperties() {
+		MapConfigSource source = MapConfigSource.compact();
+		for (int i = 0; i < 10_000; i++) {
+			source.set("property" + i, "value" + i);
+		}
+		for (int i = 0; i < 10_000; i += 2) {
+			source.set("property" + i, null);
+		}
+		for (int i = 0; i < 10_000; i++) {
+			source.set("other" + i, "value" + i);
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(source.get("property" + i), equalTo(i % 2 == 0 ? null : "value" + i));
+			assertThat(source.get("other" + i), equalTo("value" + i));
+		}
+		assertThat(source.get("missing"), nullValue());
+		assertThat(source.getPropertiesWithPrefix("property").size(), equalTo(5_000));
+	}
+
+	@Test
+	void setAllCopiesPropertiesBetweenStorageModes() {
+		MapConfigSource compact = MapConfigSource.compact();
+		compact.set("foo", "1");
+		MapConfigSource source = MapConfigSource.of("foo", "2", "bar", "3");
+
+		source.setAll(compact);
+
+		assertThat(source.get("foo"), equalTo("1"));
+		assertThat(source.get("bar"), equalTo("3"));
+	}
+
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedConfigSourceTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void readsPropertiesFromSnapshot() {
+		Path snapshot = tempDir.resolve("config.snapshot");
+		Map<String, String> properties = new HashMap<>();
+		properties.put("foo", "fooValue");
+		properties.put("bar", "barValue");
+		properties.put("f", "");
+		properties.put("foo.bar", "åäö");
+		MappedConfigSource.writeSnapshot(snapshot, properties);
+
+		MappedConfigSource source = MappedConfigSource.open(snapshot);
+
+		assertEquals(4, source.size());
+		assertThat(source.get("foo"), equalTo("fooValue"));
+		assertThat(source.get("bar"), equalTo("barValue"));
+		assertThat(source.get("f"), equalTo(""));
+		assertThat(source.get("foo.bar"), equalTo("åäö"));
+		assertThat(source.get("fo"), nullValue());
+		assertThat(source.get("zzz"), nullValue());
+		assertThat(source.get(""), nullValue());
+		assertThat(source.getPropertiesWithPrefix("fo").keySet(), contains("foo", "foo.bar"));
+		assertThat(source.getPropertiesWithPrefix("").keySet(), contains("bar", "f", "foo", "foo.bar"));
+		assertThat(source.getPropertiesWithPrefix("foo.bar.").keySet(), empty());
+	}
+
+	@Test
+	void writesSnapshotOfMapConfigSource() {
+		Path snapshot = tempDir.resolve("config.snapshot");
+		MapConfigSource configSource = MapConfigSource.of("foo", "1", "bar", "2");
+		configSource.set("bar", null);
+		MappedConfigSource.writeSnapshot(snapshot, configSource);
+
+		MappedConfigSource source = MappedConfigSource.open(snapshot);
+
+		assertEquals(1, source.size());
+		assertThat(source.get("foo"), equalTo("1"));
+		assertThat(source.get("bar"), nullValue());
+	}
+
+	@Test
+	void writesResolvedValuesOfDynamicConfig() {
+		Path snapshot = tempDir.resolve("config.snapshot");
+		DynamicConfig config = DynamicConfig.create(MapConfigSource.of("foo", "1"), MapConfigSource.of("foo", "2", "bar", "true"));
+		config.getIntProperty("foo", 0);
+		config.getBooleanProperty("bar", false);
+		config.getLongProperty("baz", 3L);
+		MappedConfigSource.writeSnapshot(snapshot, config);
+
+		DynamicConfig snapshotConfig = DynamicConfig.create(MappedConfigSource.open(snapshot));
+
+		assertEquals(1, snapshotConfig.getIntProperty("foo", 0).get());
+		assertEquals(true, snapshotConfig.getBooleanProperty("bar", false).get());
+		assertEquals(0L, snapshotConfig.getLongProperty("baz", 0L).get());
+	}
+
+	@Test
+	void snapshotOfDynamicConfigHoldsOnlyValuesReadFromSources() {
+		Path snapshot = tempDir.resolve("config.snapshot");
+		DynamicConfig config = DynamicConfig.create(MapConfigSource.of("hosts", "a:1,b:2", "url", "http://${host}/"),
+				MapConfigSource.of("host", "example.com"));
+		config.getIntProperty("timeout", 100);
+		config.getStringProperty("timeout", "200");
+		config.getStringListProperty("hosts", Collections.emptyList());
+		config.getStringProperty("url", null);
+		MappedConfigSource.writeSnapshot(snapshot, config);
+
+		MappedConfigSource source = MappedConfigSource.open(snapshot);
+
+		assertThat(source.get("timeout"), nullValue());
+		assertThat(source.get("hosts"), equalTo("a:1,b:2"));
+		assertThat(source.get("url"), equalTo("http://example.com/"));
+	}
+
+	@Test
+	void rejectsFilesThatAreNotSnapshots() throws Exception {
+		Path notASnapshot = Files.write(tempDir.resolve("config.properties"), "foo=bar\n".getBytes());
+
+		assertThrows(IllegalArgumentException.class, () -> MappedConfigSource.open(notASnapshot));
+	}
+
+}
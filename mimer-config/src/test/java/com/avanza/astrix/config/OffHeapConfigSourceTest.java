@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapConfigSourceTest {
+
+	private final OffHeapConfigSource source = OffHeapConfigSource.create(1024);
+
+	@Test
+	void storesAndUpdatesProperties() {
+		assertNull(source.get("foo"));
+
+		source.set("foo", "bar");
+		source.set("empty", "");
+		source.set("unicode", "åäö");
+		assertEquals("bar", source.get("foo"));
+		assertEquals("", source.get("empty"));
+		assertEquals("åäö", source.get("unicode"));
+
+		source.set("foo", "baz");
+		assertEquals("baz", source.get("foo"));
+
+		source.set("foo", null);
+		assertNull(source.get("foo"));
+	}
+
+	@Test
+	void notifiesListenersOfSubscribedProperties() {
+		DynamicLongProperty limit = DynamicConfig.create(source).getLongProperty("instrument.1.limit", 10L);
+		assertEquals(10L, limit.get());
+
+		source.set("instrument.1.limit", "20");
+		assertEquals(20L, limit.get());
+
+		source.set("instrument.1.limit", null);
+		assertEquals(10L, limit.get());
+	}
+
+	@Test
+	void storesPropertiesLargerThanSlabSize() {
+		StringBuilder largeValue = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			largeValue.append("value").append(i);
+		}
+		source.set("small", "value");
+		source.set("large", largeValue.toString());
+		source.set("small2", "value2");
+
+		assertEquals(largeValue.toString(), source.get("large"));
+		assertEquals("value", source.get("small"));
+		assertEquals("value2", source.get("small2"));
+	}
+
+	@Test
+	void reclaimsReplacedRecords() {
+		for (int i = 0; i < 10_000; i++) {
+			source.set("instrument." + i, "limit" + i);
+		}
+		long allocatedBytes = source.allocatedBytes();
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 10_000; i++) {
+				source.set("instrument." + i, "limit" + (i + round));
+			}
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals("limit" + (i + 9), source.get("instrument." + i));
+		}
+		assertEquals(10_000, source.size());
+		assertTrue(source.allocatedBytes() < 3 * allocatedBytes);
+	}
+
+	@Test
+	void concurrentReadsSeeConsistentValues() throws Exception {
+		for (int i = 0; i < 1_000; i++) {
+			source.set("instrument." + i, i + ":0");
+		}
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicReference<String> inconsistentRead = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			while (running.get()) {
+				for (int i = 0; i < 1_000; i++) {
+					String value = source.get("instrument." + i);
+					if (value == null || !value.startsWith(i + ":")) {
+						inconsistentRead.set("instrument." + i + "=" + value);
+					}
+				}
+			}
+		});
+		reader.start();
+		for (int round = 1; round < 50; round++) {
+			for (int i = 0; i < 1_000; i++) {
+				source.set("instrument." + i, i + ":" + round);
+			}
+		}
+		running.set(false);
+		reader.join();
+
+		assertNull(inconsistentRead.get());
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PropertiesFileConfigSourceTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void parsesLikePropertiesLoad() throws Exception {
+		String content = "# comment\n"
+				+ "! another comment \\\n"
+				+ "   \n"
+				+ "plain=value\n"
+				+ "colon:value\n"
+				+ "space value with  spaces  \n"
+				+ "  indented = spaced value\n"
+				+ "empty=\n"
+				+ "keyOnly\n"
+				+ "double==value\n"
+				+ "escaped\\ key\\=with\\:separators = v\n"
+				+ "escapes=tab\\tnewline\\nreturn\\rfeed\\fother\\q\\\\\n"
+				+ "unicode=\\u00e5\\u00E4\\u00f6\n"
+				+ "utf8=åäö \uD83D\uDE00\n"
+				+ "continued=first \\\n"
+				+ "     second \\\r\n"
+				+ "\tthird\n"
+				+ "notContinued=even\\\\\n"
+				+ "# comment \\\n"
+				+ "afterComment=yes\r"
+				+ "crOnly=yes\r\n"
+				+ "crlf=yes\n"
+				+ "continuedComment=\\\n"
+				+ "  # not a comment\n"
+				+ "plain=duplicate wins\n"
+				+ "atEnd=last\\";
+
+		Properties expected = new Properties();
+		expected.load(new StringReader(content));
+		Path file = Files.write(tempDir.resolve("test.properties"), content.getBytes(UTF_8));
+
+		PropertiesFileConfigSource source = PropertiesFileConfigSource.load(file);
+
+		assertEquals(expected.size(), source.size());
+		for (String name : expected.stringPropertyNames()) {
+			assertEquals(expected.getProperty(name), source.get(name), name);
+		}
+		assertEquals("duplicate wins", source.get("plain"));
+		assertEquals("first second third", source.get("continued"));
+	}
+
+	@Test
+	void fallsBackToLatin1ForFilesThatAreNotUtf8() throws Exception {
+		Path file = Files.write(tempDir.resolve("latin1.properties"), "name=åäö\nother=x\n".getBytes(ISO_8859_1));
+
+		PropertiesFileConfigSource source = PropertiesFileConfigSource.load(file);
+
+		assertEquals("åäö", source.get("name"));
+		assertEquals("x", source.get("other"));
+	}
+
+	@Test
+	void rejectsMalformedUnicodeEscapes() throws Exception {
+		Path file = Files.write(tempDir.resolve("malformed.properties"), "foo=\\u00g1\n".getBytes(UTF_8));
+
+		assertThrows(IllegalArgumentException.class, () -> PropertiesFileConfigSource.load(file));
+	}
+
+	@Test
+	void findsPropertiesWithPrefix() throws Exception {
+		Path file = Files.write(tempDir.resolve("test.properties"), "foo.b=2\nfoo.a=1\nfo=0\nbar=3\n".getBytes(UTF_8));
+
+		PropertiesFileConfigSource source = PropertiesFileConfigSource.load(file);
+
+		assertThat(source.getPropertiesWithPrefix("foo.").keySet(), contains("foo.a", "foo.b"));
+		assertThat(source.getPropertiesWithPrefix("fo").keySet(), contains("fo", "foo.a", "foo.b"));
+		assertThat(source.getPropertiesWithPrefix("").keySet(), contains("bar", "fo", "foo.a", "foo.b"));
+		assertNull(source.get("foo"));
+	}
+
+	@Test
+	void firstFileTakesPrecedenceWhenLoadingSeveralFiles() throws Exception {
+		Path overrides = Files.write(tempDir.resolve("overrides.properties"), "foo=override\n".getBytes(UTF_8));
+		Path defaults = Files.write(tempDir.resolve("defaults.properties"), "foo=default\nbar=default\n".getBytes(UTF_8));
+
+		PropertiesFileConfigSource source = PropertiesFileConfigSource.loadAll(Arrays.asList(overrides, defaults));
+
+		assertEquals("override", source.get("foo"));
+		assertEquals("default", source.get("bar"));
+		assertEquals(2, source.size());
+		assertEquals(1, DynamicConfig.create(source).getIntProperty("baz", 1).get());
+	}
+
+	@Test
+	void optionalClasspathPropertiesFileIsEmptyWhenMissing() {
+		ConfigSource source = PropertiesConfigSource.optionalClasspathPropertiesFile("does-not-exist.properties");
+
+		assertNull(source.get("foo"));
+	}
+
+}
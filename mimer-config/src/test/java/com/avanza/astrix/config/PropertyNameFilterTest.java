@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PropertyNameFilterTest {
+
+	@Test
+	void containsAllNamesInFilter() {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			names.add("service.property" + i);
+		}
+		PropertyNameFilter filter = PropertyNameFilter.create(names);
+
+		names.forEach(name -> assertTrue(filter.mightContain(name), name));
+	}
+
+	@Test
+	void rarelyContainsNamesNotInFilter() {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			names.add("service.property" + i);
+		}
+		PropertyNameFilter filter = PropertyNameFilter.create(names);
+
+		int falsePositives = 0;
+		for (int i = 0; i < 10_000; i++) {
+			if (filter.mightContain("other.property" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives, lessThan(100));
+	}
+
+}
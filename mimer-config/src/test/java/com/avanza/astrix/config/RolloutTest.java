@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RolloutTest {
+
+	@Test
+	void enablesGivenPercentageOfUsers() {
+		Rollout rollout = Rollout.parse("25%");
+
+		int enabled = 0;
+		for (long userId = 0; userId < 100_000; userId++) {
+			if (rollout.isEnabledFor(userId)) {
+				enabled++;
+			}
+		}
+
+		assertTrue(enabled > 24_000 && enabled < 26_000, "enabled: " + enabled);
+	}
+
+	@Test
+	void usersStayEnabledWhenPercentageIsIncreased() {
+		Rollout tenPercent = Rollout.parse("10%;seed=3");
+		Rollout twentyPercent = Rollout.parse("20%;seed=3");
+
+		for (long userId = 0; userId < 10_000; userId++) {
+			if (tenPercent.isEnabledFor(userId)) {
+				assertTrue(twentyPercent.isEnabledFor(userId), "userId: " + userId);
+			}
+		}
+	}
+
+	@Test
+	void denyListTakesPrecedenceOverAllowList() {
+		Rollout rollout = Rollout.parse(" 0% ; allow=0, 17,42 ; deny=42,-5 ");
+
+		assertTrue(rollout.isEnabledFor(0));
+		assertTrue(rollout.isEnabledFor(17));
+		assertFalse(rollout.isEnabledFor(42));
+		assertFalse(Rollout.parse("100%;deny=-5").isEnabledFor(-5));
+		assertTrue(Rollout.parse("100%;deny=-5").isEnabledFor(5));
+	}
+
+	@Test
+	void parsesBooleanRules() {
+		assertTrue(Rollout.parse("true").isEnabledFor(1));
+		assertFalse(Rollout.parse("FALSE").isEnabledFor(1));
+		assertFalse(Rollout.parse("allow=2").isEnabledFor(1));
+	}
+
+	@Test
+	void formatsCanonicalRule() {
+		Rollout rollout = Rollout.parse("deny=3;12.50%;allow=2,1,2;seed=7");
+
+		assertEquals("12.5%;allow=1,2;deny=3;seed=7", rollout.toString());
+		assertEquals(rollout, Rollout.parse(rollout.toString()));
+		assertEquals("100%", Rollout.ENABLED.toString());
+	}
+
+	@Test
+	void rejectsMalformedRules() {
+		assertThrows(IllegalArgumentException.class, () -> Rollout.parse("101%"));
+		assertThrows(IllegalArgumentException.class, () -> Rollout.parse("ten%"));
+		assertThrows(IllegalArgumentException.class, () -> Rollout.parse("allow=a"));
+		assertThrows(IllegalArgumentException.class, () -> Rollout.parse("maybe"));
+	}
+
+	@Test
+	void rolloutSettingFollowsSourceChanges() {
+		MapConfigSource source = new MapConfigSource();
+		DynamicConfig config = DynamicConfig.create(source);
+		BooleanSetting feature = BooleanSetting.create("feature", true);
+		RolloutSetting rolloutSetting = RolloutSetting.from(feature);
+		DynamicRolloutProperty rollout = rolloutSetting.getFrom(config);
+		assertTrue(rollout.isEnabledFor(1));
+
+		source.set(rolloutSetting, Rollout.parse("0%;allow=2"));
+		assertFalse(rollout.isEnabledFor(1));
+		assertTrue(rollout.isEnabledFor(2));
+
+		source.set("feature", "false");
+		assertFalse(rollout.isEnabledFor(2));
+	}
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2020 Avanza Bank AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.avanza.astrix.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SharedMemoryConfigSourceTest {
+
+	@TempDir
+	Path tempDir;
+
+	private SharedMemoryConfigWriter writer;
+
+	@AfterEach
+	void closeWriter() {
+		if (writer != null) {
+			writer.close();
+		}
+	}
+
+	@Test
+	void readsPropertiesSetByWriter() {
+		writer = SharedMemoryConfigWriter.create(tempDir.resolve("config.shm"), 100, 128);
+		writer.set("foo", "fooValue");
+		SharedMemoryConfigSource source = SharedMemoryConfigSource.open(tempDir.resolve("config.shm"));
+
+		writer.set("bar", "");
+		writer.set("unicode", "åäö");
+
+		assertEquals("fooValue", source.get("foo"));
+		assertEquals("", source.get("bar"));
+		assertEquals("åäö", source.get("unicode"));
+		assertNull(source.get("baz"));
+
+		writer.set("foo", null);
+		assertNull(source.get("foo"));
+	}
+
+	@Test
+	void pollNotifiesListenersOfChangedPropertiesOnly() {
+		writer = SharedMemoryConfigWriter.create(tempDir.resolve("config.shm"), 100, 128);
+		writer.set("foo", "1");
+		writer.set("bar", "2");
+		SharedMemoryConfigSource source = SharedMemoryConfigSource.open(tempDir.resolve("config.shm"));
+		List<String> fooChanges = new ArrayList<>();
+		List<String> barChanges = new ArrayList<>();
+		List<String> bazChanges = new ArrayList<>();
+		assertEquals("1", source.get("foo", fooChanges::add));
+		assertEquals("2", source.get("bar", barChanges::add));
+		assertNull(source.get("baz", bazChanges::add));
+
+		assertFalse(source.poll());
+
+		writer.set("foo", "3");
+		writer.set("baz", "4");
+		assertTrue(source.poll());
+		assertEquals(listOf("3"), fooChanges);
+		assertEquals(listOf(), barChanges);
+		assertEquals(listOf("4"), bazChanges);
+
+		writer.set("baz", null);
+		assertTrue(source.poll());
+		assertFalse(source.poll());
+		assertEquals(listOf("3"), fooChanges);
+		assertEquals(listOf("4", null), bazChanges);
+	}
+
+	@Test
+	void settingUnchangedValueDoesNotPublishChange() {
+		writer = SharedMemoryConfigWriter.create(tempDir.resolve("config.shm"), 100, 128);
+		writer.set("foo", "1");
+		SharedMemoryConfigSource source = SharedMemoryConfigSource.open(tempDir.resolve("config.shm"));
+
+		writer.set("foo", "1");
+		writer.set("bar", null);
+
+		assertEquals(1, writer.changeCount());
+		assertFalse(source.poll());
+	}
+
+	@Test
+	void dynamicConfigFollowsPolledChanges() {
+		writer = SharedMemoryConfigWriter.create(tempDir.resolve("config.shm"), 100, 128);
+		SharedMemoryConfigSource source = SharedMemoryConfigSource.open(tempDir.resolve("config.shm"));
+		DynamicIntProperty limit = DynamicConfig.create(source).getIntProperty("limit", 10);
+
+		writer.set("limit", "20");
+		assertEquals(10, limit.get());
+
+		source.poll();
+		assertEquals(20, limit.get());
+	}
+
+	@Test
+	void reopenedWriterContinuesFromSegmentContent() {
+		Path path = tempDir.resolve("config.shm");
+		writer = SharedMemoryConfigWriter.create(path, 100, 128);
+		writer.set("foo", "1");
+		writer.set("bar", "2");
+		writer.close();
+
+		writer = SharedMemoryConfigWriter.create(path, 100, 128);
+		writer.set("foo", "3");
+
+		SharedMemoryConfigSource source = SharedMemoryConfigSource.open(path);
+		assertEquals(3, writer.changeCount());
+		assertEquals("3", source.get("foo"));
+		assertEquals("2", source.get("bar"));
+	}
+
+	@Test
+	void rejectsReopeningSegmentWithOtherGeometry() {
+		SharedMemoryConfigWriter.create(tempDir.resolve("config.shm"), 100, 128).close();
+
+		assertThrows(IllegalArgumentException.class, () -> SharedMemoryConfigWriter.create(tempDir.resolve("config.shm"), 10_000, 128));
+	}
+
+	@Test
+	void rejectsSecondWriter() {
+		writer = SharedMemoryConfigWriter.create(tempDir.resolve("config.shm"), 100, 128);
+
+		assertThrows(IllegalStateException.class, () -> SharedMemoryConfigWriter.create(tempDir.resolve("config.shm"), 100, 128));
+	}
+
+	@Test
+	void rejectsPropertiesThatDoNotFit() {
+		writer = SharedMemoryConfigWriter.create(tempDir.resolve("config.shm"), 3, 64);
+
+		assertThrows(IllegalArgumentException.class, () -> writer.set("foo", "a value that does not fit in the slot"));
+		writer.set("a", "1");
+		writer.set("b", "2");
+		writer.set("c", "3");
+		assertThrows(IllegalStateException.class, () -> writer.set("d", "4"));
+	}
+
+	@Test
+	void readsAreConsistentWhileWriterUpdatesValues() throws Exception {
+		writer = SharedMemoryConfigWriter.create(tempDir.resolve("config.shm"), 100, 128);
+		writer.set("foo", "0-0");
+		SharedMemoryConfigSource source = SharedMemoryConfigSource.open(tempDir.resolve("config.shm"));
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<String> tornRead = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			while (!done.get()) {
+				String[] parts = source.get("foo").split("-");
+				if (!parts[0].equals(parts[1])) {
+					tornRead.set(parts[0] + "-" + parts[1]);
+				}
+			}
+		});
+		reader.start();
+		for (int i = 0; i < 100_000; i++) {
+			writer.set("foo", i + "-" + i);
+		}
+		done.set(true);
+		reader.join();
+
+		assertNull(tornRead.get());
+	}
+
+	@Test
+	void readersDoNotWaitForWriterThatDiedWhileUpdatingAndNewWriterRepairsSegment() throws Exception {
+		Path path = tempDir.resolve("config.shm");
+		writer = SharedMemoryConfigWriter.create(path, 100, 128);
+		writer.set("foo", "1");
+		writer.set("bar", "2");
+		writer.close();
+		writer = null;
+		SharedMemoryConfigSource source = SharedMemoryConfigSource.open(path);
+		List<String> fooChanges = new ArrayList<>();
+		assertEquals("1", source.get("foo", fooChanges::add));
+		// Simulates a writer that died while updating foo and while inserting bar
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+			int fooOffset = slotOffset(segment, "foo");
+			segment.putLong(fooOffset + SharedMemoryConfigSource.SEQUENCE_OFFSET, segment.getLong(fooOffset + SharedMemoryConfigSource.SEQUENCE_OFFSET) + 1);
+			segment.putLong(fooOffset + SharedMemoryConfigSource.CHANGED_AT_OFFSET, 3);
+			segment.putLong(slotOffset(segment, "bar") + SharedMemoryConfigSource.SEQUENCE_OFFSET, 1);
+			segment.putLong(SharedMemoryConfigSource.CHANGE_COUNT_OFFSET, 3);
+			segment.force();
+		}
+
+		assertThrows(IllegalStateException.class, () -> source.get("foo"));
+		assertNull(source.get("bar"));
+		assertTrue(source.poll());
+		assertEquals(listOf(), fooChanges);
+
+		writer = SharedMemoryConfigWriter.create(path, 100, 128);
+		assertTrue(source.poll());
+		assertEquals(listOf((String) null), fooChanges);
+		assertNull(source.get("foo"));
+		assertNull(source.get("bar"));
+
+		writer.set("bar", "3");
+		assertEquals("3", source.get("bar"));
+	}
+
+	private static int slotOffset(ByteBuffer segment, String propertyName) {
+		byte[] key = propertyName.getBytes(StandardCharsets.UTF_8);
+		int slotCount = segment.getInt(SharedMemoryConfigSource.SLOT_COUNT_OFFSET);
+		int slotSize = segment.getInt(SharedMemoryConfigSource.SLOT_SIZE_OFFSET);
+		for (int slot = 0; slot < slotCount; slot++) {
+			int offset = SharedMemoryConfigSource.HEADER_SIZE + slot * slotSize;
+			if (segment.getInt(offset + SharedMemoryConfigSource.KEY_LENGTH_OFFSET) == key.length) {
+				byte[] slotKey = new byte[key.length];
+				ByteBuffer view = segment.duplicate();
+				view.position(offset + SharedMemoryConfigSource.SLOT_HEADER_SIZE);
+				view.get(slotKey);
+				if (Arrays.equals(key, slotKey)) {
+					return offset;
+				}
+			}
+		}
+		throw new AssertionError("No slot for " + propertyName);
+	}
+
+	private static List<String> listOf(String... values) {
+		List<String> result = new ArrayList<>();
+		for (String value : values) {
+			result.add(value);
+		}
+		return result;
+	}
+
+}